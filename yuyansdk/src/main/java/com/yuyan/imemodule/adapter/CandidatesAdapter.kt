@@ -12,6 +12,7 @@ import com.yuyan.imemodule.callback.OnRecyclerItemClickListener
 import com.yuyan.imemodule.data.theme.ThemeManager.activeTheme
 import com.yuyan.imemodule.service.DecodingInfo
 import com.yuyan.imemodule.singleton.EnvironmentSingleton.Companion.instance
+import com.yuyan.inputmethod.core.CandidateListItem
 
 /**
  * 候选词界面适配器
@@ -20,6 +21,7 @@ class CandidatesAdapter(context: Context?) :
     RecyclerView.Adapter<CandidatesAdapter.SymbolHolder>() {
     private val inflater: LayoutInflater = LayoutInflater.from(context)
     private val textColor: Int = activeTheme.keyTextColor
+    private val differ = CandidatesDiffer(this)
     private var mOnItemClickListener: OnRecyclerItemClickListener? = null
     fun setOnItemClickLitener(mOnItemClickLitener: OnRecyclerItemClickListener?) {
         mOnItemClickListener = mOnItemClickLitener
@@ -31,14 +33,18 @@ class CandidatesAdapter(context: Context?) :
     }
 
     override fun onBindViewHolder(holder: SymbolHolder, position: Int) {
-        holder.textView.text = DecodingInfo.candidates[position].text
-        holder.textView.setOnClickListener { view: View? ->
-            mOnItemClickListener?.onItemClick(this@CandidatesAdapter, view, position)
-        }
+        holder.textView.text = differ.getText(position)
     }
 
     override fun getItemCount(): Int {
-        return DecodingInfo.candidateSize
+        return differ.size
+    }
+
+    /**
+     * 提交新的候选词，只刷新变化的位置
+     */
+    fun submitCandidates(candidates: List<CandidateListItem> = DecodingInfo.candidates) {
+        differ.submit(candidates)
     }
 
     inner class SymbolHolder(view: View) : RecyclerView.ViewHolder(view) {
@@ -47,6 +53,11 @@ class CandidatesAdapter(context: Context?) :
         init {
             textView.setTextColor(textColor)
             textView.setTextSize(TypedValue.COMPLEX_UNIT_DIP, instance.candidateTextSize)
+            textView.setOnClickListener { view: View? ->
+                val position = bindingAdapterPosition
+                // 差异计算完成前展示的位置与候选词列表不一致，忽略点击
+                if (position != RecyclerView.NO_POSITION && !differ.isPending) mOnItemClickListener?.onItemClick(this@CandidatesAdapter, view, position)
+            }
         }
     }
 }
@@ -12,6 +12,7 @@ import com.yuyan.imemodule.callback.OnRecyclerItemClickListener
 import com.yuyan.imemodule.data.theme.ThemeManager.activeTheme
 import com.yuyan.imemodule.service.DecodingInfo
 import com.yuyan.imemodule.singleton.EnvironmentSingleton.Companion.instance
+import com.yuyan.inputmethod.core.CandidateListItem
 
 /**
  * 候选词界面适配器
@@ -19,6 +20,7 @@ import com.yuyan.imemodule.singleton.EnvironmentSingleton.Companion.instance
 class CandidatesBarAdapter(context: Context?) :
     RecyclerView.Adapter<CandidatesBarAdapter.SymbolHolder>() {
     private val inflater: LayoutInflater
+    private val differ = CandidatesDiffer(this)
     private var mOnItemClickListener: OnRecyclerItemClickListener? = null
     private var mActiveCandNo:Int = 0
     fun setOnItemClickLitener(mOnItemClickLitener: OnRecyclerItemClickListener?) {
@@ -36,33 +38,43 @@ class CandidatesBarAdapter(context: Context?) :
     }
 
     override fun onBindViewHolder(holder: SymbolHolder, position: Int) {
-        if(DecodingInfo.isCandidatesListEmpty) return
-        holder.textView.text = DecodingInfo.candidates[position].text
+        holder.textView.text = differ.getText(position)
         holder.textView.setTextSize(TypedValue.COMPLEX_UNIT_DIP, instance.candidateTextSize)
         holder.textView.setTextColor(if(mActiveCandNo-1 == position) activeTheme.accentKeyBackgroundColor else activeTheme.keyTextColor)
-        if (mOnItemClickListener != null) {
-            holder.textView.setOnClickListener { view: View? ->
-                mOnItemClickListener!!.onItemClick(this@CandidatesBarAdapter, view, position)
-            }
-        }
     }
 
     override fun getItemCount(): Int {
-        return DecodingInfo.candidateSize
+        return differ.size
     }
 
     fun activeCandidates(activeCandNo:Int) {
+        if (mActiveCandNo == activeCandNo) return
+        val oldActive = mActiveCandNo - 1
         mActiveCandNo = activeCandNo
+        if (oldActive in 0..<itemCount) notifyItemChanged(oldActive)
+        if (activeCandNo - 1 in 0..<itemCount) notifyItemChanged(activeCandNo - 1)
+    }
+
+    /**
+     * 提交新的候选词，只刷新变化的位置
+     */
+    fun submitCandidates(candidates: List<CandidateListItem> = DecodingInfo.candidates) {
+        differ.submit(candidates)
     }
 
     fun notifyChanged() {
-        notifyDataSetChanged()
+        differ.reset(DecodingInfo.candidates)
     }
 
     inner class SymbolHolder(view: View) : RecyclerView.ViewHolder(view) {
         var textView: EmojiTextView = view.findViewById(R.id.gv_candidates_bar_item)
         init {
             textView.setTextColor(activeTheme.keyTextColor)
+            textView.setOnClickListener { view: View? ->
+                val position = bindingAdapterPosition
+                // 差异计算完成前展示的位置与候选词列表不一致，忽略点击
+                if (position != RecyclerView.NO_POSITION && !differ.isPending) mOnItemClickListener?.onItemClick(this@CandidatesBarAdapter, view, position)
+            }
         }
     }
 }
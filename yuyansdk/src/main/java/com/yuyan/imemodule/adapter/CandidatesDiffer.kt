@@ -0,0 +1,106 @@
+package com.yuyan.imemodule.adapter
+
+import android.os.Handler
+import android.os.Looper
+import androidx.recyclerview.widget.DiffUtil
+import androidx.recyclerview.widget.ListUpdateCallback
+import androidx.recyclerview.widget.RecyclerView
+import com.yuyan.imemodule.utils.thread.ThreadPoolUtils
+import com.yuyan.inputmethod.core.CandidateListItem
+
+/**
+ * 候选词列表差异计算
+ *
+ * 保存已展示候选词文字的快照(引擎的候选词缓冲区会被复用)，新候选词提交时只通知变化的位置。
+ * 连续按键的候选词通常前缀相同，先跳过相同的前缀和后缀；剩余部分较短时直接按位置更新，
+ * 较长时(如翻页后的展开候选词)在后台线程用[DiffUtil]计算，完成后回到UI线程再通知并替换快照。
+ * 后台计算期间界面展示的仍是旧快照，与已发布的候选词位置不一致，此时[isPending]为true，点击应忽略。
+ */
+class CandidatesDiffer(private val adapter: RecyclerView.Adapter<*>) {
+    private val mainHandler = Handler(Looper.getMainLooper())
+    private var texts: Array<String> = emptyArray()
+    private var generation = 0
+    private var pendingGeneration = -1  // 后台计算中的提交批次
+
+    val size: Int
+        get() = texts.size
+
+    fun getText(position: Int): String = texts[position]
+
+    /**
+     * 是否有尚未通知到界面的后台差异计算
+     */
+    val isPending: Boolean
+        get() = pendingGeneration == generation
+
+    /**
+     * 提交新的候选词，需在UI线程调用
+     */
+    fun submit(candidates: List<CandidateListItem>) {
+        val newTexts = Array(candidates.size) { candidates[it].text }
+        val oldTexts = texts
+        val submitGeneration = ++generation
+        val oldSize = oldTexts.size
+        val newSize = newTexts.size
+        var prefix = 0
+        while (prefix < oldSize && prefix < newSize && oldTexts[prefix] == newTexts[prefix]) prefix++
+        var suffix = 0
+        while (suffix < oldSize - prefix && suffix < newSize - prefix &&
+            oldTexts[oldSize - 1 - suffix] == newTexts[newSize - 1 - suffix]) suffix++
+        val oldMiddle = oldSize - prefix - suffix
+        val newMiddle = newSize - prefix - suffix
+        if (oldMiddle == 0 && newMiddle == 0) {
+            texts = newTexts
+            return
+        }
+        if (oldMiddle <= SYNC_DIFF_LIMIT && newMiddle <= SYNC_DIFF_LIMIT) {
+            texts = newTexts
+            dispatchByPosition(prefix, oldMiddle, newMiddle)
+            return
+        }
+        pendingGeneration = submitGeneration
+        ThreadPoolUtils.execute {
+            val result = DiffUtil.calculateDiff(object : DiffUtil.Callback() {
+                override fun getOldListSize() = oldMiddle
+                override fun getNewListSize() = newMiddle
+                override fun areItemsTheSame(oldItemPosition: Int, newItemPosition: Int) =
+                    oldTexts[prefix + oldItemPosition] == newTexts[prefix + newItemPosition]
+                override fun areContentsTheSame(oldItemPosition: Int, newItemPosition: Int) = true
+            }, false)
+            mainHandler.post {
+                if (submitGeneration != generation) return@post
+                texts = newTexts
+                pendingGeneration = -1
+                result.dispatchUpdatesTo(OffsetListUpdateCallback(prefix))
+            }
+        }
+    }
+
+    /**
+     * 候选词被整体替换(主题、字号变化)时使用
+     */
+    fun reset(candidates: List<CandidateListItem>) {
+        generation++
+        texts = Array(candidates.size) { candidates[it].text }
+        adapter.notifyDataSetChanged()
+    }
+
+    private fun dispatchByPosition(start: Int, oldCount: Int, newCount: Int) {
+        val changed = minOf(oldCount, newCount)
+        if (changed > 0) adapter.notifyItemRangeChanged(start, changed)
+        if (newCount > oldCount) adapter.notifyItemRangeInserted(start + changed, newCount - oldCount)
+        else if (oldCount > newCount) adapter.notifyItemRangeRemoved(start + changed, oldCount - newCount)
+    }
+
+    private inner class OffsetListUpdateCallback(private val offset: Int) : ListUpdateCallback {
+        override fun onInserted(position: Int, count: Int) = adapter.notifyItemRangeInserted(offset + position, count)
+        override fun onRemoved(position: Int, count: Int) = adapter.notifyItemRangeRemoved(offset + position, count)
+        override fun onMoved(fromPosition: Int, toPosition: Int) = adapter.notifyItemMoved(offset + fromPosition, offset + toPosition)
+        override fun onChanged(position: Int, count: Int, payload: Any?) = adapter.notifyItemRangeChanged(offset + position, count, payload)
+    }
+
+    companion object {
+        // 差异部分不超过该数量时直接在UI线程按位置更新
+        private const val SYNC_DIFF_LIMIT = 64
+    }
+}
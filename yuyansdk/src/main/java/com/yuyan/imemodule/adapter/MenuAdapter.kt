@@ -17,7 +17,6 @@ import com.yuyan.imemodule.application.CustomConstant
 import com.yuyan.imemodule.data.flower.FlowerTypefaceMode
 import com.yuyan.imemodule.data.theme.Theme
 import com.yuyan.imemodule.data.theme.ThemeManager
-import com.yuyan.imemodule.database.DataBaseKT
 import com.yuyan.imemodule.entity.SkbFunItem
 import com.yuyan.imemodule.manager.InputModeSwitcherManager
 import com.yuyan.imemodule.prefs.AppPrefs
@@ -36,6 +35,7 @@ class MenuAdapter (context: Context?, val data: MutableList<SkbFunItem>) : Recyc
     }
 
     var dragOverListener: DragOverListener? = null
+    var barMenus: Set<String> = emptySet()  // 已添加到候选词栏的菜单
     init {
         val theme = ThemeManager.activeTheme
         textColor = theme.keyTextColor
@@ -78,7 +78,7 @@ class MenuAdapter (context: Context?, val data: MutableList<SkbFunItem>) : Recyc
         holder.entranceIconImageView?.getDrawable()?.setTint(color)
         if (dragOverListener != null) {
             holder.entranceOption?.visibility = View.VISIBLE
-            if(DataBaseKT.instance.skbFunDao().getBarMenu(item.skbMenuMode.name) != null){
+            if(barMenus.contains(item.skbMenuMode.name)){
                 holder.entranceOption?.setImageResource(R.drawable.ic_menu_minus)
             } else {
                 holder.entranceOption?.setImageResource(R.drawable.ic_menu_plus)
@@ -10,7 +10,6 @@ import com.google.android.flexbox.FlexWrap
 import com.google.android.flexbox.JustifyContent
 import com.yuyan.imemodule.R
 import com.yuyan.imemodule.data.emojicon.YuyanEmojiCompat
-import com.yuyan.imemodule.database.DataBaseKT
 import com.yuyan.imemodule.prefs.behavior.SymbolMode
 import com.yuyan.imemodule.manager.layout.CustomFlexboxLayoutManager
 
@@ -21,6 +20,16 @@ class SymbolPagerAdapter(context: Context, private val mDatas: Map<Int, List<Str
     RecyclerView.Adapter<SymbolPagerAdapter.ViewHolder>() {
     private val mContext: Context
 
+    /**
+     * 最近使用的符号，由容器在后台查询后设置
+     */
+    var recents: List<String> = emptyList()
+        set(value) {
+            field = value
+            val position = mDatas.keys.indexOf(R.drawable.icon_emojibar_recents)
+            if (position >= 0) notifyItemChanged(position)
+        }
+
     init {
         mContext = context
     }
@@ -40,8 +49,8 @@ class SymbolPagerAdapter(context: Context, private val mDatas: Map<Int, List<Str
     override fun onBindViewHolder(holder: ViewHolder, position: Int) {
         val item = when (val key = mDatas.keys.toList()[position]) {
             R.drawable.icon_emojibar_recents -> {
-                if (viewType != SymbolMode.Symbol) DataBaseKT.instance.usedSymbolDao().getAllSymbolEmoji().map { it.symbol }.takeIf { it.isNotEmpty() } ?: mDatas[mDatas.keys.toList()[if(YuyanEmojiCompat.isWeChatInput) 2 else 1]]
-                else DataBaseKT.instance.usedSymbolDao().getAllUsedSymbol().map { it.symbol }.takeIf { it.isNotEmpty() } ?: mDatas[mDatas.keys.toList()[1]]
+                if (viewType != SymbolMode.Symbol) recents.takeIf { it.isNotEmpty() } ?: mDatas[mDatas.keys.toList()[if(YuyanEmojiCompat.isWeChatInput) 2 else 1]]
+                else recents.takeIf { it.isNotEmpty() } ?: mDatas[mDatas.keys.toList()[1]]
             }
             else -> mDatas[key]
         }
@@ -10,7 +10,9 @@ import com.yuyan.imemodule.data.theme.ThemeManager.prefs
 import com.yuyan.imemodule.database.DataBaseKT
 import com.yuyan.imemodule.prefs.AppPrefs
 import com.yuyan.imemodule.service.ClipboardHelper
+import com.yuyan.imemodule.utils.AssetDeployer
 import com.yuyan.imemodule.utils.AssetUtils.copyFileOrDir
+import com.yuyan.imemodule.utils.StartupTimeline
 import com.yuyan.imemodule.utils.thread.ThreadPoolUtils
 import com.yuyan.inputmethod.core.Kernel
 
@@ -20,15 +22,19 @@ class Launcher {
 
     fun initData(context: Context) {
         this.context = context
-        currentInit()
-        onInitDataChildThread()
+        StartupTimeline.trace("Launcher.initData") {
+            currentInit()
+            onInitDataChildThread()
+        }
     }
 
     private fun currentInit() {
-        AppPrefs.init(PreferenceManager.getDefaultSharedPreferences(context))
-        ThemeManager.init(context.resources.configuration)
-        DataBaseKT.instance.sideSymbolDao().getAllSideSymbolPinyin()  //操作一次查询，提前创建数据库，避免使用时才创建数据库
-        ClipboardHelper.init()
+        StartupTimeline.trace("AppPrefs.init") { AppPrefs.init(PreferenceManager.getDefaultSharedPreferences(context)) }
+        StartupTimeline.trace("ThemeManager.init") { ThemeManager.init(context.resources.configuration) }
+        ThreadPoolUtils.executeSingleton {
+            StartupTimeline.trace("DataBaseKT.open") { DataBaseKT.instance.openHelper.writableDatabase }  //子线程提前打开数据库，避免使用时才创建数据库
+        }
+        StartupTimeline.trace("ClipboardHelper.init") { ClipboardHelper.init() }
     }
 
     /**
@@ -36,15 +42,19 @@ class Launcher {
      */
     private fun onInitDataChildThread() {
         ThreadPoolUtils.executeSingleton {
-            // 复制词库文件
+            // 复制词库文件，按清单只复制变化的文件；没有清单时按版本号整体覆盖
             val dataDictVersion = AppPrefs.getInstance().internal.dataDictVersion.getValue()
-            if (dataDictVersion < CustomConstant.CURRENT_RIME_DICT_DATA_VERSIOM) {
+            val deployResult = StartupTimeline.trace("AssetDeployer.deploy") { AssetDeployer.deploy(context, "rime", CustomConstant.RIME_DICT_PATH) }
+            if (deployResult == null && dataDictVersion < CustomConstant.CURRENT_RIME_DICT_DATA_VERSIOM) {
                 //rime词库
                 copyFileOrDir(context, "rime", "", CustomConstant.RIME_DICT_PATH, true)
+            }
+            if (dataDictVersion < CustomConstant.CURRENT_RIME_DICT_DATA_VERSIOM) {
                 AppPrefs.getInstance().internal.dataDictVersion.setValue(CustomConstant.CURRENT_RIME_DICT_DATA_VERSIOM)
             }
-            Kernel.resetIme()  // 解决词库复制慢，导致先调用初始化问题
-            YuyanEmojiCompat.init(context)
+            // 解决词库复制慢，导致先调用初始化问题。Rime启动只在此处计入启动时间线，切换方案时的启动不记录
+            StartupTimeline.trace("Kernel.resetIme") { Kernel.resetIme() }
+            StartupTimeline.trace("YuyanEmojiCompat.init") { YuyanEmojiCompat.init(context) }
             //初始化键盘主题
             val isFollowSystemDayNight = prefs.followSystemDayNightTheme.getValue()
             if (isFollowSystemDayNight) {
@@ -19,4 +19,16 @@ interface BaseDao<T> {
 
     @Update
     fun update(bean: T)
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertAsync(bean: T)
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertAllAsync(bean: List<T>)
+
+    @Delete
+    suspend fun deleteAsync(bean:T)
+
+    @Update
+    suspend fun updateAsync(bean: T)
 }
@@ -18,9 +18,12 @@ import com.yuyan.imemodule.database.entry.SkbFun
 import com.yuyan.imemodule.database.entry.UsedSymbol
 import com.yuyan.imemodule.prefs.behavior.SkbMenuMode
 import com.yuyan.imemodule.utils.thread.ThreadPoolUtils
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
 
 //@Database(entities = [SideSymbol::class, Clipboard::class, UsedSymbol::class], version = 1, exportSchema = false)
-@Database(entities = [SideSymbol::class, Clipboard::class, UsedSymbol::class, Phrase::class, SkbFun::class], version = 5, exportSchema = false)
+@Database(entities = [SideSymbol::class, Clipboard::class, UsedSymbol::class, Phrase::class, SkbFun::class], version = 6, exportSchema = false)
 abstract class DataBaseKT : RoomDatabase() {
     abstract fun sideSymbolDao(): SideSymbolDao
     abstract fun clipboardDao(): ClipboardDao
@@ -55,12 +58,29 @@ abstract class DataBaseKT : RoomDatabase() {
             }
         }
 
+        private val MIGRATION_5_6 = object : Migration(5, 6) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                // 常用语按编码查询、剪切板与常用符号按时间排序裁剪
+                db.execSQL("CREATE INDEX IF NOT EXISTS index_phrase_qwerty ON phrase (qwerty)")
+                db.execSQL("CREATE INDEX IF NOT EXISTS index_phrase_t9 ON phrase (t9)")
+                db.execSQL("CREATE INDEX IF NOT EXISTS index_phrase_lx17 ON phrase (lx17)")
+                db.execSQL("CREATE INDEX IF NOT EXISTS index_clipboard_isKeep_time ON clipboard (isKeep, time)")
+                db.execSQL("CREATE INDEX IF NOT EXISTS index_clipboard_time ON clipboard (time)")
+                db.execSQL("CREATE INDEX IF NOT EXISTS index_usedSymbol_type_time ON usedSymbol (type, time)")
+            }
+        }
+
+        /**
+         * 数据库操作协程作用域，查询使用suspend/Flow接口在Room的后台线程执行，结果回到主线程处理
+         */
+        val scope = CoroutineScope(SupervisorJob() + Dispatchers.Main)
+
         val instance = Room.databaseBuilder(Launcher.instance.context, DataBaseKT::class.java, "ime_db")
-            .allowMainThreadQueries()
             .addMigrations(MIGRATION_1_2)
             .addMigrations(MIGRATION_2_3)
             .addMigrations(MIGRATION_3_4)
             .addMigrations(MIGRATION_4_5)
+            .addMigrations(MIGRATION_5_6)
             .addCallback(object :Callback(){
                 override fun onCreate(db: SupportSQLiteDatabase) {
                     super.onCreate(db)
@@ -73,6 +93,8 @@ abstract class DataBaseKT : RoomDatabase() {
                     super.onOpen(db)
                     ThreadPoolUtils.executeSingleton {
                         initPhrasesDb()
+                        PhraseIndex.init(instance)
+                        SideSymbolCache.init(instance)
                     }
                 }
             })
@@ -0,0 +1,103 @@
+package com.yuyan.imemodule.database
+
+import androidx.room.InvalidationTracker
+import com.yuyan.imemodule.utils.thread.ThreadPoolUtils
+import java.util.Arrays
+
+/**
+ * 常用语内存索引
+ *
+ * 以qwerty、t9、lx17三种编码建立索引，按键时不再查询数据库。
+ * 索引在后台线程构建，phrase表有写入时通过Room的[InvalidationTracker]自动重建。
+ * 数据库不允许在主线程查询，索引未构建完成前不返回常用语。
+ */
+object PhraseIndex {
+
+    /**
+     * @param contents 按isKeep、time倒序排列的常用语，下标即排序
+     * @param exact 编码 -> 常用语下标(已排序、去重)
+     * @param sortedCodes 所有编码按字典序排列，用于前缀匹配
+     * @param sortedOwners 与sortedCodes一一对应的常用语下标
+     */
+    private class Snapshot(
+        val contents: Array<String>,
+        val exact: HashMap<String, IntArray>,
+        val sortedCodes: Array<String>,
+        val sortedOwners: IntArray,
+    )
+
+    @Volatile
+    private var snapshot: Snapshot? = null
+
+    private val observer = object : InvalidationTracker.Observer("phrase") {
+        override fun onInvalidated(tables: Set<String>) {
+            ThreadPoolUtils.executeSingleton { rebuild() }
+        }
+    }
+
+    /**
+     * 构建索引并监听phrase表变化，需在子线程调用
+     */
+    fun init(db: DataBaseKT) {
+        db.invalidationTracker.addObserver(observer)
+        rebuild()
+    }
+
+    private fun rebuild() {
+        val phrases = DataBaseKT.instance.phraseDao().getAll()
+        val contents = Array(phrases.size) { phrases[it].content }
+        val owners = HashMap<String, MutableList<Int>>()
+        phrases.forEachIndexed { index, phrase ->
+            for (code in arrayOf(phrase.qwerty, phrase.t9, phrase.lx17)) {
+                if (code.isEmpty()) continue
+                val list = owners.getOrPut(code) { mutableListOf() }
+                if (list.lastOrNull() != index) list.add(index)  // 同一常用语多种编码相同时只记录一次
+            }
+        }
+        val exact = HashMap<String, IntArray>(owners.size * 2)
+        for ((code, list) in owners) exact[code] = list.toIntArray()
+        val sortedCodes = owners.keys.toTypedArray().also { it.sort() }
+        var total = 0
+        for (code in sortedCodes) total += exact[code]!!.size
+        val codes = Array(total) { "" }
+        val sortedOwners = IntArray(total)
+        var pos = 0
+        for (code in sortedCodes) {
+            for (owner in exact[code]!!) {
+                codes[pos] = code
+                sortedOwners[pos++] = owner
+            }
+        }
+        snapshot = Snapshot(contents, exact, codes, sortedOwners)
+    }
+
+    /**
+     * 查询常用语
+     * @param prefixMatch 是否前缀匹配，如"wd"匹配"wddh"
+     */
+    fun query(code: String, prefixMatch: Boolean = false): List<String> {
+        val index = snapshot ?: return emptyList()
+        if (!prefixMatch) {
+            val owners = index.exact[code] ?: return emptyList()
+            return List(owners.size) { index.contents[owners[it]] }
+        }
+        var start = Arrays.binarySearch(index.sortedCodes, code)
+        if (start < 0) start = -start - 1
+        var matched: BooleanArray? = null
+        var count = 0
+        var i = start
+        while (i < index.sortedCodes.size && index.sortedCodes[i].startsWith(code)) {
+            if (matched == null) matched = BooleanArray(index.contents.size)
+            val owner = index.sortedOwners[i]
+            if (!matched[owner]) {
+                matched[owner] = true
+                count++
+            }
+            i++
+        }
+        if (matched == null) return emptyList()
+        val result = ArrayList<String>(count)
+        for (owner in matched.indices) if (matched[owner]) result.add(index.contents[owner])
+        return result
+    }
+}
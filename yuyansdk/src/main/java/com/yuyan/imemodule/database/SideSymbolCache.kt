@@ -0,0 +1,28 @@
+package com.yuyan.imemodule.database
+
+import com.yuyan.imemodule.database.entry.SideSymbol
+import kotlinx.coroutines.launch
+
+/**
+ * 键盘左侧符号缓存
+ *
+ * 九宫格、手写、数字键盘创建时不再查询数据库，通过Flow监听side_symbol表，修改后自动更新。
+ */
+object SideSymbolCache {
+    @Volatile
+    var pinyin: List<SideSymbol> = emptyList()
+        private set
+
+    @Volatile
+    var number: List<SideSymbol> = emptyList()
+        private set
+
+    fun init(db: DataBaseKT) {
+        DataBaseKT.scope.launch {
+            db.sideSymbolDao().observeAllSideSymbol("pinyin").collect { pinyin = it }
+        }
+        DataBaseKT.scope.launch {
+            db.sideSymbolDao().observeAllSideSymbol("number").collect { number = it }
+        }
+    }
+}
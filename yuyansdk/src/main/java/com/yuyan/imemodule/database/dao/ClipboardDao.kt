@@ -4,6 +4,7 @@ import androidx.room.Dao
 import androidx.room.Query
 import com.yuyan.imemodule.database.BaseDao
 import com.yuyan.imemodule.database.entry.Clipboard
+import kotlinx.coroutines.flow.Flow
 
 @Dao
 interface ClipboardDao : BaseDao<Clipboard> {
@@ -22,4 +23,28 @@ interface ClipboardDao : BaseDao<Clipboard> {
 
     @Query("DELETE FROM clipboard WHERE content IN ( SELECT content FROM clipboard ORDER BY time ASC LIMIT :overflow)")
     fun deleteOldest(overflow: Int)
+
+    @Query("select * from clipboard ORDER BY isKeep DESC, time DESC")
+    suspend fun getAllAsync(): List<Clipboard>
+
+    @Query("select * from clipboard ORDER BY isKeep DESC, time DESC")
+    fun observeAll(): Flow<List<Clipboard>>
+
+    @Query("delete from clipboard where content = :content")
+    suspend fun deleteByContentAsync(content: String)
+
+    @Query("delete from clipboard")
+    suspend fun deleteAllAsync()
+
+    @Query("SELECT COUNT(*) FROM clipboard")
+    suspend fun getCountAsync(): Int
+
+    @Query("DELETE FROM clipboard WHERE content IN ( SELECT content FROM clipboard ORDER BY time ASC LIMIT :overflow)")
+    suspend fun deleteOldestAsync(overflow: Int)
+
+    /**
+     * 只保留最新的limit条记录，一条语句完成裁剪
+     */
+    @Query("DELETE FROM clipboard WHERE content NOT IN ( SELECT content FROM clipboard ORDER BY time DESC LIMIT :limit)")
+    suspend fun trimAsync(limit: Int)
 }
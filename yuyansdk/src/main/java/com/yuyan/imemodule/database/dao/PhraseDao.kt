@@ -4,6 +4,7 @@ import androidx.room.Dao
 import androidx.room.Query
 import com.yuyan.imemodule.database.BaseDao
 import com.yuyan.imemodule.database.entry.Phrase
+import kotlinx.coroutines.flow.Flow
 
 @Dao
 interface PhraseDao : BaseDao<Phrase> {
@@ -19,4 +20,19 @@ interface PhraseDao : BaseDao<Phrase> {
 
     @Query("delete from phrase")
     fun deleteAll()
+
+    @Query("select * from phrase ORDER BY isKeep DESC, time DESC")
+    suspend fun getAllAsync(): List<Phrase>
+
+    @Query("select * from phrase ORDER BY isKeep DESC, time DESC")
+    fun observeAll(): Flow<List<Phrase>>
+
+    @Query("select * from phrase  where qwerty = :index or t9 = :index or lx17 = :index ORDER BY isKeep DESC, time DESC")
+    suspend fun queryAsync(index: String): List<Phrase>
+
+    @Query("delete from phrase where content = :content")
+    suspend fun deleteByContentAsync(content: String)
+
+    @Query("delete from phrase")
+    suspend fun deleteAllAsync()
 }
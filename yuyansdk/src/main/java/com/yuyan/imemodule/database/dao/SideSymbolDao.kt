@@ -4,6 +4,7 @@ import androidx.room.Dao
 import androidx.room.Query
 import com.yuyan.imemodule.database.BaseDao
 import com.yuyan.imemodule.database.entry.SideSymbol
+import kotlinx.coroutines.flow.Flow
 
 @Dao
 interface SideSymbolDao : BaseDao<SideSymbol> {
@@ -24,4 +25,13 @@ interface SideSymbolDao : BaseDao<SideSymbol> {
 
     @Query("update side_symbol set symbolValue =:value where symbolKey =:key AND type = :type")
     fun updateSymbol(key: String, value: String, type: String = "pinyin")
+
+    @Query("select * from side_symbol where type = :type")
+    suspend fun getAllSideSymbolAsync(type: String = "pinyin"): List<SideSymbol>
+
+    @Query("select * from side_symbol where type = :type")
+    fun observeAllSideSymbol(type: String = "pinyin"): Flow<List<SideSymbol>>
+
+    @Query("delete from side_symbol where type = :type")
+    suspend fun deleteAllAsync(type: String = "pinyin")
 }
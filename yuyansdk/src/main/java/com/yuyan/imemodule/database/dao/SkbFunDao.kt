@@ -4,6 +4,7 @@ import androidx.room.Dao
 import androidx.room.Query
 import com.yuyan.imemodule.database.BaseDao
 import com.yuyan.imemodule.database.entry.SkbFun
+import kotlinx.coroutines.flow.Flow
 
 @Dao
 interface SkbFunDao : BaseDao<SkbFun> {
@@ -18,4 +19,16 @@ interface SkbFunDao : BaseDao<SkbFun> {
 
     @Query("delete from skbfun")
     fun deleteAll()
-}
\ No newline at end of file
+
+    @Query("select * from skbfun  where isKeep = 0 ORDER BY position ASC")
+    suspend fun getAllMenuAsync(): List<SkbFun>
+
+    @Query("select * from skbfun  where isKeep = 1")
+    suspend fun getAllBarMenuAsync(): List<SkbFun>
+
+    @Query("select * from skbfun  where isKeep = 1")
+    fun observeAllBarMenu(): Flow<List<SkbFun>>
+
+    @Query("select * from skbfun where name = :name AND isKeep = 1")
+    suspend fun getBarMenuAsync(name: String):SkbFun?
+}
@@ -4,6 +4,7 @@ import androidx.room.Dao
 import androidx.room.Query
 import com.yuyan.imemodule.database.BaseDao
 import com.yuyan.imemodule.database.entry.UsedSymbol
+import kotlinx.coroutines.flow.Flow
 
 @Dao
 interface UsedSymbolDao : BaseDao<UsedSymbol> {
@@ -18,4 +19,16 @@ interface UsedSymbolDao : BaseDao<UsedSymbol> {
 
     @Query("DELETE FROM usedSymbol WHERE symbol IN ( SELECT symbol FROM usedSymbol WHERE type = :type ORDER BY time ASC LIMIT :overflow)")
     fun deleteOldest(type: String, overflow: Int)
+
+    @Query("select * from usedSymbol where type = :type ORDER BY time DESC")
+    suspend fun getAllAsync(type: String): List<UsedSymbol>
+
+    @Query("select * from usedSymbol where type = :type ORDER BY time DESC")
+    fun observeAll(type: String): Flow<List<UsedSymbol>>
+
+    @Query("SELECT COUNT(*) FROM usedSymbol where type = :type")
+    suspend fun getCountAsync(type: String): Int
+
+    @Query("DELETE FROM usedSymbol WHERE symbol IN ( SELECT symbol FROM usedSymbol WHERE type = :type ORDER BY time ASC LIMIT :overflow)")
+    suspend fun deleteOldestAsync(type: String, overflow: Int)
 }
@@ -2,9 +2,10 @@ package com.yuyan.imemodule.database.entry
 
 import androidx.room.ColumnInfo
 import androidx.room.Entity
+import androidx.room.Index
 import androidx.room.PrimaryKey
 
-@Entity(tableName = "phrase")
+@Entity(tableName = "phrase", indices = [Index("qwerty"), Index("t9"), Index("lx17")])
 data class Phrase(
     @PrimaryKey
     @ColumnInfo(name = "content")
@@ -2,9 +2,10 @@ package com.yuyan.imemodule.database.entry
 
 import androidx.room.ColumnInfo
 import androidx.room.Entity
+import androidx.room.Index
 import androidx.room.PrimaryKey
 
-@Entity(tableName = "usedSymbol")
+@Entity(tableName = "usedSymbol", indices = [Index("type", "time")])
 data class UsedSymbol(
     @PrimaryKey
     @ColumnInfo(name = "symbol")
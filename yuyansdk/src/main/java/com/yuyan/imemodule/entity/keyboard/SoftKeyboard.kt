@@ -7,21 +7,72 @@ import com.yuyan.imemodule.singleton.EnvironmentSingleton
  * 一个软件盘的定义，包括按键的排列布局，宽度高度。
  * The width of the soft keyboard. 键盘的宽度
  * The height of the soft keyboard. 键盘的高度
+ *
+ * 创建时(按键位置已计算完成)建立坐标网格索引与code索引，触摸查找按键时只检查所在网格内的按键。
  */
-class SoftKeyboard(var mKeyRows: List<List<SoftKey>>) {
+class SoftKeyboard(val mKeyRows: List<List<SoftKey>>) {
     // 按键左右间隔距离
     val keyXMargin = EnvironmentSingleton.instance.keyXMargin
     // 按键上下间隔距离
     val keyYMargin = EnvironmentSingleton.instance.keyYMargin
+
+    private val mKeys: Array<SoftKey> = mKeyRows.flatten().toTypedArray()  // 按行顺序排列的所有按键
+    private val mKeyByCode = HashMap<Int, SoftKey>()  // code -> 第一个该code的按键
+    private var mCellWidth = 1
+    private var mCellHeight = 1
+    private var mCellStart = IntArray(GRID_COLUMNS * GRID_ROWS + 1)  // 网格i的按键为mCellKeys[mCellStart[i], mCellStart[i + 1])
+    private var mCellKeys = IntArray(0)  // 按键在mKeys中的下标，同一网格内保持行顺序
+
+    init {
+        for (key in mKeys) mKeyByCode.putIfAbsent(key.code, key)
+        buildGrid()
+    }
+
+    private fun buildGrid() {
+        var width = 0
+        var height = 0
+        for (key in mKeys) {
+            width = maxOf(width, key.mRight)
+            height = maxOf(height, key.mBottom)
+        }
+        if (width <= 0 || height <= 0) return
+        mCellWidth = (width + GRID_COLUMNS - 1) / GRID_COLUMNS
+        mCellHeight = (height + GRID_ROWS - 1) / GRID_ROWS
+        val counts = IntArray(GRID_COLUMNS * GRID_ROWS)
+        forEachCell { cell, _ -> counts[cell]++ }
+        for (cell in counts.indices) mCellStart[cell + 1] = mCellStart[cell] + counts[cell]
+        mCellKeys = IntArray(mCellStart[counts.size])
+        val fill = mCellStart.copyOf(counts.size)
+        forEachCell { cell, index -> mCellKeys[fill[cell]++] = index }
+    }
+
+    private inline fun forEachCell(action: (cell: Int, index: Int) -> Unit) {
+        for (index in mKeys.indices) {
+            val key = mKeys[index]
+            if (key.mRight <= key.mLeft || key.mBottom <= key.mTop) continue
+            val left = (key.mLeft / mCellWidth).coerceIn(0, GRID_COLUMNS - 1)
+            val right = ((key.mRight - 1) / mCellWidth).coerceIn(0, GRID_COLUMNS - 1)
+            val top = (key.mTop / mCellHeight).coerceIn(0, GRID_ROWS - 1)
+            val bottom = ((key.mBottom - 1) / mCellHeight).coerceIn(0, GRID_ROWS - 1)
+            for (row in top..bottom) {
+                for (column in left..right) action(row * GRID_COLUMNS + column, index)
+            }
+        }
+    }
+
     /**
-     * 根据坐标查找按键，如果坐标在某个按键区域内，就返回这个按键，如果坐标不在所有的按键区域内，返回离它最近的按键。
-     * 可以在判断坐标在某个按键区域内的时候，并且加上判断离它最近的按键，这样就只需要一次遍历就行了。
+     * 根据坐标查找按键，如果坐标在某个按键区域内，就返回这个按键，否则返回null。
+     * 只检查坐标所在网格内的按键，按键重叠时与按行遍历的结果一致。
      */
     fun mapToKey(x: Int, y: Int): SoftKey? {
-        for (element in mKeyRows) {
-            for (sKey in element) {
-                if (sKey.mLeft <= x && sKey.mTop <= y && sKey.mRight > x && sKey.mBottom > y) return sKey
-            }
+        if (x < 0 || y < 0) return null
+        val column = x / mCellWidth
+        val row = y / mCellHeight
+        if (column >= GRID_COLUMNS || row >= GRID_ROWS) return null
+        val cell = row * GRID_COLUMNS + column
+        for (i in mCellStart[cell] until mCellStart[cell + 1]) {
+            val sKey = mKeys[mCellKeys[i]]
+            if (sKey.mLeft <= x && sKey.mTop <= y && sKey.mRight > x && sKey.mBottom > y) return sKey
         }
         return null
     }
@@ -30,11 +81,12 @@ class SoftKeyboard(var mKeyRows: List<List<SoftKey>>) {
      * 根据code值查询按键，由于符号键无code&部分键盘可能存在重复键，因此该方式可能无法精确查询。
      */
     fun getKeyByCode(code: Int): SoftKey? {
-        for (keyRow in mKeyRows) {
-            for (sKey in keyRow) {
-                if (sKey.code == code) return sKey
-            }
-        }
-        return null
+        return mKeyByCode[code]
+    }
+
+    companion object {
+        // 坐标网格列数、行数
+        private const val GRID_COLUMNS = 20
+        private const val GRID_ROWS = 8
     }
 }
@@ -94,6 +94,13 @@ open class BaseKeyboardView(mContext: Context?) : View(mContext) {
         invalidate()
     }
 
+    /**
+     * 只重绘单个按键，按下、抬起时使用
+     */
+    open fun invalidateKey(softKey: SoftKey) {
+        invalidateKey()
+    }
+
     open fun onBufferDraw() {}
     private fun openPopupIfRequired() {
         if(mCurrentKey != null) {
@@ -289,14 +296,17 @@ open class BaseKeyboardView(mContext: Context?) : View(mContext) {
      * 显示短按气泡
      */
     private fun showPreview(key: SoftKey?) {
-        mCurrentKey?.onReleased()
+        mCurrentKey?.let {
+            it.onReleased()
+            invalidateKey(it)
+        }
         if (key != null) {
             key.onPressed()
             showBalloonText(key)
+            invalidateKey(key)
         } else {
             popupComponent.dismissPopup()
         }
-        invalidateKey()
     }
 
     /**
@@ -310,7 +320,7 @@ open class BaseKeyboardView(mContext: Context?) : View(mContext) {
         if (mCurrentKey != null) {
             mCurrentKey!!.onReleased()
             if(mService == null) return
-            invalidateKey()
+            invalidateKey(mCurrentKey!!)
         }
         popupComponent.dismissPopup()
         lastEventX = -1f
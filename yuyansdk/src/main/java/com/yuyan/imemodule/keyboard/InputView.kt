@@ -41,12 +41,14 @@ import com.yuyan.imemodule.prefs.AppPrefs.Companion.getInstance
 import com.yuyan.imemodule.prefs.behavior.KeyboardOneHandedMod
 import com.yuyan.imemodule.prefs.behavior.PopupMenuMode
 import com.yuyan.imemodule.prefs.behavior.SkbMenuMode
+import com.yuyan.imemodule.service.DecodingExecutor
 import com.yuyan.imemodule.service.DecodingInfo
 import com.yuyan.imemodule.service.ImeService
 import com.yuyan.imemodule.singleton.EnvironmentSingleton
 import com.yuyan.imemodule.utils.DevicesUtils
 import com.yuyan.imemodule.utils.InputMethodUtil
 import com.yuyan.imemodule.utils.KeyboardLoaderUtil
+import com.yuyan.imemodule.utils.PerfMetrics
 import com.yuyan.imemodule.utils.StringUtils
 import com.yuyan.imemodule.view.CandidatesBar
 import com.yuyan.imemodule.view.EditPhrasesView
@@ -59,6 +61,7 @@ import com.yuyan.inputmethod.core.CandidateListItem
 import com.yuyan.inputmethod.core.Kernel
 import splitties.views.bottomPadding
 import splitties.views.rightPadding
+import kotlinx.coroutines.launch
 import kotlin.math.absoluteValue
 
 /**
@@ -477,18 +480,33 @@ class InputView(context: Context, service: ImeService) : LifecycleRelativeLayout
         val keyCode = event.keyCode
         val keyChar = event.unicodeChar
         val lable = keyChar.toChar().toString()
+        val start = System.nanoTime()
         if (keyCode == KeyEvent.KEYCODE_DEL) {
             if (DecodingInfo.isFinish || DecodingInfo.isAssociate) {
                 sendKeyEvent(keyCode)
                 if(mImeState != ImeState.STATE_IDLE) resetToIdleState()
+            } else if (DecodingExecutor.isEnabled) {
+                DecodingInfo.deleteActionAsync(onComposingEmpty = { sendKeyEvent(keyCode) }) {
+                    onCandidateDecoded()
+                    PerfMetrics.record(PerfMetrics.KEY_TO_CANDIDATES, start)
+                }
             } else {
                 DecodingInfo.deleteAction()
                 updateCandidate()
+                PerfMetrics.record(PerfMetrics.KEY_TO_CANDIDATES, start)
             }
             return true
         } else if ((Character.isLetterOrDigit(keyChar) && keyCode != KeyEvent.KEYCODE_0) || keyCode == KeyEvent.KEYCODE_APOSTROPHE || keyCode == KeyEvent.KEYCODE_SEMICOLON){
-            DecodingInfo.inputAction(event)
-            updateCandidate()
+            if (DecodingExecutor.isEnabled) {
+                DecodingInfo.inputActionAsync(event) {
+                    onCandidateDecoded()
+                    PerfMetrics.record(PerfMetrics.KEY_TO_CANDIDATES, start)
+                }
+            } else {
+                DecodingInfo.inputAction(event)
+                updateCandidate()
+                PerfMetrics.record(PerfMetrics.KEY_TO_CANDIDATES, start)
+            }
             return true
         } else if (keyCode != 0) {
             if (!DecodingInfo.isCandidatesListEmpty && !DecodingInfo.isAssociate) {
@@ -558,6 +576,13 @@ class InputView(context: Context, service: ImeService) : LifecycleRelativeLayout
      */
     private fun updateCandidate() {
         DecodingInfo.updateDecodingCandidate()
+        onCandidateDecoded()
+    }
+
+    /**
+     * 候选词已发布到[DecodingInfo.candidatesLiveData]后刷新界面，后台解码时由解码线程回调。
+     */
+    private fun onCandidateDecoded() {
         if (!DecodingInfo.isFinish) {
             updateCandidateBar()
             (KeyboardManager.instance.currentContainer as? T9TextContainer)?.updateSymbolListView()
@@ -571,7 +596,7 @@ class InputView(context: Context, service: ImeService) : LifecycleRelativeLayout
      * 显示候选词视图
      */
     fun updateCandidateBar() {
-        mSkbCandidatesBarView.showCandidates()
+        PerfMetrics.measure(PerfMetrics.CANDIDATE_BIND) { mSkbCandidatesBarView.showCandidates() }
     }
 
     /**
@@ -613,8 +638,10 @@ class InputView(context: Context, service: ImeService) : LifecycleRelativeLayout
         }
 
         override fun onClickClearClipBoard() {
-            DataBaseKT.instance.clipboardDao().deleteAll()
-            (KeyboardManager.instance.currentContainer as? ClipBoardContainer)?.showClipBoardView(SkbMenuMode.ClipBoard)
+            DataBaseKT.scope.launch {
+                DataBaseKT.instance.clipboardDao().deleteAllAsync()
+                (KeyboardManager.instance.currentContainer as? ClipBoardContainer)?.showClipBoardView(SkbMenuMode.ClipBoard)
+            }
         }
     }
 
@@ -622,7 +649,7 @@ class InputView(context: Context, service: ImeService) : LifecycleRelativeLayout
         when (skbMenuMode) {
             SkbMenuMode.AddPhrases -> {
                 isAddPhrases = true
-                DataBaseKT.instance.phraseDao().deleteByContent(extra)
+                DataBaseKT.scope.launch { DataBaseKT.instance.phraseDao().deleteByContentAsync(extra) }
                 KeyboardManager.instance.switchKeyboard(InputModeSwitcherManager.skbImeLayout)
                 initView(context)
                 mAddPhrasesLayout.setExtraData(extra)
@@ -844,6 +871,7 @@ class InputView(context: Context, service: ImeService) : LifecycleRelativeLayout
 
     fun onWindowShown() {
         chinesePrediction = getInstance().input.chinesePrediction.getValue()
+        KeyboardManager.instance.prewarm()
     }
 
     fun onWindowHidden() {
@@ -866,8 +894,9 @@ class InputView(context: Context, service: ImeService) : LifecycleRelativeLayout
         }
         if(oldSelStart != oldSelEnd || newSelStart != newSelEnd)return
         oldCandidatesEnd = candidatesEnd
+        var textBeforeCursor: String? = null  // 两处检测共用一次读取
         if ((chinesePrediction && InputModeSwitcherManager.isChinese && mImeState != ImeState.STATE_IDLE) || InputModeSwitcherManager.isNumberSkb) {
-            val textBeforeCursor = service.getTextBeforeCursor(100)
+            textBeforeCursor = service.getTextBeforeCursor(100)
             if (textBeforeCursor.isNotBlank()) {
                 val expressionEnd = CustomEngine.parseExpressionAtEnd(textBeforeCursor)
                 if(!expressionEnd.isNullOrBlank()) {
@@ -885,8 +914,7 @@ class InputView(context: Context, service: ImeService) : LifecycleRelativeLayout
         }
         // 检测 @ 符号，显示常见邮箱域名
         if (mImeState != ImeState.STATE_INPUT) {
-            val textBeforeCursor = service.getTextBeforeCursor(50)
-            if (textBeforeCursor.isNotBlank() && textBeforeCursor.endsWith("@")) {
+            if ((textBeforeCursor ?: service.getTextBeforeCursor(50)).endsWith("@")) {
                 // 常见邮箱域名列表（不包含@，因为用户已经输入了@）
                 val emailDomains = arrayOf(
                     "gmail.com", "qq.com", "163.com", "126.com", 
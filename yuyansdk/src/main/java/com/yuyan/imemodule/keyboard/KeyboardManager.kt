@@ -1,5 +1,6 @@
 package com.yuyan.imemodule.keyboard
 
+import android.os.Looper
 import com.yuyan.imemodule.application.Launcher
 import com.yuyan.imemodule.manager.InputModeSwitcherManager
 import com.yuyan.imemodule.keyboard.container.BaseContainer
@@ -15,6 +16,7 @@ import com.yuyan.imemodule.keyboard.container.SymbolContainer
 import com.yuyan.imemodule.keyboard.container.T9TextContainer
 import com.yuyan.imemodule.keyboard.container.VoiceInputContainer
 import com.yuyan.imemodule.prefs.AppPrefs
+import com.yuyan.imemodule.utils.KeyboardLoaderUtil
 import com.yuyan.imemodule.utils.LogUtil
 
 /**
@@ -67,21 +69,7 @@ class KeyboardManager {
         
         var container = keyboards[keyboardName]
         if (container == null) {
-            container = when (keyboardName) {
-                KeyboardType.CANDIDATES ->  CandidatesContainer(Launcher.instance.context, mInputView)
-                KeyboardType.HANDWRITING -> HandwritingContainer(Launcher.instance.context, mInputView)
-                KeyboardType.NUMBER -> NumberContainer(Launcher.instance.context, mInputView)
-                KeyboardType.QWERTY -> QwertyContainer(Launcher.instance.context, mInputView, InputModeSwitcherManager.MASK_SKB_LAYOUT_QWERTY_PINYIN)
-                KeyboardType.SETTINGS -> SettingsContainer(Launcher.instance.context, mInputView)
-                KeyboardType.SYMBOL -> SymbolContainer(Launcher.instance.context, mInputView)
-                KeyboardType.QWERTYABC -> QwertyContainer(Launcher.instance.context, mInputView, InputModeSwitcherManager.MASK_SKB_LAYOUT_QWERTY_ABC)
-                KeyboardType.LX17 -> T9TextContainer(Launcher.instance.context, mInputView, InputModeSwitcherManager.MASK_SKB_LAYOUT_LX17)
-                KeyboardType.ClipBoard -> ClipBoardContainer(Launcher.instance.context, mInputView)
-                KeyboardType.TEXTEDIT -> QwertyContainer(Launcher.instance.context, mInputView, InputModeSwitcherManager.MASK_SKB_LAYOUT_TEXTEDIT)
-                KeyboardType.VOICE -> VoiceInputContainer(Launcher.instance.context, mInputView)
-                else ->  T9TextContainer(Launcher.instance.context, mInputView, AppPrefs.getInstance().internal.inputDefaultMode.getValue() and InputModeSwitcherManager.MASK_SKB_LAYOUT)
-            }
-            container.updateSkbLayout()
+            container = createContainer(keyboardName)
             keyboards[keyboardName] = container
         }
         mKeyboardRootView.showView(container)
@@ -89,6 +77,40 @@ class KeyboardManager {
         currentContainer = container
     }
 
+    /**
+     * 输入界面显示后预热可能切换到的键盘：后台生成当前键盘与数字键盘布局，主线程空闲时创建数字、符号键盘界面
+     */
+    fun prewarm() {
+        KeyboardLoaderUtil.instance.prewarm(InputModeSwitcherManager.skbLayout, InputModeSwitcherManager.MASK_SKB_LAYOUT_NUMBER)
+        Looper.myQueue().addIdleHandler {
+            if (::mInputView.isInitialized) {
+                for (keyboardName in arrayOf(KeyboardType.NUMBER, KeyboardType.SYMBOL)) {
+                    if (keyboards[keyboardName] == null) keyboards[keyboardName] = createContainer(keyboardName)
+                }
+            }
+            false
+        }
+    }
+
+    private fun createContainer(keyboardName: KeyboardType): BaseContainer {
+        val container = when (keyboardName) {
+            KeyboardType.CANDIDATES ->  CandidatesContainer(Launcher.instance.context, mInputView)
+            KeyboardType.HANDWRITING -> HandwritingContainer(Launcher.instance.context, mInputView)
+            KeyboardType.NUMBER -> NumberContainer(Launcher.instance.context, mInputView)
+            KeyboardType.QWERTY -> QwertyContainer(Launcher.instance.context, mInputView, InputModeSwitcherManager.MASK_SKB_LAYOUT_QWERTY_PINYIN)
+            KeyboardType.SETTINGS -> SettingsContainer(Launcher.instance.context, mInputView)
+            KeyboardType.SYMBOL -> SymbolContainer(Launcher.instance.context, mInputView)
+            KeyboardType.QWERTYABC -> QwertyContainer(Launcher.instance.context, mInputView, InputModeSwitcherManager.MASK_SKB_LAYOUT_QWERTY_ABC)
+            KeyboardType.LX17 -> T9TextContainer(Launcher.instance.context, mInputView, InputModeSwitcherManager.MASK_SKB_LAYOUT_LX17)
+            KeyboardType.ClipBoard -> ClipBoardContainer(Launcher.instance.context, mInputView)
+            KeyboardType.TEXTEDIT -> QwertyContainer(Launcher.instance.context, mInputView, InputModeSwitcherManager.MASK_SKB_LAYOUT_TEXTEDIT)
+            KeyboardType.VOICE -> VoiceInputContainer(Launcher.instance.context, mInputView)
+            else ->  T9TextContainer(Launcher.instance.context, mInputView, AppPrefs.getInstance().internal.inputDefaultMode.getValue() and InputModeSwitcherManager.MASK_SKB_LAYOUT)
+        }
+        container.updateSkbLayout()
+        return container
+    }
+
     val isInputKeyboard: Boolean
         get() = currentContainer is InputBaseContainer
 
@@ -39,6 +39,12 @@ open class TextKeyboard(context: Context?) : BaseKeyboardView(context){
     private var mNormalKeyTextSize = 0   //正常按键的文本大小
     private var mNormalKeyTextSizeSmall = 0  //正常按键的文本大小(小值)
     private val mPaint: Paint = Paint()   //绘制按键的画笔
+    private val mSmallPaint: Paint = Paint()   //绘制按键小字(符号)的画笔
+    private val mMnemonicPaint: Paint = Paint()   //绘制助记符的画笔
+    // 文字宽度缓存，字号、主题变化时清空
+    private val mLabelWidths = HashMap<String, Float>()
+    private val mSmallLabelWidths = HashMap<String, Float>()
+    private val mMnemonicWidths = HashMap<String, Float>()
     private val mFmi: FontMetricsInt
     private var isKeyBorder = false // 启用按键边框
     protected lateinit var mActiveTheme: Theme
@@ -47,6 +53,8 @@ open class TextKeyboard(context: Context?) : BaseKeyboardView(context){
     private var keyboardSymbol = false
     private var keyboardMnemonic = false
     protected var mDirtyRect = Rect()
+    private var mKeyBackgrounds: KeyBackgrounds? = null  // 按键背景，主题或圆角变化时重建
+    private var mLabelState = -1  // 上次整体绘制时影响按键文字的状态(大小写、选择模式)
     private var skbStyleMode: SkbStyleMode = prefs.skbStyleMode.getValue()
 
     /**
@@ -58,6 +66,47 @@ open class TextKeyboard(context: Context?) : BaseKeyboardView(context){
         keyboardFontBold = prefs.keyboardFontBold.getValue()
         keyboardSymbol = prefs.keyboardSymbol.getValue()
         keyboardMnemonic = AppPrefs.getInstance().keyboardSetting.keyboardMnemonic.getValue()
+        mPaint.typeface = if(keyboardFontBold || (skbStyleMode == SkbStyleMode.Google && keyboardSymbol)) Typeface.DEFAULT_BOLD else Typeface.DEFAULT
+        mSmallPaint.isAntiAlias = true
+        mSmallPaint.typeface = if(skbStyleMode == SkbStyleMode.Google) Typeface.DEFAULT_BOLD else Typeface.DEFAULT
+        mMnemonicPaint.isAntiAlias = true
+        mMnemonicPaint.typeface = Typeface.DEFAULT
+    }
+
+    /**
+     * 更新文字颜色，文字宽度与颜色无关，但主题切换通常伴随字号变化，一并清空缓存
+     */
+    private fun updateTextPaints() {
+        val textColor = mActiveTheme.keyTextColor
+        mPaint.color = textColor
+        mSmallPaint.color = textColor
+        if(skbStyleMode == SkbStyleMode.Samsung) mSmallPaint.alpha = 128
+        mMnemonicPaint.color = textColor
+        clearLabelWidths()
+    }
+
+    /**
+     * 字号与当前环境不一致时更新画笔并清空文字宽度缓存
+     */
+    private fun updateTextSizes() {
+        val env = instance
+        if (mNormalKeyTextSize == env.keyTextSize && mNormalKeyTextSizeSmall == env.keyTextSmallSize) return
+        mNormalKeyTextSize = env.keyTextSize
+        mNormalKeyTextSizeSmall = env.keyTextSmallSize
+        mPaint.textSize = mNormalKeyTextSize.toFloat()
+        mSmallPaint.textSize = mNormalKeyTextSizeSmall.toFloat()
+        mMnemonicPaint.textSize = mNormalKeyTextSizeSmall.toFloat()
+        clearLabelWidths()
+    }
+
+    private fun clearLabelWidths() {
+        mLabelWidths.clear()
+        mSmallLabelWidths.clear()
+        mMnemonicWidths.clear()
+    }
+
+    private fun measureText(cache: HashMap<String, Float>, paint: Paint, text: String): Float {
+        return cache[text] ?: paint.measureText(text).also { cache[text] = it }
     }
 
     /**
@@ -70,7 +119,8 @@ open class TextKeyboard(context: Context?) : BaseKeyboardView(context){
         isKeyBorder = prefs.keyBorder.getValue()
         keyRadius = prefs.keyRadius.getValue()
         mActiveTheme = activeTheme
-        mPaint.color = mActiveTheme.keyTextColor
+        updateTextPaints()
+        updateKeyBackgrounds()
         mKeyboardChanged = true
         invalidateView()
     }
@@ -92,7 +142,7 @@ open class TextKeyboard(context: Context?) : BaseKeyboardView(context){
         } else {
             val softKey = mSoftKeyboard?.getKeyByCode(KeyEvent.KEYCODE_ENTER) as SoftKeyToggle??: return
             if (softKey.enableToggleState(if(mService!!.isAddPhrases)4 else InputModeSwitcherManager.mToggleStates.mStateEnter)) {
-                invalidateKey()
+                invalidateKey(softKey)
             }
         }
     }
@@ -104,10 +154,25 @@ open class TextKeyboard(context: Context?) : BaseKeyboardView(context){
         isKeyBorder = prefs.keyBorder.getValue()
         keyRadius = prefs.keyRadius.getValue()
         mActiveTheme = theme
-        mPaint.color = mActiveTheme.keyTextColor
+        updateTextPaints()
+        updateKeyBackgrounds()
         invalidateView()
     }
 
+    private fun updateKeyBackgrounds() {
+        if (mKeyBackgrounds?.matches(mActiveTheme, keyRadius) != true) {
+            mKeyBackgrounds = KeyBackgrounds(mActiveTheme, keyRadius)
+        }
+    }
+
+    /**
+     * 只重绘按键所在区域，其余按键保留缓冲区中的内容
+     */
+    override fun invalidateKey(softKey: SoftKey) {
+        mDirtyRect.union(softKey.mLeft, softKey.mTop, softKey.mRight, softKey.mBottom)
+        invalidate()
+    }
+
     override fun onMeasure(widthMeasureSpec: Int, heightMeasureSpec: Int) {
         var measuredWidth = 0
         var measuredHeight = 0
@@ -130,8 +195,9 @@ open class TextKeyboard(context: Context?) : BaseKeyboardView(context){
 
     override fun onDraw(canvas: Canvas) {
         super.onDraw(canvas)
-        mDirtyRect.union(0, 0, width, height)
-        if (mDrawPending || mBuffer == null || mKeyboardChanged) {
+        val fullRedraw = mDrawPending || mBuffer == null || mKeyboardChanged || mLabelState != labelState()
+        if (fullRedraw) mDirtyRect.set(0, 0, width, height)
+        if (fullRedraw || !mDirtyRect.isEmpty) {
             onBufferDraw()
         }
         canvas.drawBitmap(mBuffer!!, 0f, 0f, null)
@@ -145,22 +211,22 @@ open class TextKeyboard(context: Context?) : BaseKeyboardView(context){
                 mBuffer = createBitmap(width, height)
                 mCanvas = Canvas(mBuffer!!)
             }
-            invalidateKey()
+            mDirtyRect.set(0, 0, width, height)
             mKeyboardChanged = false
         }
         if (mSoftKeyboard == null) return
+        mLabelState = labelState()
         mCanvas!!.withSave {
             val canvas = mCanvas
             canvas?.clipRect(mDirtyRect)
             canvas?.drawColor(0x00000000, PorterDuff.Mode.CLEAR)
-            val env = instance
-            mNormalKeyTextSize = env.keyTextSize
-            mNormalKeyTextSizeSmall = env.keyTextSmallSize
+            updateTextSizes()
             val keyXMargin = mSoftKeyboard!!.keyXMargin
             val keyYMargin = if(skbStyleMode == SkbStyleMode.Google && InputModeSwitcherManager.isQwert) mSoftKeyboard!!.keyYMargin * 1.5
                 else mSoftKeyboard!!.keyYMargin
             for (softKeys in mSoftKeyboard!!.mKeyRows) {
                 for (softKey in softKeys) {
+                    if (!mDirtyRect.intersects(softKey.mLeft, softKey.mTop, softKey.mRight, softKey.mBottom)) continue
                     canvas?.let { drawSoftKey(it, softKey, keyXMargin, keyYMargin.toInt()) }
                 }
             }
@@ -170,6 +236,16 @@ open class TextKeyboard(context: Context?) : BaseKeyboardView(context){
         mDirtyRect.setEmpty()
     }
 
+    /**
+     * 影响所有按键绘制的状态，变化时需整体重绘
+     */
+    private fun labelState(): Int {
+        val lowercase = mService != null && InputModeSwitcherManager.isEnglish && (InputModeSwitcherManager.isEnglishLower ||
+                (InputModeSwitcherManager.isEnglishUpperCase && !DecodingInfo.isCandidatesListEmpty))
+        val selection = mService?.hasSelection == true
+        return (if (lowercase) 1 else 0) or (if (selection) 2 else 0)
+    }
+
     /**
      * 在画布上画一个按键
      *
@@ -179,24 +255,21 @@ open class TextKeyboard(context: Context?) : BaseKeyboardView(context){
      * @param keyYMargin 按键上下边间距
      */
     private fun drawSoftKey(canvas: Canvas, softKey: SoftKey, keyXMargin: Int, keyYMargin: Int) {
-        val bg = GradientDrawable()
-        bg.shape = GradientDrawable.RECTANGLE
-        bg.cornerRadius = keyRadius.toFloat() // 设置圆角半径
-        bg.setBounds(softKey.mLeft + keyXMargin, softKey.mTop + keyYMargin, softKey.mRight - keyXMargin, softKey.mBottom - keyYMargin)
+        val backgrounds = mKeyBackgrounds!!
         if (softKey.pressed || (mService?.hasSelection == true && softKey.code == InputModeSwitcherManager.USER_DEF_KEYCODE_SELECT_MODE)) {
-            bg.setColor(mActiveTheme.keyPressHighlightColor)
+            val bg = backgrounds.pressed
+            bg.setBounds(softKey.mLeft + keyXMargin, softKey.mTop + keyYMargin, softKey.mRight - keyXMargin, softKey.mBottom - keyYMargin)
             bg.draw(canvas)
         } else if (isKeyBorder) {
-            val background = when (softKey.code) {
-                KeyEvent.KEYCODE_ENTER -> mActiveTheme.accentKeyBackgroundColor
-                KeyEvent.KEYCODE_SPACE-> mActiveTheme.functionKeyBackgroundColor
-                else  -> mActiveTheme.keyBackgroundColor
+            val bg = when (softKey.code) {
+                KeyEvent.KEYCODE_ENTER -> backgrounds.accent
+                KeyEvent.KEYCODE_SPACE-> backgrounds.function
+                else  -> backgrounds.normal
             }
-            bg.setColor(background)
+            bg.setBounds(softKey.mLeft + keyXMargin, softKey.mTop + keyYMargin, softKey.mRight - keyXMargin, softKey.mBottom - keyYMargin)
             bg.draw(canvas)
         } else if(softKey.code == KeyEvent.KEYCODE_ENTER) {
-               bg.setColor(mActiveTheme.accentKeyBackgroundColor)
-               bg.shape = GradientDrawable.OVAL
+               val bg = backgrounds.accentOval
                val bgWidth = softKey.width() -  keyXMargin
                val bgHeight = softKey.height() - keyYMargin
                val radius = min(bgWidth, bgHeight)*3/4
@@ -214,19 +287,15 @@ open class TextKeyboard(context: Context?) : BaseKeyboardView(context){
         val keyMnemonic = softKey.keyMnemonic
         val keyIcon = if(skbStyleMode == SkbStyleMode.Google && softKey.code == 62) null else softKey.keyIcon
         val weightHeigth = softKey.height() / 4f
-        val textColor = mActiveTheme.keyTextColor
         if (keyboardSymbol && !TextUtils.isEmpty(keyLabelSmall)) {
-            mPaint.color = textColor
-            mPaint.setTypeface(if(skbStyleMode == SkbStyleMode.Google)Typeface.DEFAULT_BOLD else Typeface.DEFAULT)
-            if(skbStyleMode == SkbStyleMode.Samsung)mPaint.alpha = 128
-            mPaint.textSize = mNormalKeyTextSizeSmall.toFloat()
-            val x = softKey.mLeft + when(prefs.skbStyleMode.getValue()){
-                SkbStyleMode.Yuyan -> (softKey.width() - mPaint.measureText(keyLabelSmall)) / 2.0f
-                SkbStyleMode.Samsung -> softKey.width() - mPaint.measureText(keyLabelSmall) * 2.8f
-                SkbStyleMode.Google -> softKey.width() - mPaint.measureText(keyLabelSmall) * 2.8f
+            val labelWidth = measureText(mSmallLabelWidths, mSmallPaint, keyLabelSmall)
+            val x = softKey.mLeft + when(skbStyleMode){
+                SkbStyleMode.Yuyan -> (softKey.width() - labelWidth) / 2.0f
+                SkbStyleMode.Samsung -> softKey.width() - labelWidth * 2.8f
+                SkbStyleMode.Google -> softKey.width() - labelWidth * 2.8f
             }
             val y = softKey.mTop + weightHeigth * 1.1f
-            canvas.drawText(keyLabelSmall, x, y, mPaint)
+            canvas.drawText(keyLabelSmall, x, y, mSmallPaint)
         }
         if (null != keyIcon) {
             var  intrinsicWidth = keyIcon.intrinsicWidth
@@ -243,22 +312,16 @@ open class TextKeyboard(context: Context?) : BaseKeyboardView(context){
             keyIcon.setBounds(softKey.mLeft + marginLeft, softKey.mTop + marginTop, softKey.mRight - marginRight, softKey.mBottom - marginBottom)
             keyIcon.draw(canvas)
         } else if (!TextUtils.isEmpty(keyLabel)) { //Label位于中间
-            mPaint.color = textColor
-            if(keyboardFontBold) mPaint.typeface = Typeface.DEFAULT_BOLD
-            mPaint.textSize =  mNormalKeyTextSize.toFloat()
-            val x = softKey.mLeft + (softKey.width() - mPaint.measureText(keyLabel)) / 2.0f
+            val x = softKey.mLeft + (softKey.width() - measureText(mLabelWidths, mPaint, keyLabel)) / 2.0f
             val fontHeight = mFmi.bottom - mFmi.top
             val y = if(keyLabelSmall.isEmpty()) (softKey.mTop + softKey.mBottom) / 2.0f + fontHeight
             else  (softKey.mTop + softKey.mBottom) / 2.0f + fontHeight *1.5f
             canvas.drawText(keyLabel, x, y, mPaint)
         }
         if (keyboardMnemonic && !TextUtils.isEmpty(keyMnemonic)) {  //助记符位于中下方
-            mPaint.color = textColor
-            mPaint.typeface = Typeface.DEFAULT
-            mPaint.textSize = mNormalKeyTextSizeSmall.toFloat()
-            val x = softKey.mLeft + (softKey.width() - mPaint.measureText(keyMnemonic)) / 2.0f
+            val x = softKey.mLeft + (softKey.width() - measureText(mMnemonicWidths, mMnemonicPaint, keyMnemonic)) / 2.0f
             val y = softKey.mTop + weightHeigth * 3 + weightHeigth / 2.0f
-            canvas.drawText(keyMnemonic, x, y, mPaint)
+            canvas.drawText(keyMnemonic, x, y, mMnemonicPaint)
         }
     }
 
@@ -272,4 +335,26 @@ open class TextKeyboard(context: Context?) : BaseKeyboardView(context){
         mBuffer = null
         mCanvas = null
     }
+
+    /**
+     * 按主题预先创建的按键背景，绘制时只设置位置，避免每次绘制每个按键都创建Drawable
+     */
+    private class KeyBackgrounds(private val theme: Theme, private val radius: Int) {
+        val pressed = roundRect(theme.keyPressHighlightColor)
+        val normal = roundRect(theme.keyBackgroundColor)
+        val function = roundRect(theme.functionKeyBackgroundColor)
+        val accent = roundRect(theme.accentKeyBackgroundColor)
+        val accentOval = GradientDrawable().apply {
+            shape = GradientDrawable.OVAL
+            setColor(theme.accentKeyBackgroundColor)
+        }
+
+        fun matches(theme: Theme, radius: Int) = this.theme == theme && this.radius == radius
+
+        private fun roundRect(color: Int) = GradientDrawable().apply {
+            shape = GradientDrawable.RECTANGLE
+            cornerRadius = radius.toFloat() // 设置圆角半径
+            setColor(color)
+        }
+    }
 }
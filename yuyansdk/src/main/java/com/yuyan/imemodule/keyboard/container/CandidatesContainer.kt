@@ -22,7 +22,7 @@ import com.yuyan.imemodule.adapter.CandidatesAdapter
 import com.yuyan.imemodule.adapter.PrefixAdapter
 import com.yuyan.imemodule.data.theme.ThemeManager
 import com.yuyan.imemodule.data.theme.ThemeManager.activeTheme
-import com.yuyan.imemodule.database.DataBaseKT
+import com.yuyan.imemodule.database.SideSymbolCache
 import com.yuyan.imemodule.database.entry.SideSymbol
 import com.yuyan.imemodule.entity.keyboard.SoftKey
 import com.yuyan.imemodule.manager.InputModeSwitcherManager
@@ -56,6 +56,7 @@ import splitties.views.dsl.core.wrapContent
 @SuppressLint("ViewConstructor")
 class CandidatesContainer(context: Context, inputView: InputView) : BaseContainer(context, inputView) {
     private val mSideSymbolsPinyin:List<SideSymbol>
+        get() = SideSymbolCache.pinyin
     private lateinit var mRVSymbolsView: SwipeRecyclerView
     private lateinit var mCandidatesAdapter: CandidatesAdapter
     private var mRVLeftPrefix = inflate(getContext(), R.layout.sdk_view_rv_prefix, null) as SwipeRecyclerView
@@ -76,7 +77,6 @@ class CandidatesContainer(context: Context, inputView: InputView) : BaseContaine
             AppUtil.launchSettingsToPrefix(context, arguments)
         }
         mLlAddSymbol.addView(ivAddSymbol)
-        mSideSymbolsPinyin = DataBaseKT.instance.sideSymbolDao().getAllSideSymbolPinyin()
     }
 
     private fun initView(context: Context) {
@@ -109,7 +109,7 @@ class CandidatesContainer(context: Context, inputView: InputView) : BaseContaine
                             val lastItem = (recyclerView.layoutManager as CustomFlexboxLayoutManager).findLastCompletelyVisibleItemPosition()
                             DecodingInfo.activeCandidate = lastItem
                             if (DecodingInfo.candidateSize - lastItem <= 5) { // 未加载中、未加载完、向下滑动、还有30个数据滑动到底
-                                DecodingInfo.nextPageCandidates
+                                DecodingInfo.loadNextPage()
                             }
                             isLoadingMore = false
                         }
@@ -117,6 +117,13 @@ class CandidatesContainer(context: Context, inputView: InputView) : BaseContaine
                 }
             }
         })
+        mCandidatesAdapter = CandidatesAdapter(context)
+        mCandidatesAdapter.setOnItemClickLitener { _: RecyclerView.Adapter<*>?, _: View?, position: Int ->
+            DevicesUtils.tryPlayKeyDown()
+            DevicesUtils.tryVibrate(this)
+            inputView.chooseAndUpdate(position)
+        }
+        mRVSymbolsView.setAdapter(mCandidatesAdapter)
         mRVSymbolsView.addFooterView(View(context).apply {
             layoutParams = FlexboxLayoutManager.LayoutParams(FlexboxLayoutManager.LayoutParams.MATCH_PARENT, dp(50))
         })
@@ -170,18 +177,12 @@ class CandidatesContainer(context: Context, inputView: InputView) : BaseContaine
      */
     fun showCandidatesView() {
         if (DecodingInfo.isCandidatesListEmpty || DecodingInfo.isAssociate){
-            mRVSymbolsView.removeAllViews()
+            mCandidatesAdapter.submitCandidates(emptyList())
         } else {
+            mCandidatesAdapter.submitCandidates()  // 复用适配器，只刷新变化的候选词
             if(DecodingInfo.activeCandidate == 0){
-                mCandidatesAdapter = CandidatesAdapter(context)
-                mCandidatesAdapter.setOnItemClickLitener { _: RecyclerView.Adapter<*>?, _: View?, position: Int ->
-                    DevicesUtils.tryPlayKeyDown()
-                    DevicesUtils.tryVibrate(this)
-                    inputView.chooseAndUpdate(position)
-                }
-                mRVSymbolsView.setAdapter(mCandidatesAdapter)
-            } else {
-                mCandidatesAdapter.notifyDataSetChanged()
+                mRVSymbolsView.scrollToPosition(0)
+                DecodingInfo.loadCandidatesUntil(PREFETCH_CANDIDATES_COUNT)  // 按键时只拉取首屏候选词，展开后补齐一屏
             }
 //            if(DecodingInfo.candidateSize > DecodingInfo.activeCandidate) mRVSymbolsView.scrollToPosition(DecodingInfo.activeCandidate)
             if (InputModeSwitcherManager.isChineseT9) {
@@ -214,4 +215,9 @@ class CandidatesContainer(context: Context, inputView: InputView) : BaseContaine
         }
         mRVLeftPrefix.setAdapter(PrefixAdapter(context, prefixs))
     }
-}
\ No newline at end of file
+
+    companion object {
+        // 展开候选词界面时预先拉取的候选词数量
+        private const val PREFETCH_CANDIDATES_COUNT = 60
+    }
+}
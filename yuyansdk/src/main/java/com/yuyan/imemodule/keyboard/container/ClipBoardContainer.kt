@@ -31,6 +31,7 @@ import com.yuyan.imemodule.manager.layout.CustomGridLayoutManager
 import com.yuyan.imemodule.singleton.EnvironmentSingleton.Companion.instance
 import splitties.dimensions.dp
 import splitties.views.textResource
+import kotlinx.coroutines.launch
 import kotlin.math.ceil
 
 /**
@@ -69,13 +70,19 @@ class ClipBoardContainer(context: Context, inputView: InputView) : BaseContainer
     fun showClipBoardView(item: SkbMenuMode) {
         CustomConstant.lockClipBoardEnable = false
         itemMode = item
+        DataBaseKT.scope.launch {
+            val copyContents : MutableList<Clipboard> =
+                if(item == SkbMenuMode.ClipBoard) {
+                    DataBaseKT.instance.clipboardDao().getAllAsync().toMutableList()
+                } else {
+                    DataBaseKT.instance.phraseDao().getAllAsync().map { line -> Clipboard(line.content) }.toMutableList()
+                }
+            if(itemMode == item) showClipBoardContents(copyContents)
+        }
+    }
+
+    private fun showClipBoardContents(copyContents : MutableList<Clipboard>) {
         mRVSymbolsView.setHasFixedSize(true)
-        val copyContents : MutableList<Clipboard> =
-            if(itemMode == SkbMenuMode.ClipBoard) {
-                DataBaseKT.instance.clipboardDao().getAll().toMutableList()
-            } else {
-                DataBaseKT.instance.phraseDao().getAll().map { line -> Clipboard(line.content) }.toMutableList()
-            }
         val manager =  when (AppPrefs.getInstance().clipboard.clipboardLayoutCompact.getValue()){
             ClipboardLayoutMode.ListView ->  LinearLayoutManager(context, LinearLayoutManager.VERTICAL, false)
             ClipboardLayoutMode.GridView -> CustomGridLayoutManager(context, 2)
@@ -122,20 +129,24 @@ class ClipBoardContainer(context: Context, inputView: InputView) : BaseContainer
                 if(menuBridge.position == 0) {
                     val data: Clipboard = copyContents[position]
                     data.isKeep = 1 - data.isKeep
-                    DataBaseKT.instance.clipboardDao().update(data)
-                    showClipBoardView(SkbMenuMode.ClipBoard)
+                    DataBaseKT.scope.launch {
+                        DataBaseKT.instance.clipboardDao().updateAsync(data)
+                        showClipBoardView(SkbMenuMode.ClipBoard)
+                    }
                 } else if(menuBridge.position == 1){
                     val data: Clipboard = copyContents.removeAt(position)
-                    DataBaseKT.instance.clipboardDao().deleteByContent(data.content)
                     mRVSymbolsView.adapter?.notifyItemRemoved(position)
+                    DataBaseKT.scope.launch { DataBaseKT.instance.clipboardDao().deleteByContentAsync(data.content) }
                 }
             } else {
                 val content = copyContents[position].content
                 if(menuBridge.position == 0) {
                     inputView.onSettingsMenuClick(SkbMenuMode.AddPhrases, content)
                 } else if(menuBridge.position == 1){
-                    DataBaseKT.instance.phraseDao().deleteByContent(content)
-                    showClipBoardView(SkbMenuMode.Phrases)
+                    DataBaseKT.scope.launch {
+                        DataBaseKT.instance.phraseDao().deleteByContentAsync(content)
+                        showClipBoardView(SkbMenuMode.Phrases)
+                    }
                 }
             }
         }
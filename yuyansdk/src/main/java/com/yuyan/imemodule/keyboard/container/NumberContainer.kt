@@ -14,7 +14,7 @@ import com.yuyan.imemodule.libs.recyclerview.SwipeRecyclerView
 import com.yuyan.imemodule.R
 import com.yuyan.imemodule.adapter.PrefixAdapter
 import com.yuyan.imemodule.data.theme.ThemeManager
-import com.yuyan.imemodule.database.DataBaseKT
+import com.yuyan.imemodule.database.SideSymbolCache
 import com.yuyan.imemodule.database.entry.SideSymbol
 import com.yuyan.imemodule.entity.keyboard.SoftKey
 import com.yuyan.imemodule.manager.InputModeSwitcherManager
@@ -38,6 +38,7 @@ import splitties.views.dsl.core.margin
 @SuppressLint("ViewConstructor")
 class NumberContainer(context: Context?, inputView: InputView) : InputBaseContainer(context, inputView) {
     private val mSideSymbolsNumber:List<SideSymbol>
+        get() = SideSymbolCache.number
     // 键盘、候选词界面上符号(T9左侧、手写右侧)、候选拼音ListView
     private var mRVLeftPrefix : SwipeRecyclerView = inflate(getContext(), R.layout.sdk_view_rv_prefix, null) as SwipeRecyclerView
     private val mLlAddSymbol : LinearLayout = LinearLayout(context).apply{
@@ -57,7 +58,6 @@ class NumberContainer(context: Context?, inputView: InputView) : InputBaseContai
             AppUtil.launchSettingsToPrefix(context!!, arguments)
         }
         mLlAddSymbol.addView(ivAddSymbol)
-        mSideSymbolsNumber = DataBaseKT.instance.sideSymbolDao().getAllSideSymbolNumber()
     }
 
     /**
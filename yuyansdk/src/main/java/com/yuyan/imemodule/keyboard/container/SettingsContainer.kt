@@ -24,6 +24,7 @@ import com.yuyan.imemodule.utils.KeyboardLoaderUtil
 import com.yuyan.imemodule.keyboard.InputView
 import com.yuyan.imemodule.keyboard.KeyboardManager
 import com.yuyan.imemodule.manager.layout.CustomGridLayoutManager
+import kotlinx.coroutines.launch
 import splitties.dimensions.dp
 import java.util.Collections
 import java.util.LinkedList
@@ -60,16 +61,21 @@ class SettingsContainer(context: Context, inputView: InputView) : BaseContainer(
      * 弹出键盘设置界面
      */
     fun showSettingsView() {
-        funItems.clear()
-        for(item in DataBaseKT.instance.skbFunDao().getAllMenu()){
-            val skbMenuMode = menuSkbFunsPreset[SkbMenuMode.decode(item.name)]
-            if(skbMenuMode != null)funItems.add(skbMenuMode)
-        }
-        adapter = MenuAdapter(context, funItems)
-        adapter?.setOnItemClickLitener { _: RecyclerView.Adapter<*>?, _: View?, position: Int ->
-            inputView.onSettingsMenuClick(funItems[position].skbMenuMode)
+        DataBaseKT.scope.launch {
+            val menus = DataBaseKT.instance.skbFunDao().getAllMenuAsync()
+            val barMenus = DataBaseKT.instance.skbFunDao().getAllBarMenuAsync()
+            funItems.clear()
+            for(item in menus){
+                val skbMenuMode = menuSkbFunsPreset[SkbMenuMode.decode(item.name)]
+                if(skbMenuMode != null)funItems.add(skbMenuMode)
+            }
+            adapter = MenuAdapter(context, funItems)
+            adapter?.barMenus = barMenus.mapTo(HashSet()) { it.name }
+            adapter?.setOnItemClickLitener { _: RecyclerView.Adapter<*>?, _: View?, position: Int ->
+                inputView.onSettingsMenuClick(funItems[position].skbMenuMode)
+            }
+            mRVMenuLayout!!.setAdapter(adapter)
         }
-        mRVMenuLayout!!.setAdapter(adapter)
     }
 
     fun enableDragItem(enable: Boolean) {
@@ -92,8 +98,9 @@ class SettingsContainer(context: Context, inputView: InputView) : BaseContainer(
                         }
                     }
                     adapter?.notifyItemMoved(fromPosition, toPosition)
-                    funItems.forEachIndexed {index, item ->
-                        DataBaseKT.instance.skbFunDao().update(SkbFun(name = item.skbMenuMode.name, isKeep = 0, position = index))
+                    val skbFuns = funItems.mapIndexed { index, item -> SkbFun(name = item.skbMenuMode.name, isKeep = 0, position = index) }
+                    DataBaseKT.scope.launch {
+                        skbFuns.forEach { DataBaseKT.instance.skbFunDao().updateAsync(it) }
                     }
                     return true
                 }
@@ -110,14 +117,18 @@ class SettingsContainer(context: Context, inputView: InputView) : BaseContainer(
                     itemTouchHelper.startDrag(holder)
                 }
                 override fun onOptionClick(parent: RecyclerView.Adapter<*>?, v: SkbFunItem, position: Int) {
-                    val barMenu = DataBaseKT.instance.skbFunDao().getBarMenu(v.skbMenuMode.name)
-                    if(barMenu == null){
-                        DataBaseKT.instance.skbFunDao().insert(SkbFun(name = v.skbMenuMode.name, isKeep = 1))
-                    } else {
-                        DataBaseKT.instance.skbFunDao().delete(SkbFun(name = v.skbMenuMode.name, isKeep = 1))
+                    DataBaseKT.scope.launch {
+                        val dao = DataBaseKT.instance.skbFunDao()
+                        val barMenu = dao.getBarMenuAsync(v.skbMenuMode.name)
+                        if(barMenu == null){
+                            dao.insertAsync(SkbFun(name = v.skbMenuMode.name, isKeep = 1))
+                        } else {
+                            dao.deleteAsync(SkbFun(name = v.skbMenuMode.name, isKeep = 1))
+                        }
+                        adapter?.barMenus = dao.getAllBarMenuAsync().mapTo(HashSet()) { it.name }
+                        inputView.updateCandidateBar()
+                        adapter?.notifyDataSetChanged()
                     }
-                    inputView.updateCandidateBar()
-                    adapter?.notifyDataSetChanged()
                 }
             }
             itemTouchHelper.attachToRecyclerView(mRVMenuLayout)
@@ -172,16 +172,12 @@ class SymbolContainer(context: Context, inputView: InputView) : BaseContainer(co
         DevicesUtils.tryPlayKeyDown()
         DevicesUtils.tryVibrate(this)
         if (mShowType == SymbolMode.Symbol) {  // 非表情键盘
-            DataBaseKT.instance.usedSymbolDao().insert(UsedSymbol(symbol = result))
-            val num = max(DataBaseKT.instance.usedSymbolDao().getCount("symbol") - 50, 0)
-            DataBaseKT.instance.usedSymbolDao().deleteOldest("symbol", num)
+            saveUsedSymbol(UsedSymbol(symbol = result))
             if(!isLockSymbol) KeyboardManager.instance.switchKeyboard()
             inputView.responseKeyEvent(softKey)
         } else {  //表情、颜文字
             if(!YuyanEmojiCompat.isWeChatInput || mVPSymbolsView.currentItem != 1 ) {
-                DataBaseKT.instance.usedSymbolDao().insert(UsedSymbol(symbol = result, type = "emoji"))
-                val num = max(DataBaseKT.instance.usedSymbolDao().getCount("emoji") - 50, 0)
-                DataBaseKT.instance.usedSymbolDao().deleteOldest("emoji", num)
+                saveUsedSymbol(UsedSymbol(symbol = result, type = "emoji"))
                 inputView.responseKeyEvent(softKey)
             } else {
                 val emojions = EmojiconData.wechatEmojiconData[value]
@@ -209,7 +205,7 @@ class SymbolContainer(context: Context, inputView: InputView) : BaseContainer(co
         val mSymbolsEmoji = EmojiconData.symbolData
         mVPSymbolsView.adapter = SymbolPagerAdapter(context, mSymbolsEmoji, mShowType){ symbol, _ ->
             onItemClickOperate(symbol)
-        }
+        }.also { loadRecents(it) }
         val data = mSymbolsEmoji.keys.toList()
         TabLayoutMediator(tabLayout, mVPSymbolsView) { tab, position ->
             tab.view.background = null
@@ -244,7 +240,7 @@ class SymbolContainer(context: Context, inputView: InputView) : BaseContainer(co
         }
         mVPSymbolsView.adapter = SymbolPagerAdapter(context, mSymbolsEmoji, mShowType){ symbol, _ ->
             onItemClickOperate(symbol)
-        }
+        }.also { loadRecents(it) }
         val data = mSymbolsEmoji.keys.toList()
         TabLayoutMediator(tabLayout, mVPSymbolsView) { tab, position ->
             tab.view.background = null
@@ -257,6 +253,21 @@ class SymbolContainer(context: Context, inputView: InputView) : BaseContainer(co
         }.attach()
     }
 
+    private fun loadRecents(adapter: SymbolPagerAdapter) {
+        val type = if (mShowType == SymbolMode.Symbol) "symbol" else "emoji"
+        DataBaseKT.scope.launch {
+            adapter.recents = DataBaseKT.instance.usedSymbolDao().getAllAsync(type).map { it.symbol }
+        }
+    }
+
+    private fun saveUsedSymbol(usedSymbol: UsedSymbol) {
+        DataBaseKT.scope.launch {
+            val dao = DataBaseKT.instance.usedSymbolDao()
+            dao.insertAsync(usedSymbol)
+            dao.deleteOldestAsync(usedSymbol.type, max(dao.getCountAsync(usedSymbol.type) - 50, 0))
+        }
+    }
+
     fun getMenuMode(): SymbolMode {
         return mShowType
     }
@@ -5,56 +5,71 @@ import com.yuyan.imemodule.libs.expression.tokenizer.NumberToken
 import com.yuyan.imemodule.libs.expression.tokenizer.OperatorToken
 import com.yuyan.imemodule.libs.expression.tokenizer.Token
 import com.yuyan.imemodule.libs.expression.tokenizer.VariableToken
+import java.util.EmptyStackException
 
-class Expression internal constructor(private val tokens: Array<Token>) {
-    private val variables: Map<String, Double> = createDefaultVariables()
+/**
+ * A compiled expression in RPN, variables are resolved to constants at construction so it can be cached and
+ * evaluated repeatedly on a preallocated primitive stack
+ */
+class Expression internal constructor(tokens: Array<Token>) {
+    private val tokens: Array<Token> = Array(tokens.size) { i ->
+        val t = tokens[i]
+        if (t.type == Token.TOKEN_VARIABLE) {
+            val name = (t as VariableToken).name
+            NumberToken(VARIABLES[name] ?: throw IllegalArgumentException("No value has been set for the setVariable '$name'."))
+        } else t
+    }
+    private val stack = DoubleArray(maxOf(tokens.size, 1))  // each token pushes at most one value
+
+    @Synchronized
     fun evaluate(): Double {
-        val output = ArrayStack()
+        val stack = stack
+        var size = 0
         for (t in tokens) {
             if (t.type == Token.TOKEN_NUMBER) {
-                output.push((t as NumberToken).value)
-            } else if (t.type == Token.TOKEN_VARIABLE) {
-                val name = (t as VariableToken).name
-                val value = variables[name] ?: throw IllegalArgumentException("No value has been set for the setVariable '$name'.")
-                output.push(value)
+                stack[size++] = (t as NumberToken).value
             } else if (t.type == Token.TOKEN_OPERATOR) {
-                val op = t as OperatorToken
-                require(output.size() >= op.operator.numOperands) { "Invalid number of operands available for '" + op.operator.symbol + "' operator" }
-                if (op.operator.numOperands == 2) {
-                    val rightArg = output.pop()
-                    val leftArg = output.pop()
-                    output.push(op.operator.apply(leftArg, rightArg))
-                } else if (op.operator.numOperands == 1) {
-                    val arg = output.pop()
-                    output.push(op.operator.apply(arg))
+                val op = (t as OperatorToken).operator
+                require(size >= op.numOperands) { "Invalid number of operands available for '" + op.symbol + "' operator" }
+                if (op.numOperands == 2) {
+                    stack[size - 2] = op.apply2(stack[size - 2], stack[size - 1])
+                    size--
+                } else if (op.numOperands == 1) {
+                    stack[size - 1] = op.apply1(stack[size - 1])
                 }
             } else if (t.type == Token.TOKEN_FUNCTION) {
-                val func = t as FunctionToken
-                val numArguments = func.function.numArguments
-                if (output.size() < numArguments) {
-                    throw IllegalArgumentException("Invalid number of arguments available for '" + func.function.name + "' function")
+                val func = (t as FunctionToken).function
+                val numArguments = func.numArguments
+                if (size < numArguments) {
+                    throw IllegalArgumentException("Invalid number of arguments available for '" + func.name + "' function")
                 }
-                val args = DoubleArray(numArguments)
-                for (j in numArguments - 1 downTo 0) {
-                    args[j] = output.pop()
+                when (numArguments) {
+                    1 -> stack[size - 1] = func.apply1(stack[size - 1])
+                    2 -> {
+                        stack[size - 2] = func.apply2(stack[size - 2], stack[size - 1])
+                        size--
+                    }
+                    else -> {
+                        val args = stack.copyOfRange(size - numArguments, size)
+                        size -= numArguments
+                        stack[size++] = func.apply(*args)
+                    }
                 }
-                output.push(func.function.apply(*args))
             }
         }
-        if (output.size() > 1) {
+        if (size > 1) {
             throw IllegalArgumentException("Invalid number of items on the output queue. Might be caused by an invalid number of arguments for a function.")
         }
-        return output.pop()
+        if (size == 0) throw EmptyStackException()
+        return stack[0]
     }
 
     companion object {
-        private fun createDefaultVariables(): Map<String, Double> {
-            val vars: MutableMap<String, Double> = HashMap(4)
-            vars["pi"] = Math.PI
-            vars["π"] = Math.PI
-            vars["φ"] = 1.61803398874
-            vars["e"] = Math.E
-            return vars
-        }
+        private val VARIABLES: Map<String, Double> = mapOf(
+            "pi" to Math.PI,
+            "π" to Math.PI,
+            "φ" to 1.61803398874,
+            "e" to Math.E,
+        )
     }
 }
@@ -0,0 +1,21 @@
+package com.yuyan.imemodule.libs.expression
+
+/**
+ * LRU cache of compiled expressions keyed by the expression text
+ */
+object ExpressionCache {
+    private const val MAX_SIZE = 32
+
+    private val expressions = object : LinkedHashMap<String, Expression>(MAX_SIZE, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, Expression>?): Boolean = size > MAX_SIZE
+    }
+
+    /**
+     * Get the compiled expression, building it on a miss. Invalid expressions throw like [ExpressionBuilder.build]
+     * and are not cached
+     */
+    @Synchronized
+    fun get(expression: String): Expression {
+        return expressions[expression] ?: ExpressionBuilder(expression).build().also { expressions[expression] = it }
+    }
+}
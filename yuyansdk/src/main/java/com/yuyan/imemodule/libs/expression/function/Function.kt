@@ -35,6 +35,16 @@ abstract class Function @JvmOverloads constructor(name: String, numArguments: In
      */
     abstract fun apply(vararg args: Double): Double
 
+    /**
+     * Single argument calculation without allocating the vararg array, builtin functions override it
+     */
+    open fun apply1(arg: Double): Double = apply(arg)
+
+    /**
+     * Two arguments calculation without allocating the vararg array, builtin functions override it
+     */
+    open fun apply2(arg1: Double, arg2: Double): Double = apply(arg1, arg2)
+
     companion object {
 
         fun isValidFunctionName(name: String?): Boolean {
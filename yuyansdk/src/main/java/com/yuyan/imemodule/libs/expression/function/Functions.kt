@@ -59,184 +59,194 @@ object Functions {
     private val BUILT_IN_FUNCTIONS = arrayOfNulls<Function>(31)
 
     init {
-        BUILT_IN_FUNCTIONS[INDEX_SIN] = object : Function("sin") {
-            override fun apply(vararg args: Double): Double {
-                return sin(args[0])
+        BUILT_IN_FUNCTIONS[INDEX_SIN] = object : UnaryFunction("sin") {
+            override fun apply1(arg: Double): Double {
+                return sin(arg)
             }
         }
-        BUILT_IN_FUNCTIONS[INDEX_COS] = object : Function("cos") {
-            override fun apply(vararg args: Double): Double {
-                return cos(args[0])
+        BUILT_IN_FUNCTIONS[INDEX_COS] = object : UnaryFunction("cos") {
+            override fun apply1(arg: Double): Double {
+                return cos(arg)
             }
         }
-        BUILT_IN_FUNCTIONS[INDEX_TAN] = object : Function("tan") {
-            override fun apply(vararg args: Double): Double {
-                return tan(args[0])
+        BUILT_IN_FUNCTIONS[INDEX_TAN] = object : UnaryFunction("tan") {
+            override fun apply1(arg: Double): Double {
+                return tan(arg)
             }
         }
-        BUILT_IN_FUNCTIONS[INDEX_COT] = object : Function("cot") {
-            override fun apply(vararg args: Double): Double {
-                val tan = tan(args[0])
+        BUILT_IN_FUNCTIONS[INDEX_COT] = object : UnaryFunction("cot") {
+            override fun apply1(arg: Double): Double {
+                val tan = tan(arg)
                 if (tan == 0.0) {
                     throw ArithmeticException("Division by zero in cotangent!")
                 }
                 return 1.0 / tan
             }
         }
-        BUILT_IN_FUNCTIONS[INDEX_LOG] = object : Function("log") {
-            override fun apply(vararg args: Double): Double {
-                return ln(args[0])
+        BUILT_IN_FUNCTIONS[INDEX_LOG] = object : UnaryFunction("log") {
+            override fun apply1(arg: Double): Double {
+                return ln(arg)
             }
         }
-        BUILT_IN_FUNCTIONS[INDEX_LOG2] = object : Function("log2") {
-            override fun apply(vararg args: Double): Double {
-                return ln(args[0]) / ln(2.0)
+        BUILT_IN_FUNCTIONS[INDEX_LOG2] = object : UnaryFunction("log2") {
+            override fun apply1(arg: Double): Double {
+                return ln(arg) / ln(2.0)
             }
         }
-        BUILT_IN_FUNCTIONS[INDEX_LOG10] = object : Function("log10") {
-            override fun apply(vararg args: Double): Double {
-                return log10(args[0])
+        BUILT_IN_FUNCTIONS[INDEX_LOG10] = object : UnaryFunction("log10") {
+            override fun apply1(arg: Double): Double {
+                return log10(arg)
             }
         }
-        BUILT_IN_FUNCTIONS[INDEX_LOG1P] = object : Function("log1p") {
-            override fun apply(vararg args: Double): Double {
-                return ln1p(args[0])
+        BUILT_IN_FUNCTIONS[INDEX_LOG1P] = object : UnaryFunction("log1p") {
+            override fun apply1(arg: Double): Double {
+                return ln1p(arg)
             }
         }
-        BUILT_IN_FUNCTIONS[INDEX_ABS] = object : Function("abs") {
-            override fun apply(vararg args: Double): Double {
-                return abs(args[0])
+        BUILT_IN_FUNCTIONS[INDEX_ABS] = object : UnaryFunction("abs") {
+            override fun apply1(arg: Double): Double {
+                return abs(arg)
             }
         }
-        BUILT_IN_FUNCTIONS[INDEX_ACOS] = object : Function("acos") {
-            override fun apply(vararg args: Double): Double {
-                return acos(args[0])
+        BUILT_IN_FUNCTIONS[INDEX_ACOS] = object : UnaryFunction("acos") {
+            override fun apply1(arg: Double): Double {
+                return acos(arg)
             }
         }
-        BUILT_IN_FUNCTIONS[INDEX_ASIN] = object : Function("asin") {
-            override fun apply(vararg args: Double): Double {
-                return asin(args[0])
+        BUILT_IN_FUNCTIONS[INDEX_ASIN] = object : UnaryFunction("asin") {
+            override fun apply1(arg: Double): Double {
+                return asin(arg)
             }
         }
-        BUILT_IN_FUNCTIONS[INDEX_ATAN] = object : Function("atan") {
-            override fun apply(vararg args: Double): Double {
-                return atan(args[0])
+        BUILT_IN_FUNCTIONS[INDEX_ATAN] = object : UnaryFunction("atan") {
+            override fun apply1(arg: Double): Double {
+                return atan(arg)
             }
         }
-        BUILT_IN_FUNCTIONS[INDEX_CBRT] = object : Function("cbrt") {
-            override fun apply(vararg args: Double): Double {
-                return cbrt(args[0])
+        BUILT_IN_FUNCTIONS[INDEX_CBRT] = object : UnaryFunction("cbrt") {
+            override fun apply1(arg: Double): Double {
+                return cbrt(arg)
             }
         }
-        BUILT_IN_FUNCTIONS[INDEX_FLOOR] = object : Function("floor") {
-            override fun apply(vararg args: Double): Double {
-                return floor(args[0])
+        BUILT_IN_FUNCTIONS[INDEX_FLOOR] = object : UnaryFunction("floor") {
+            override fun apply1(arg: Double): Double {
+                return floor(arg)
             }
         }
-        BUILT_IN_FUNCTIONS[INDEX_SINH] = object : Function("sinh") {
-            override fun apply(vararg args: Double): Double {
-                return sinh(args[0])
+        BUILT_IN_FUNCTIONS[INDEX_SINH] = object : UnaryFunction("sinh") {
+            override fun apply1(arg: Double): Double {
+                return sinh(arg)
             }
         }
-        BUILT_IN_FUNCTIONS[INDEX_SQRT] = object : Function("sqrt") {
-            override fun apply(vararg args: Double): Double {
-                return sqrt(args[0])
+        BUILT_IN_FUNCTIONS[INDEX_SQRT] = object : UnaryFunction("sqrt") {
+            override fun apply1(arg: Double): Double {
+                return sqrt(arg)
             }
         }
-        BUILT_IN_FUNCTIONS[INDEX_TANH] = object : Function("tanh") {
-            override fun apply(vararg args: Double): Double {
-                return tanh(args[0])
+        BUILT_IN_FUNCTIONS[INDEX_TANH] = object : UnaryFunction("tanh") {
+            override fun apply1(arg: Double): Double {
+                return tanh(arg)
             }
         }
-        BUILT_IN_FUNCTIONS[INDEX_COSH] = object : Function("cosh") {
-            override fun apply(vararg args: Double): Double {
-                return cosh(args[0])
+        BUILT_IN_FUNCTIONS[INDEX_COSH] = object : UnaryFunction("cosh") {
+            override fun apply1(arg: Double): Double {
+                return cosh(arg)
             }
         }
-        BUILT_IN_FUNCTIONS[INDEX_CEIL] = object : Function("ceil") {
-            override fun apply(vararg args: Double): Double {
-                return ceil(args[0])
+        BUILT_IN_FUNCTIONS[INDEX_CEIL] = object : UnaryFunction("ceil") {
+            override fun apply1(arg: Double): Double {
+                return ceil(arg)
             }
         }
-        BUILT_IN_FUNCTIONS[INDEX_POW] = object : Function("pow", 2) {
-            override fun apply(vararg args: Double): Double {
-                return args[0].pow(args[1])
+        BUILT_IN_FUNCTIONS[INDEX_POW] = object : BinaryFunction("pow") {
+            override fun apply2(arg1: Double, arg2: Double): Double {
+                return arg1.pow(arg2)
             }
         }
-        BUILT_IN_FUNCTIONS[INDEX_EXP] = object : Function("exp", 1) {
-            override fun apply(vararg args: Double): Double {
-                return exp(args[0])
+        BUILT_IN_FUNCTIONS[INDEX_EXP] = object : UnaryFunction("exp") {
+            override fun apply1(arg: Double): Double {
+                return exp(arg)
             }
         }
-        BUILT_IN_FUNCTIONS[INDEX_EXPM1] = object : Function("expm1", 1) {
-            override fun apply(vararg args: Double): Double {
-                return expm1(args[0])
+        BUILT_IN_FUNCTIONS[INDEX_EXPM1] = object : UnaryFunction("expm1") {
+            override fun apply1(arg: Double): Double {
+                return expm1(arg)
             }
         }
-        BUILT_IN_FUNCTIONS[INDEX_SGN] = object : Function("signum", 1) {
-            override fun apply(vararg args: Double): Double {
-                return if (args[0] > 0) {
+        BUILT_IN_FUNCTIONS[INDEX_SGN] = object : UnaryFunction("signum") {
+            override fun apply1(arg: Double): Double {
+                return if (arg > 0) {
                     1.toDouble()
-                } else if (args[0] < 0) {
+                } else if (arg < 0) {
                     (-1).toDouble()
                 } else {
                     0.toDouble()
                 }
             }
         }
-        BUILT_IN_FUNCTIONS[INDEX_CSC] = object : Function("csc") {
-            override fun apply(vararg args: Double): Double {
-                val sin = sin(args[0])
+        BUILT_IN_FUNCTIONS[INDEX_CSC] = object : UnaryFunction("csc") {
+            override fun apply1(arg: Double): Double {
+                val sin = sin(arg)
                 if (sin == 0.0) {
                     throw ArithmeticException("Division by zero in cosecant!")
                 }
                 return 1.0 / sin
             }
         }
-        BUILT_IN_FUNCTIONS[INDEX_SEC] = object : Function("sec") {
-            override fun apply(vararg args: Double): Double {
-                val cos = cos(args[0])
+        BUILT_IN_FUNCTIONS[INDEX_SEC] = object : UnaryFunction("sec") {
+            override fun apply1(arg: Double): Double {
+                val cos = cos(arg)
                 if (cos == 0.0) {
                     throw ArithmeticException("Division by zero in secant!")
                 }
                 return 1.0 / cos
             }
         }
-        BUILT_IN_FUNCTIONS[INDEX_CSCH] = object : Function("csch") {
-            override fun apply(vararg args: Double): Double {
+        BUILT_IN_FUNCTIONS[INDEX_CSCH] = object : UnaryFunction("csch") {
+            override fun apply1(arg: Double): Double {
                 //this would throw an ArithmeticException later as sinh(0) = 0
-                return if (args[0] == 0.0) {
+                return if (arg == 0.0) {
                     0.toDouble()
-                } else 1.0 / sinh(args[0])
+                } else 1.0 / sinh(arg)
             }
         }
-        BUILT_IN_FUNCTIONS[INDEX_SECH] = object : Function("sech") {
-            override fun apply(vararg args: Double): Double {
-                return 1.0 / cosh(args[0])
+        BUILT_IN_FUNCTIONS[INDEX_SECH] = object : UnaryFunction("sech") {
+            override fun apply1(arg: Double): Double {
+                return 1.0 / cosh(arg)
             }
         }
-        BUILT_IN_FUNCTIONS[INDEX_COTH] = object : Function("coth") {
-            override fun apply(vararg args: Double): Double {
-                return cosh(args[0]) / sinh(args[0])
+        BUILT_IN_FUNCTIONS[INDEX_COTH] = object : UnaryFunction("coth") {
+            override fun apply1(arg: Double): Double {
+                return cosh(arg) / sinh(arg)
             }
         }
-        BUILT_IN_FUNCTIONS[INDEX_LOGB] = object : Function("logb", 2) {
-            override fun apply(vararg args: Double): Double {
-                return ln(args[1]) / ln(args[0])
+        BUILT_IN_FUNCTIONS[INDEX_LOGB] = object : BinaryFunction("logb") {
+            override fun apply2(arg1: Double, arg2: Double): Double {
+                return ln(arg2) / ln(arg1)
             }
         }
-        BUILT_IN_FUNCTIONS[INDEX_TO_RADIAN] = object : Function("toradian") {
-            override fun apply(vararg args: Double): Double {
-                return Math.toRadians(args[0])
+        BUILT_IN_FUNCTIONS[INDEX_TO_RADIAN] = object : UnaryFunction("toradian") {
+            override fun apply1(arg: Double): Double {
+                return Math.toRadians(arg)
             }
         }
-        BUILT_IN_FUNCTIONS[INDEX_TO_DEGREE] = object : Function("todegree") {
-            override fun apply(vararg args: Double): Double {
-                return Math.toDegrees(args[0])
+        BUILT_IN_FUNCTIONS[INDEX_TO_DEGREE] = object : UnaryFunction("todegree") {
+            override fun apply1(arg: Double): Double {
+                return Math.toDegrees(arg)
             }
         }
     }
 
+    // Builtin function with a single argument, only apply1 needs to be implemented
+    private abstract class UnaryFunction(name: String) : Function(name, 1) {
+        override fun apply(vararg args: Double): Double = apply1(args[0])
+    }
+
+    // Builtin function with two arguments, only apply2 needs to be implemented
+    private abstract class BinaryFunction(name: String) : Function(name, 2) {
+        override fun apply(vararg args: Double): Double = apply2(args[0], args[1])
+    }
+
     /**
      * Get the builtin function for a given name
      *
@@ -13,6 +13,16 @@ abstract class Operator ( val symbol: String, val numOperands: Int, val isLeftAs
      */
     abstract fun apply(vararg args: Double): Double
 
+    /**
+     * Apply an unary operation without allocating the vararg array, builtin operators override it
+     */
+    open fun apply1(arg: Double): Double = apply(arg)
+
+    /**
+     * Apply a binary operation without allocating the vararg array, builtin operators override it
+     */
+    open fun apply2(arg1: Double, arg2: Double): Double = apply(arg1, arg2)
+
     companion object {
         /**
          * The precedence value for the addition operation
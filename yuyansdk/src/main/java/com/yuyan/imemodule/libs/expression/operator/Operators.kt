@@ -15,60 +15,72 @@ object Operators {
     private val BUILT_IN_OPERATORS = arrayOfNulls<Operator>(9)
 
     init {
-        BUILT_IN_OPERATORS[INDEX_EQUAL] = object : Operator("=", 1, true, PRECEDENCE_ADDITION) {
-            override fun apply(vararg args: Double): Double {
-                return args[0]
+        BUILT_IN_OPERATORS[INDEX_EQUAL] = object : UnaryOperator("=", true, Operator.PRECEDENCE_ADDITION) {
+            override fun apply1(arg: Double): Double {
+                return arg
             }
         }
-        BUILT_IN_OPERATORS[INDEX_ADDITION] = object : Operator("+", 2, true, PRECEDENCE_ADDITION) {
-            override fun apply(vararg args: Double): Double {
-                return args[0] + args[1]
+        BUILT_IN_OPERATORS[INDEX_ADDITION] = object : BinaryOperator("+", true, Operator.PRECEDENCE_ADDITION) {
+            override fun apply2(arg1: Double, arg2: Double): Double {
+                return arg1 + arg2
             }
         }
         BUILT_IN_OPERATORS[INDEX_SUBTRACTION] =
-            object : Operator("-", 2, true, PRECEDENCE_ADDITION) {
-                override fun apply(vararg args: Double): Double {
-                    return args[0] - args[1]
+            object : BinaryOperator("-", true, Operator.PRECEDENCE_ADDITION) {
+                override fun apply2(arg1: Double, arg2: Double): Double {
+                    return arg1 - arg2
                 }
             }
         BUILT_IN_OPERATORS[INDEX_UNARY_MINUS] =
-            object : Operator("-", 1, false, PRECEDENCE_UNARY_MINUS) {
-                override fun apply(vararg args: Double): Double {
-                    return -args[0]
+            object : UnaryOperator("-", false, Operator.PRECEDENCE_UNARY_MINUS) {
+                override fun apply1(arg: Double): Double {
+                    return -arg
                 }
             }
         BUILT_IN_OPERATORS[INDEX_UNARY_PLUS] =
-            object : Operator("+", 1, false, PRECEDENCE_UNARY_PLUS) {
-                override fun apply(vararg args: Double): Double {
-                    return args[0]
+            object : UnaryOperator("+", false, Operator.PRECEDENCE_UNARY_PLUS) {
+                override fun apply1(arg: Double): Double {
+                    return arg
                 }
             }
         BUILT_IN_OPERATORS[INDEX_MULTIPLICATION] =
-            object : Operator("*", 2, true, PRECEDENCE_MULTIPLICATION) {
-                override fun apply(vararg args: Double): Double {
-                    return args[0] * args[1]
+            object : BinaryOperator("*", true, Operator.PRECEDENCE_MULTIPLICATION) {
+                override fun apply2(arg1: Double, arg2: Double): Double {
+                    return arg1 * arg2
                 }
             }
-        BUILT_IN_OPERATORS[INDEX_DIVISION] = object : Operator("/", 2, true, PRECEDENCE_DIVISION) {
-            override fun apply(vararg args: Double): Double {
-                if (args[1] == 0.0) {
+        BUILT_IN_OPERATORS[INDEX_DIVISION] = object : BinaryOperator("/", true, Operator.PRECEDENCE_DIVISION) {
+            override fun apply2(arg1: Double, arg2: Double): Double {
+                if (arg2 == 0.0) {
                     throw ArithmeticException("Division by zero!")
                 }
-                return args[0] / args[1]
+                return arg1 / arg2
             }
         }
-        BUILT_IN_OPERATORS[INDEX_POWER] = object : Operator("^", 2, false, PRECEDENCE_POWER) {
-            override fun apply(vararg args: Double): Double {
-                return args[0].pow(args[1])
+        BUILT_IN_OPERATORS[INDEX_POWER] = object : BinaryOperator("^", false, Operator.PRECEDENCE_POWER) {
+            override fun apply2(arg1: Double, arg2: Double): Double {
+                return arg1.pow(arg2)
             }
         }
-        BUILT_IN_OPERATORS[INDEX_MODULO] = object : Operator("%", 1, true, PRECEDENCE_MODULO) {
-            override fun apply(vararg args: Double): Double {
-                return args[0] / 100.0
+        BUILT_IN_OPERATORS[INDEX_MODULO] = object : UnaryOperator("%", true, Operator.PRECEDENCE_MODULO) {
+            override fun apply1(arg: Double): Double {
+                return arg / 100.0
             }
         }
     }
 
+    // Builtin unary operator, only apply1 needs to be implemented
+    private abstract class UnaryOperator(symbol: String, isLeftAssociative: Boolean, precedence: Int) :
+        Operator(symbol, 1, isLeftAssociative, precedence) {
+        override fun apply(vararg args: Double): Double = apply1(args[0])
+    }
+
+    // Builtin binary operator, only apply2 needs to be implemented
+    private abstract class BinaryOperator(symbol: String, isLeftAssociative: Boolean, precedence: Int) :
+        Operator(symbol, 2, isLeftAssociative, precedence) {
+        override fun apply(vararg args: Double): Double = apply2(args[0], args[1])
+    }
+
     fun getBuiltinOperator(symbol: Char, numArguments: Int): Operator? {
         return when (symbol) {
             '+' -> BUILT_IN_OPERATORS[if (numArguments != 1)INDEX_ADDITION else INDEX_UNARY_PLUS]
@@ -1,7 +1,7 @@
 
 package com.yuyan.imemodule.libs.pinyin4j;
 
-import com.yuyan.imemodule.libs.pinyin4j.multipinyin.Trie;
+import com.yuyan.imemodule.libs.pinyin4j.multipinyin.PinyinTable;
 
 import java.io.IOException;
 
@@ -10,54 +10,42 @@ import java.io.IOException;
  */
 class ChineseToPinyinResource {
     /**
-     * A hash table contains <Unicode, HanyuPinyin> pairs
+     * A compact table contains <Unicode, HanyuPinyin> and <Phrase, HanyuPinyin> pairs
      */
-    private Trie unicodeToHanyuPinyinTable = null;
+    private final PinyinTable pinyinTable;
 
     /**
-     * @param unicodeToHanyuPinyinTable The unicodeToHanyuPinyinTable to set.
+     * @return Returns the pinyinTable.
      */
-    private void setUnicodeToHanyuPinyinTable(Trie unicodeToHanyuPinyinTable) {
-        this.unicodeToHanyuPinyinTable = unicodeToHanyuPinyinTable;
-    }
-
-    /**
-     * @return Returns the unicodeToHanyuPinyinTable.
-     */
-    Trie getUnicodeToHanyuPinyinTable() {
-        return unicodeToHanyuPinyinTable;
+    PinyinTable getPinyinTable() {
+        return pinyinTable;
     }
 
     /**
      * Private constructor as part of the singleton pattern.
      */
     private ChineseToPinyinResource() {
-        initializeResource();
+        pinyinTable = initializeResource();
     }
 
     /**
-     * Initialize a hash-table contains <Unicode, HanyuPinyin> pairs
+     * Initialize a table contains <Unicode, HanyuPinyin> pairs, prefer the prebuilt binary table
      */
-    private void initializeResource() {
+    private PinyinTable initializeResource() {
+        try {
+            final String binaryName = "pinyindb/pinyin_table.pyb";
+            return PinyinTable.map(ResourceHelper.mapResource(binaryName));
+        } catch (IOException ignored) {
+        }
         try {
             final String resourceName = "pinyindb/unicode_to_hanyu_pinyin.txt";
             final String resourceMultiName = "pinyindb/multi_pinyin.txt";
-            setUnicodeToHanyuPinyinTable(new Trie());
-            getUnicodeToHanyuPinyinTable().load(ResourceHelper.getResourceInputStream(resourceName));
-            getUnicodeToHanyuPinyinTable().loadMultiPinyin(ResourceHelper.getResourceInputStream(resourceMultiName));
+            return PinyinTable.load(ResourceHelper.getResourceInputStream(resourceName), ResourceHelper.getResourceInputStream(resourceMultiName));
         } catch (IOException ignored) {
+            return PinyinTable.empty();
         }
     }
 
-    String[] parsePinyinString(String pinyinRecord) {
-        if (null != pinyinRecord) {
-            int indexOfLeftBracket = pinyinRecord.indexOf(Field.LEFT_BRACKET);
-            int indexOfRightBracket = pinyinRecord.lastIndexOf(Field.RIGHT_BRACKET);
-            String stripedString = pinyinRecord.substring(indexOfLeftBracket + Field.LEFT_BRACKET.length(), indexOfRightBracket);
-            return stripedString.split(Field.COMMA);
-        } else return null;
-    }
-
     /**
      * Singleton factory method.
      *
@@ -73,17 +61,4 @@ class ChineseToPinyinResource {
     private static class ChineseToPinyinResourceHolder {
         static final ChineseToPinyinResource theInstance = new ChineseToPinyinResource();
     }
-
-    /**
-     * A class encloses common string constants used in Properties files
-     *
-     * @author Li Min (xmlerlimin@gmail.com)
-     */
-    class Field {
-        static final String LEFT_BRACKET = "[";
-
-        static final String RIGHT_BRACKET = "]";
-
-        static final String COMMA = ",";
-    }
 }
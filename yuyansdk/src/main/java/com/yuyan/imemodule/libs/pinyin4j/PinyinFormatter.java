@@ -13,15 +13,15 @@ class PinyinFormatter {
    */
   static String formatHanyuPinyin(String pinyinStr, HanyuPinyinOutputFormat outputFormat) {
     if (HanyuPinyinToneType.WITHOUT_TONE == outputFormat.getToneType()) {
-      pinyinStr = pinyinStr.replaceAll("[1-5]", "");
+      pinyinStr = removeToneNumber(pinyinStr);
     } else if (HanyuPinyinToneType.WITH_TONE_MARK == outputFormat.getToneType()) {
-      pinyinStr = pinyinStr.replaceAll("u:", "v");
+      pinyinStr = pinyinStr.replace("u:", "v");
       pinyinStr = convertToneNumber2ToneMark(pinyinStr);
     }
     if (HanyuPinyinVCharType.WITH_V == outputFormat.getVCharType()) {
-      pinyinStr = pinyinStr.replaceAll("u:", "v");
+      pinyinStr = pinyinStr.replace("u:", "v");
     } else if (HanyuPinyinVCharType.WITH_U_UNICODE == outputFormat.getVCharType()) {
-      pinyinStr = pinyinStr.replaceAll("u:", "ü");
+      pinyinStr = pinyinStr.replace("u:", "ü");
     }
 
     if (HanyuPinyinCaseType.UPPERCASE == outputFormat.getCaseType()) {
@@ -57,7 +57,7 @@ class PinyinFormatter {
    */
   private static String convertToneNumber2ToneMark(final String pinyinStr) {
     String lowerCasePinyinStr = pinyinStr.toLowerCase();
-    if (lowerCasePinyinStr.matches("[a-z]*[1-5]?")) {
+    if (isPinyinWithOptionalTone(lowerCasePinyinStr, false)) {
       final char defautlCharValue = '$';
       final int defautlIndexValue = -1;
       char unmarkedVowel = defautlCharValue;
@@ -67,7 +67,7 @@ class PinyinFormatter {
       final String ouStr = "ou";
       final String allUnmarkedVowelStr = "aeiouv";
       final String allMarkedVowelStr = "āáăàaēéĕèeīíĭìiōóŏòoūúŭùuǖǘǚǜü";
-      if (lowerCasePinyinStr.matches("[a-z]*[1-5]")) {
+      if (isPinyinWithOptionalTone(lowerCasePinyinStr, true)) {
         int tuneNumber = Character.getNumericValue(lowerCasePinyinStr.charAt(lowerCasePinyinStr.length() - 1));
         int indexOfA = lowerCasePinyinStr.indexOf(charA);
         int indexOfE = lowerCasePinyinStr.indexOf(charE);
@@ -83,8 +83,7 @@ class PinyinFormatter {
           unmarkedVowel = ouStr.charAt(0);
         } else {
           for (int i = lowerCasePinyinStr.length() - 1; i >= 0; i--) {
-            if (String.valueOf(lowerCasePinyinStr.charAt(i)).matches(
-                "[" + allUnmarkedVowelStr + "]")) {
+            if (allUnmarkedVowelStr.indexOf(lowerCasePinyinStr.charAt(i)) >= 0) {
               indexOfUnmarkedVowel = i;
               unmarkedVowel = lowerCasePinyinStr.charAt(i);
               break;
@@ -100,19 +99,54 @@ class PinyinFormatter {
 
           char markedVowel = allMarkedVowelStr.charAt(vowelLocation);
 
-            return lowerCasePinyinStr.substring(0, indexOfUnmarkedVowel).replaceAll("v",
-                    "ü") + markedVowel + lowerCasePinyinStr.substring(indexOfUnmarkedVowel + 1,
-                    lowerCasePinyinStr.length() - 1).replaceAll("v", "ü");
+            return lowerCasePinyinStr.substring(0, indexOfUnmarkedVowel).replace('v',
+                    'ü') + markedVowel + lowerCasePinyinStr.substring(indexOfUnmarkedVowel + 1,
+                    lowerCasePinyinStr.length() - 1).replace('v', 'ü');
 
         } else {
           return lowerCasePinyinStr;
         }
       } else {
         // only replace v with ü (umlat) character
-        return lowerCasePinyinStr.replaceAll("v", "ü");
+        return lowerCasePinyinStr.replace('v', 'ü');
       }
     } else {
       return lowerCasePinyinStr;
     }
   }
+
+  /**
+   * @param pinyinStr pinyin string
+   * @return the string without tone numbers 1-5
+   */
+  private static String removeToneNumber(String pinyinStr) {
+    StringBuilder builder = null;
+    for (int i = 0; i < pinyinStr.length(); i++) {
+      char c = pinyinStr.charAt(i);
+      if (c >= '1' && c <= '5') {
+        if (builder == null) builder = new StringBuilder(pinyinStr.length()).append(pinyinStr, 0, i);
+      } else if (builder != null) {
+        builder.append(c);
+      }
+    }
+    return builder == null ? pinyinStr : builder.toString();
+  }
+
+  /**
+   * Same as matching [a-z]*[1-5]? (or [a-z]*[1-5] when the tone is required) without regex
+   */
+  private static boolean isPinyinWithOptionalTone(String pinyinStr, boolean toneRequired) {
+    int length = pinyinStr.length();
+    int letters = length;
+    if (length > 0) {
+      char last = pinyinStr.charAt(length - 1);
+      if (last >= '1' && last <= '5') letters--;
+    }
+    if (toneRequired && letters == length) return false;
+    for (int i = 0; i < letters; i++) {
+      char c = pinyinStr.charAt(i);
+      if (c < 'a' || c > 'z') return false;
+    }
+    return true;
+  }
 }
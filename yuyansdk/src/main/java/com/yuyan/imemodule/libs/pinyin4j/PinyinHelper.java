@@ -1,7 +1,7 @@
 package com.yuyan.imemodule.libs.pinyin4j;
 
 import com.yuyan.imemodule.libs.pinyin4j.format.HanyuPinyinOutputFormat;
-import com.yuyan.imemodule.libs.pinyin4j.multipinyin.Trie;
+import com.yuyan.imemodule.libs.pinyin4j.multipinyin.PinyinTable;
 
 public class PinyinHelper {
 
@@ -9,42 +9,21 @@ public class PinyinHelper {
      * 汉字转简拼
      */
     public static String getPinYinHeadChar(String str) {
-        ChineseToPinyinResource resource = ChineseToPinyinResource.getInstance();
+        PinyinTable table = ChineseToPinyinResource.getInstance().getPinyinTable();
         StringBuilder resultPinyinStrBuf = new StringBuilder();
         char[] chars = str.toCharArray();
         for (int i = 0; i < chars.length; i++) {
-            String result = null;//匹配到的最长的结果
-            char ch = chars[i];
-            Trie currentTrie = resource.getUnicodeToHanyuPinyinTable();
-            int success = i;
-            int current = i;
-            do {
-                String hexStr = Integer.toHexString(ch).toUpperCase();
-                currentTrie = currentTrie.get(hexStr);
-                if (currentTrie != null) {
-                    if (currentTrie.getPinyin() != null) {
-                        result = currentTrie.getPinyin();
-                        success = current;
-                    }
-                    currentTrie = currentTrie.getNextTire();
-                }
-                current++;
-                if (current < chars.length) ch = chars[current];
-                else break;
-            }
-            while (currentTrie != null);
-            if (result == null) {//如果在前缀树中没有匹配到，那么它就不能转换为拼音，直接输出或者去掉
+            int entry = table.longestMatch(chars, i);//匹配到的最长的结果
+            if (entry < 0) {//如果没有匹配到，那么它就不能转换为拼音，直接输出或者去掉
                 if (Character.isLetter(chars[i])) resultPinyinStrBuf.append(chars[i]);
             } else {
-                String[] pinyinStrArray = resource.parsePinyinString(result);
-                if (pinyinStrArray != null) {
-                    for (String s : pinyinStrArray) {
-                        resultPinyinStrBuf.append(s.charAt(0));
-                        if (i == success) break;
-                    }
+                int success = i + table.matchLength(entry) - 1;
+                int count = i == success ? 1 : table.syllableCount(entry);
+                for (int j = 0; j < count; j++) {
+                    resultPinyinStrBuf.append(table.syllable(entry, j).charAt(0));
                 }
+                i = success;
             }
-            i = success;
             if(resultPinyinStrBuf.length() >= 4)break;
         }
         return resultPinyinStrBuf.toString();
@@ -54,43 +33,18 @@ public class PinyinHelper {
      * 汉字转拼音
      */
     static public String toHanYuPinyin(String str, HanyuPinyinOutputFormat outputFormat, String separate) {
-        ChineseToPinyinResource resource = ChineseToPinyinResource.getInstance();
+        PinyinTable table = ChineseToPinyinResource.getInstance().getPinyinTable();
         StringBuilder resultPinyinStrBuf = new StringBuilder();
         char[] chars = str.toCharArray();
         for (int i = 0; i < chars.length; i++) {
-            String result = null;//匹配到的最长的结果
-            char ch = chars[i];
-            Trie currentTrie = resource.getUnicodeToHanyuPinyinTable();
-            int success = i;
-            int current = i;
-            do {
-                String hexStr = Integer.toHexString(ch).toUpperCase();
-                currentTrie = currentTrie.get(hexStr);
-                if (currentTrie != null) {
-                    if (currentTrie.getPinyin() != null) {
-                        result = currentTrie.getPinyin();
-                        success = current;
-                    }
-                    currentTrie = currentTrie.getNextTire();
-                }
-                current++;
-                if (current < chars.length)
-                    ch = chars[current];
-                else
-                    break;
-            }
-            while (currentTrie != null);
-            if (result != null) {
-                String[] pinyinStrArray = resource.parsePinyinString(result);
-                if (pinyinStrArray != null) {
-                    for (int j = 0; j < pinyinStrArray.length; j++) {
-                        resultPinyinStrBuf.append(PinyinFormatter.formatHanyuPinyin(pinyinStrArray[j], outputFormat));
-                        if (current < chars.length || (j < pinyinStrArray.length - 1 && i != success)) {
-                            resultPinyinStrBuf.append(separate);
-                        }
-                        if (i == success)
-                            break;
-                    }
+            int entry = table.longestMatch(chars, i);//匹配到的最长的结果
+            if (entry < 0) continue;
+            int success = i + table.matchLength(entry) - 1;
+            int count = i == success ? 1 : table.syllableCount(entry);
+            for (int j = 0; j < count; j++) {
+                resultPinyinStrBuf.append(PinyinFormatter.formatHanyuPinyin(table.syllable(entry, j), outputFormat));
+                if (success + 1 < chars.length || j < count - 1) {
+                    resultPinyinStrBuf.append(separate);
                 }
             }
             i = success;
@@ -99,7 +53,6 @@ public class PinyinHelper {
         return resultPinyinStrBuf.toString();
     }
 
-
     /**
      * 汉字转拼音,支持单字多音
      */
@@ -107,39 +60,16 @@ public class PinyinHelper {
         if(str.length() == 1){
             separate =  ",";
         }
-        ChineseToPinyinResource resource = ChineseToPinyinResource.getInstance();
+        PinyinTable table = ChineseToPinyinResource.getInstance().getPinyinTable();
         StringBuilder resultPinyinStrBuf = new StringBuilder();
         char[] chars = str.toCharArray();
         for (int i = 0; i < chars.length; i++) {
-            String result = null;//匹配到的最长的结果
-            char ch = chars[i];
-            Trie currentTrie = resource.getUnicodeToHanyuPinyinTable();
-            int success = i;
-            int current = i;
-            do {
-                String hexStr = Integer.toHexString(ch).toUpperCase();
-                currentTrie = currentTrie.get(hexStr);
-                if (currentTrie != null) {
-                    if (currentTrie.getPinyin() != null) {
-                        result = currentTrie.getPinyin();
-                        success = current;
-                    }
-                    currentTrie = currentTrie.getNextTire();
-                }
-                current++;
-                if (current < chars.length)
-                    ch = chars[current];
-                else
-                    break;
-            } while (currentTrie != null);
-            if (result != null) {
-                String[] pinyinStrArray = resource.parsePinyinString(result);
-                if (pinyinStrArray != null) {
-                    for (String s : pinyinStrArray) {
-                        resultPinyinStrBuf.append(PinyinFormatter.formatHanyuPinyin(s, outputFormat)).append(separate);
-                        if (i == success && str.length() != 1) break;
-                    }
-                }
+            int entry = table.longestMatch(chars, i);//匹配到的最长的结果
+            if (entry < 0) continue;
+            int success = i + table.matchLength(entry) - 1;
+            int count = i == success && str.length() != 1 ? 1 : table.syllableCount(entry);
+            for (int j = 0; j < count; j++) {
+                resultPinyinStrBuf.append(PinyinFormatter.formatHanyuPinyin(table.syllable(entry, j), outputFormat)).append(separate);
             }
             i = success;
         }
@@ -15,9 +15,18 @@
 
 package com.yuyan.imemodule.libs.pinyin4j;
 
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+
 import com.yuyan.imemodule.application.Launcher;
 import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 /**
  * Helper class for file resources
@@ -32,4 +41,26 @@ class ResourceHelper {
   static BufferedInputStream getResourceInputStream(String resourceName) throws IOException{
       return new BufferedInputStream(Launcher.Companion.getInstance().getContext().getAssets().open(resourceName));
   }
+
+  /**
+   * @param resourceName
+   * @return resource mapped read-only into memory; if it is compressed in the
+   *         package and can not be mapped, it is read into a heap buffer
+   */
+  static ByteBuffer mapResource(String resourceName) throws IOException {
+      AssetManager assets = Launcher.Companion.getInstance().getContext().getAssets();
+      try (AssetFileDescriptor fd = assets.openFd(resourceName);
+           FileInputStream input = fd.createInputStream();
+           FileChannel channel = input.getChannel()) {
+          return channel.map(FileChannel.MapMode.READ_ONLY, fd.getStartOffset(), fd.getLength());
+      } catch (FileNotFoundException e) {
+          try (InputStream input = assets.open(resourceName)) {
+              ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(input.available(), 8192));
+              byte[] buffer = new byte[8192];
+              int length;
+              while ((length = input.read(buffer)) != -1) output.write(buffer, 0, length);
+              return ByteBuffer.wrap(output.toByteArray());
+          }
+      }
+  }
 }
@@ -0,0 +1,313 @@
+package com.yuyan.imemodule.libs.pinyin4j.multipinyin;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 汉字转拼音表
+ * <p>
+ * 单字按字符直接下标索引，多字词组按字典序存放在一个字符数组中(有序数组前缀树)，最长匹配时逐字二分缩小范围；
+ * 拼音音节去重后以序号引用。全部数据为少量基本类型缓冲区，查询不分配内存。
+ * <p>
+ * 条目序号：[0, singleCount)为单字，之后为词组。
+ * <p>
+ * 编译时由generatePinyinTable任务转换为二进制(大端序)，运行时直接映射，音节字符串在首次使用时解码：
+ * <pre>
+ * int magic, version
+ * int syllableCount, syllableByteCount, firstChar, charEntryCount, singleCount, phraseCount, phraseCharCount, entryCount, entrySyllableCount
+ * int[syllableCount + 1] syllableOffsets
+ * int[charEntryCount] charEntries
+ * int[phraseCount + 1] phraseOffsets
+ * int[entryCount + 1] entryOffsets
+ * char[phraseCharCount] phraseChars
+ * short[entrySyllableCount] entrySyllables
+ * byte[syllableByteCount] syllableBytes(UTF-8)
+ * </pre>
+ */
+public final class PinyinTable {
+
+    public static final int MAGIC = 0x50593442;//"PY4B"
+
+    public static final int VERSION = 1;
+
+    private final IntBuffer syllableOffsets;//第i个音节在syllableBytes中的起始位置，长度为音节数+1
+
+    private final ByteBuffer syllableBytes;//音节UTF-8编码，首尾相接
+
+    private final String[] syllables;//已解码的音节
+
+    private final char firstChar;//单字表的起始字符
+
+    private final IntBuffer charEntries;//单字(减去firstChar)对应的条目，-1表示无
+
+    private final int singleCount;//单字条目数
+
+    private final CharBuffer phraseChars;//按字典序排列的词组，首尾相接
+
+    private final IntBuffer phraseOffsets;//第i个词组在phraseChars中的起始位置，长度为词组数+1
+
+    private final IntBuffer entryOffsets;//第i个条目在entrySyllables中的起始位置，长度为条目数+1
+
+    private final ShortBuffer entrySyllables;//条目的拼音音节序号
+
+    private PinyinTable(IntBuffer syllableOffsets, ByteBuffer syllableBytes, String[] syllables, char firstChar,
+                        IntBuffer charEntries, int singleCount, CharBuffer phraseChars, IntBuffer phraseOffsets,
+                        IntBuffer entryOffsets, ShortBuffer entrySyllables) {
+        this.syllableOffsets = syllableOffsets;
+        this.syllableBytes = syllableBytes;
+        this.syllables = syllables;
+        this.firstChar = firstChar;
+        this.charEntries = charEntries;
+        this.singleCount = singleCount;
+        this.phraseChars = phraseChars;
+        this.phraseOffsets = phraseOffsets;
+        this.entryOffsets = entryOffsets;
+        this.entrySyllables = entrySyllables;
+    }
+
+    /**
+     * 空表，资源加载失败时使用
+     */
+    public static PinyinTable empty() {
+        return new PinyinTable(IntBuffer.wrap(new int[]{0}), ByteBuffer.allocate(0), new String[0], (char) 0, IntBuffer.allocate(0), 0,
+                CharBuffer.allocate(0), IntBuffer.wrap(new int[]{0}), IntBuffer.wrap(new int[]{0}), ShortBuffer.allocate(0));
+    }
+
+    /**
+     * 从二进制数据构建，只读取头部并切分各段，不复制数据
+     *
+     * @param buffer 通常为内存映射的资源文件
+     * @throws IOException 格式或版本不匹配
+     */
+    public static PinyinTable map(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) throw new IOException("Bad pinyin table magic");
+            int version = buffer.getInt();
+            if (version != VERSION) throw new IOException("Unsupported pinyin table version " + version);
+            int syllableCount = buffer.getInt();
+            int syllableByteCount = buffer.getInt();
+            char firstChar = (char) buffer.getInt();
+            int charEntryCount = buffer.getInt();
+            int singleCount = buffer.getInt();
+            int phraseCount = buffer.getInt();
+            int phraseCharCount = buffer.getInt();
+            int entryCount = buffer.getInt();
+            int entrySyllableCount = buffer.getInt();
+            IntBuffer syllableOffsets = section(buffer, (syllableCount + 1) * 4).asIntBuffer();
+            IntBuffer charEntries = section(buffer, charEntryCount * 4).asIntBuffer();
+            IntBuffer phraseOffsets = section(buffer, (phraseCount + 1) * 4).asIntBuffer();
+            IntBuffer entryOffsets = section(buffer, (entryCount + 1) * 4).asIntBuffer();
+            CharBuffer phraseChars = section(buffer, phraseCharCount * 2).asCharBuffer();
+            ShortBuffer entrySyllables = section(buffer, entrySyllableCount * 2).asShortBuffer();
+            ByteBuffer syllableBytes = section(buffer, syllableByteCount);
+            return new PinyinTable(syllableOffsets, syllableBytes, new String[syllableCount], firstChar, charEntries,
+                    singleCount, phraseChars, phraseOffsets, entryOffsets, entrySyllables);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Truncated pinyin table", e);
+        }
+    }
+
+    // 从当前位置切出length字节，并前移位置
+    private static ByteBuffer section(ByteBuffer buffer, int length) {
+        if (length < 0 || length > buffer.remaining()) throw new BufferUnderflowException();
+        ByteBuffer section = buffer.slice();
+        section.limit(length);
+        buffer.position(buffer.position() + length);
+        return section;
+    }
+
+    /**
+     * 从chars[start]开始查找最长匹配的条目
+     *
+     * @return 条目序号，没有匹配时返回-1
+     */
+    public int longestMatch(char[] chars, int start) {
+        int entry = charEntry(chars[start]);
+        int lo = 0;
+        int hi = phraseCount();
+        for (int depth = 0; start + depth < chars.length && lo < hi; depth++) {
+            char ch = chars[start + depth];
+            lo = lowerBound(lo, hi, depth, ch);
+            hi = lowerBound(lo, hi, depth, ch + 1);
+            if (depth > 0 && lo < hi && phraseLength(lo) == depth + 1) {//较短的词组排在前面
+                entry = singleCount + lo;
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * 条目对应的汉字数
+     */
+    public int matchLength(int entry) {
+        return entry < singleCount ? 1 : phraseLength(entry - singleCount);
+    }
+
+    public int syllableCount(int entry) {
+        return entryOffsets.get(entry + 1) - entryOffsets.get(entry);
+    }
+
+    /**
+     * 条目的第index个拼音(带数字声调，如yi1)
+     */
+    public String syllable(int entry, int index) {
+        int id = entrySyllables.get(entryOffsets.get(entry) + index);
+        String syllable = syllables[id];
+        if (syllable == null) {//首次使用时解码，字符串不可变，并发重复解码无影响
+            int start = syllableOffsets.get(id);
+            byte[] bytes = new byte[syllableOffsets.get(id + 1) - start];
+            for (int i = 0; i < bytes.length; i++) bytes[i] = syllableBytes.get(start + i);
+            syllable = new String(bytes, StandardCharsets.UTF_8);
+            syllables[id] = syllable;
+        }
+        return syllable;
+    }
+
+    private int charEntry(char ch) {
+        int index = ch - firstChar;
+        return index >= 0 && index < charEntries.limit() ? charEntries.get(index) : -1;
+    }
+
+    private int phraseCount() {
+        return phraseOffsets.limit() - 1;
+    }
+
+    private int phraseLength(int phrase) {
+        return phraseOffsets.get(phrase + 1) - phraseOffsets.get(phrase);
+    }
+
+    // 词组第depth个字符，超出词组长度时返回-1，与字典序中前缀排在前面一致
+    private int phraseCharAt(int phrase, int depth) {
+        int index = phraseOffsets.get(phrase) + depth;
+        return index < phraseOffsets.get(phrase + 1) ? phraseChars.get(index) : -1;
+    }
+
+    // [lo, hi)中第depth个字符不小于ch的第一个词组
+    private int lowerBound(int lo, int hi, int depth, int ch) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (phraseCharAt(mid, depth) < ch) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * 从文本资源构建，二进制资源不可用时使用
+     *
+     * @param unicodeStream 单字拼音，每行形如 4E00 [yi1,yi4,yi2]
+     * @param multiStream   多字词组拼音，每行形如 一丁点儿 [yi1,ding1,dian3,er5]
+     */
+    public static PinyinTable load(InputStream unicodeStream, InputStream multiStream) throws IOException {
+        Map<String, Integer> syllableIds = new HashMap<>();
+        ArrayList<String> syllableList = new ArrayList<>();
+        TreeMap<Character, short[]> singles = new TreeMap<>();
+        TreeMap<String, short[]> phrases = new TreeMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(unicodeStream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int space = line.indexOf(' ');
+                if (space <= 0) continue;
+                int code;
+                try {
+                    code = Integer.parseInt(line.substring(0, space), 16);
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                if (code > Character.MAX_VALUE) continue;
+                short[] value = parseSyllables(line, space + 1, syllableIds, syllableList);
+                if (value != null) singles.put((char) code, value);
+            }
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(multiStream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int space = line.indexOf(' ');
+                if (space <= 0) continue;
+                short[] value = parseSyllables(line, space + 1, syllableIds, syllableList);
+                if (value == null) continue;
+                if (space == 1) singles.put(line.charAt(0), value);
+                else phrases.put(line.substring(0, space), value);
+            }
+        }
+
+        int entryCount = singles.size() + phrases.size();
+        int[] entryOffsets = new int[entryCount + 1];
+        int syllableTotal = 0;
+        for (short[] value : singles.values()) syllableTotal += value.length;
+        for (short[] value : phrases.values()) syllableTotal += value.length;
+        short[] entrySyllables = new short[syllableTotal];
+        int entry = 0;
+        int offset = 0;
+
+        char firstChar = singles.isEmpty() ? 0 : singles.firstKey();
+        int[] charEntries = new int[singles.isEmpty() ? 0 : singles.lastKey() - firstChar + 1];
+        Arrays.fill(charEntries, -1);
+        for (Map.Entry<Character, short[]> single : singles.entrySet()) {
+            charEntries[single.getKey() - firstChar] = entry;
+            System.arraycopy(single.getValue(), 0, entrySyllables, offset, single.getValue().length);
+            offset += single.getValue().length;
+            entryOffsets[++entry] = offset;
+        }
+
+        int phraseCharTotal = 0;
+        for (String key : phrases.keySet()) phraseCharTotal += key.length();
+        char[] phraseChars = new char[phraseCharTotal];
+        int[] phraseOffsets = new int[phrases.size() + 1];
+        int phrase = 0;
+        for (Map.Entry<String, short[]> item : phrases.entrySet()) {
+            String key = item.getKey();
+            key.getChars(0, key.length(), phraseChars, phraseOffsets[phrase]);
+            phraseOffsets[phrase + 1] = phraseOffsets[phrase] + key.length();
+            phrase++;
+            System.arraycopy(item.getValue(), 0, entrySyllables, offset, item.getValue().length);
+            offset += item.getValue().length;
+            entryOffsets[++entry] = offset;
+        }
+        String[] syllables = syllableList.toArray(new String[0]);//已全部解码，不再使用syllableOffsets、syllableBytes
+        return new PinyinTable(IntBuffer.wrap(new int[syllables.length + 1]), ByteBuffer.allocate(0), syllables, firstChar,
+                IntBuffer.wrap(charEntries), singles.size(), CharBuffer.wrap(phraseChars), IntBuffer.wrap(phraseOffsets),
+                IntBuffer.wrap(entryOffsets), ShortBuffer.wrap(entrySyllables));
+    }
+
+    // 解析 [yi1,yi4,yi2]，音节去重
+    private static short[] parseSyllables(String line, int from, Map<String, Integer> syllableIds, ArrayList<String> syllableList) {
+        int left = line.indexOf('[', from);
+        int right = line.lastIndexOf(']');
+        if (left < 0 || right <= left + 1) return null;
+        ArrayList<String> parts = new ArrayList<>(4);
+        int start = left + 1;
+        for (int i = start; i <= right; i++) {
+            if (i == right || line.charAt(i) == ',') {
+                if (i > start) parts.add(line.substring(start, i));
+                start = i + 1;
+            }
+        }
+        if (parts.isEmpty()) return null;
+        short[] value = new short[parts.size()];
+        for (int i = 0; i < value.length; i++) {
+            String syllable = parts.get(i);
+            Integer id = syllableIds.get(syllable);
+            if (id == null) {
+                id = syllableList.size();
+                syllableIds.put(syllable, id);
+                syllableList.add(syllable);
+            }
+            value[i] = (short) (int) id;
+        }
+        return value;
+    }
+}
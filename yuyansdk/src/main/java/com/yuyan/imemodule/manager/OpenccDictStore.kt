@@ -0,0 +1,268 @@
+package com.yuyan.imemodule.manager
+
+import android.content.Context
+import java.io.File
+
+/**
+ * OpenCC繁简词库内存存储
+ *
+ * 词库只在首次使用时读取一次，按简体建立哈希索引，搜索使用按字符建立的倒排索引，只校验包含查询中最少见字符的词条。
+ * 修改先追加到日志文件(文件名.journal)，日志条数达到[COMPACT_THRESHOLD]或调用[compact]时重写词库文件并清空日志。
+ * 词库文件优先读取用户目录(rime/opencc)，不存在时读取assets。读取失败时不保留部分数据，也不接受修改和压缩，
+ * 避免用不完整的词库覆盖用户文件；下次访问时重试读取。
+ * OpenCC只读取词库文件，不读取日志，部署前需调用[flush]。
+ */
+class OpenccDictStore(private val context: Context, private val fileName: String) {
+    // 按词库文件顺序保存词条，删除或修改时原位置置空，压缩时清理
+    private val keys = ArrayList<String?>()
+    private val values = ArrayList<String?>()
+    private val idByKey = HashMap<String, Int>()
+    private var charIndex: HashMap<Char, IntList>? = null  // 字符 -> 包含该字符的词条位置
+    private var loaded = false
+    private var journalSize = 0
+
+    private val dictFile: File
+        get() = File(context.getExternalFilesDir("rime/opencc"), fileName)
+
+    private val journalFile: File
+        get() = File(context.getExternalFilesDir("rime/opencc"), "$fileName.journal")
+
+    @get:Synchronized
+    val size: Int
+        get() {
+            if (!ensureLoaded()) return 0
+            return idByKey.size
+        }
+
+    @Synchronized
+    fun get(simplified: String): String? {
+        if (!ensureLoaded()) return null
+        return idByKey[simplified]?.let { values[it] }
+    }
+
+    /**
+     * 按词库文件顺序返回全部词条
+     */
+    @Synchronized
+    fun entries(): List<Pair<String, String>> {
+        if (!ensureLoaded()) return emptyList()
+        val result = ArrayList<Pair<String, String>>(idByKey.size)
+        for (id in keys.indices) {
+            val key = keys[id] ?: continue
+            result.add(key to values[id]!!)
+        }
+        return result
+    }
+
+    @Synchronized
+    fun put(simplified: String, traditional: String): Boolean {
+        if (!ensureLoaded()) return false
+        putInternal(simplified, traditional)
+        return appendJournal("+\t$simplified\t$traditional")
+    }
+
+    @Synchronized
+    fun remove(simplified: String): Boolean {
+        if (!ensureLoaded()) return false
+        if (removeInternal(simplified) == null) return true
+        return appendJournal("-\t$simplified")
+    }
+
+    /**
+     * 整体替换词库并立即写入文件
+     */
+    @Synchronized
+    fun replaceAll(entries: List<Pair<String, String>>): Boolean {
+        loaded = true
+        clear()
+        for ((simplified, traditional) in entries) putInternal(simplified, traditional)
+        return compact()
+    }
+
+    /**
+     * 搜索简体或繁体包含query的词条，简体以query开头的排在前面
+     */
+    @Synchronized
+    fun search(query: String, limit: Int = Int.MAX_VALUE): List<Pair<String, String>> {
+        if (!ensureLoaded()) return emptyList()
+        if (query.isEmpty()) return entries().take(limit)
+        val index = charIndex ?: buildCharIndex().also { charIndex = it }
+        var candidates: IntList? = null
+        for (c in query) {
+            val list = index[c] ?: return emptyList()
+            if (candidates == null || list.size < candidates.size) candidates = list
+        }
+        val prefixMatches = ArrayList<Pair<String, String>>()
+        val otherMatches = ArrayList<Pair<String, String>>()
+        for (i in 0 until candidates!!.size) {
+            val id = candidates[i]
+            val key = keys[id] ?: continue
+            val value = values[id]!!
+            if (key.startsWith(query)) {
+                prefixMatches.add(key to value)
+                if (prefixMatches.size >= limit) break
+            } else if (key.contains(query) || value.contains(query)) {
+                otherMatches.add(key to value)
+            }
+        }
+        prefixMatches.addAll(otherMatches)
+        return if (prefixMatches.size > limit) prefixMatches.subList(0, limit) else prefixMatches
+    }
+
+    /**
+     * 有未写入词库文件的修改(日志存在)时压缩，使修改对OpenCC可见
+     */
+    @Synchronized
+    fun flush(): Boolean {
+        if (!journalFile.exists()) return true
+        return compact()
+    }
+
+    /**
+     * 将内存中的词库写回词库文件并清空日志，词库未能完整读取时不写入
+     */
+    @Synchronized
+    fun compact(): Boolean {
+        if (!ensureLoaded()) return false
+        return try {
+            val file = dictFile
+            file.parentFile?.mkdirs()
+            val tempFile = File(file.parentFile, "$fileName.tmp")
+            tempFile.bufferedWriter(Charsets.UTF_8).use { writer ->
+                for (id in keys.indices) {
+                    val key = keys[id] ?: continue
+                    writer.write(key)
+                    writer.write("\t")
+                    writer.write(values[id]!!)
+                    writer.newLine()
+                }
+            }
+            if (!tempFile.renameTo(file)) return false
+            journalFile.delete()
+            journalSize = 0
+            rebuild()
+            true
+        } catch (e: Exception) {
+            e.printStackTrace()
+            false
+        }
+    }
+
+    /**
+     * @return 词库是否已完整读取
+     */
+    private fun ensureLoaded(): Boolean {
+        if (loaded) return true
+        clear()
+        journalSize = 0
+        try {
+            val file = dictFile
+            val reader = if (file.exists()) file.bufferedReader(Charsets.UTF_8)
+                else context.assets.open("rime/opencc/$fileName").bufferedReader(Charsets.UTF_8)
+            reader.useLines { lines ->
+                lines.forEach { line ->
+                    val tab = line.indexOf('\t')
+                    if (tab > 0) putInternal(line.substring(0, tab).trim(), line.substring(tab + 1).trim())
+                }
+            }
+            if (journalFile.exists()) {
+                journalFile.forEachLine { line ->
+                    val parts = line.split('\t')
+                    when {
+                        parts.size >= 3 && parts[0] == "+" -> putInternal(parts[1], parts[2])
+                        parts.size >= 2 && parts[0] == "-" -> removeInternal(parts[1])
+                    }
+                    journalSize++
+                }
+            }
+        } catch (e: Exception) {
+            e.printStackTrace()
+            clear()
+            journalSize = 0
+            return false
+        }
+        loaded = true
+        return true
+    }
+
+    private fun putInternal(simplified: String, traditional: String) {
+        removeInternal(simplified)
+        val id = keys.size
+        keys.add(simplified)
+        values.add(traditional)
+        idByKey[simplified] = id
+        charIndex?.let { indexEntry(it, id) }
+    }
+
+    private fun removeInternal(simplified: String): String? {
+        val id = idByKey.remove(simplified) ?: return null
+        val value = values[id]
+        keys[id] = null
+        values[id] = null
+        return value
+    }
+
+    private fun appendJournal(line: String): Boolean {
+        return try {
+            val file = journalFile
+            file.parentFile?.mkdirs()
+            file.appendText(line + "\n", Charsets.UTF_8)
+            if (++journalSize >= COMPACT_THRESHOLD) compact() else true
+        } catch (e: Exception) {
+            e.printStackTrace()
+            false
+        }
+    }
+
+    private fun clear() {
+        keys.clear()
+        values.clear()
+        idByKey.clear()
+        charIndex = null
+    }
+
+    // 去掉已删除的位置，重新编号
+    private fun rebuild() {
+        if (idByKey.size == keys.size) return
+        val entries = entries()
+        clear()
+        for ((simplified, traditional) in entries) putInternal(simplified, traditional)
+    }
+
+    private fun buildCharIndex(): HashMap<Char, IntList> {
+        val index = HashMap<Char, IntList>()
+        for (id in keys.indices) {
+            if (keys[id] != null) indexEntry(index, id)
+        }
+        return index
+    }
+
+    private fun indexEntry(index: HashMap<Char, IntList>, id: Int) {
+        val key = keys[id]!!
+        val value = values[id]!!
+        for (i in key.indices) addToIndex(index, key[i], id)
+        for (i in value.indices) addToIndex(index, value[i], id)
+    }
+
+    private fun addToIndex(index: HashMap<Char, IntList>, c: Char, id: Int) {
+        val list = index.getOrPut(c) { IntList() }
+        if (list.size == 0 || list[list.size - 1] != id) list.add(id)  // 同一词条只记录一次(相邻重复)
+    }
+
+    private class IntList {
+        private var data = IntArray(4)
+        var size = 0
+            private set
+
+        operator fun get(index: Int) = data[index]
+
+        fun add(value: Int) {
+            if (size == data.size) data = data.copyOf(size * 2)
+            data[size++] = value
+        }
+    }
+
+    companion object {
+        private const val COMPACT_THRESHOLD = 200  // 日志条数达到该值时压缩
+    }
+}
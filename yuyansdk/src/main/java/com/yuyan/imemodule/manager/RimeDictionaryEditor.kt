@@ -2,11 +2,11 @@ package com.yuyan.imemodule.manager
 
 import android.content.Context
 import com.yuyan.imemodule.application.Launcher
-import java.io.File
 
 /**
  * Rime词库编辑器
  * 专门用于编辑繁简转换词库
+ * 词库由[OpenccDictStore]加载一次后常驻内存，修改以追加日志的方式保存。
  */
 object RimeDictionaryEditor {
     
@@ -28,172 +28,95 @@ object RimeDictionaryEditor {
         val traditional: String
     )
     
+    private val characterStore by lazy { OpenccDictStore(context, "STCharacters.txt") }
+    private val phraseStore by lazy { OpenccDictStore(context, "STPhrases.txt") }
+    
     /**
      * 加载繁简字词库
      */
     fun loadCharacterDictionary(): List<CharacterEntry> {
-        val entries = mutableListOf<CharacterEntry>()
-        
-        try {
-            val inputStream = context.assets.open("rime/opencc/STCharacters.txt")
-            val text = inputStream.bufferedReader().readText()
-            inputStream.close()
-            
-            text.lines().forEach { line ->
-                if (line.isNotBlank() && line.contains("\t")) {
-                    val parts = line.split("\t")
-                    if (parts.size >= 2) {
-                        val simplified = parts[0].trim()
-                        val traditional = parts[1].trim()
-                        entries.add(CharacterEntry(simplified, traditional))
-                    }
-                }
-            }
-        } catch (e: Exception) {
-            e.printStackTrace()
-        }
-        
-        return entries
+        return characterStore.entries().map { CharacterEntry(it.first, it.second) }
     }
     
     /**
      * 加载繁简词组词库
      */
     fun loadPhraseDictionary(): List<PhraseEntry> {
-        val entries = mutableListOf<PhraseEntry>()
-        
-        try {
-            val inputStream = context.assets.open("rime/opencc/STPhrases.txt")
-            val text = inputStream.bufferedReader().readText()
-            inputStream.close()
-            
-            text.lines().forEach { line ->
-                if (line.isNotBlank() && line.contains("\t")) {
-                    val parts = line.split("\t")
-                    if (parts.size >= 2) {
-                        val simplified = parts[0].trim()
-                        val traditional = parts[1].trim()
-                        entries.add(PhraseEntry(simplified, traditional))
-                    }
-                }
-            }
-        } catch (e: Exception) {
-            e.printStackTrace()
-        }
-        
-        return entries
+        return phraseStore.entries().map { PhraseEntry(it.first, it.second) }
     }
     
     /**
      * 更新繁简字词库
      */
     fun updateCharacterDictionary(entries: List<CharacterEntry>): Boolean {
-        return try {
-            val content = entries.joinToString("\n") { entry ->
-                "${entry.simplified}\t${entry.traditional}"
-            }
-            saveToExternalFile("STCharacters.txt", content)
-            true
-        } catch (e: Exception) {
-            e.printStackTrace()
-            false
-        }
+        return characterStore.replaceAll(entries.map { it.simplified to it.traditional })
     }
     
     /**
      * 更新繁简词组词库
      */
     fun updatePhraseDictionary(entries: List<PhraseEntry>): Boolean {
-        return try {
-            val content = entries.joinToString("\n") { entry ->
-                "${entry.simplified}\t${entry.traditional}"
-            }
-            saveToExternalFile("STPhrases.txt", content)
-            true
-        } catch (e: Exception) {
-            e.printStackTrace()
-            false
-        }
+        return phraseStore.replaceAll(entries.map { it.simplified to it.traditional })
     }
     
     /**
      * 添加繁简字条目
      */
     fun addCharacterEntry(simplified: String, traditional: String): Boolean {
-        val entries = loadCharacterDictionary().toMutableList()
-        entries.add(CharacterEntry(simplified, traditional))
-        return updateCharacterDictionary(entries)
+        return characterStore.put(simplified, traditional)
     }
     
     /**
      * 添加繁简词组条目
      */
     fun addPhraseEntry(simplified: String, traditional: String): Boolean {
-        val entries = loadPhraseDictionary().toMutableList()
-        entries.add(PhraseEntry(simplified, traditional))
-        return updatePhraseDictionary(entries)
+        return phraseStore.put(simplified, traditional)
     }
     
     /**
      * 删除繁简字条目
      */
     fun deleteCharacterEntry(simplified: String): Boolean {
-        val entries = loadCharacterDictionary().filter { it.simplified != simplified }
-        return updateCharacterDictionary(entries)
+        return characterStore.remove(simplified)
     }
     
     /**
      * 删除繁简词组条目
      */
     fun deletePhraseEntry(simplified: String): Boolean {
-        val entries = loadPhraseDictionary().filter { it.simplified != simplified }
-        return updatePhraseDictionary(entries)
+        return phraseStore.remove(simplified)
     }
     
     /**
      * 搜索繁简字
      */
-    fun searchCharacter(query: String): List<CharacterEntry> {
-        return loadCharacterDictionary().filter { 
-            it.simplified.contains(query) || it.traditional.contains(query) 
-        }
+    fun searchCharacter(query: String, limit: Int = Int.MAX_VALUE): List<CharacterEntry> {
+        return characterStore.search(query, limit).map { CharacterEntry(it.first, it.second) }
     }
     
     /**
      * 搜索繁简词组
      */
-    fun searchPhrase(query: String): List<PhraseEntry> {
-        return loadPhraseDictionary().filter { 
-            it.simplified.contains(query) || it.traditional.contains(query) 
-        }
+    fun searchPhrase(query: String, limit: Int = Int.MAX_VALUE): List<PhraseEntry> {
+        return phraseStore.search(query, limit).map { PhraseEntry(it.first, it.second) }
     }
     
     /**
-     * 获取词库统计信息
+     * 将日志中未写入词库文件的修改写入文件，OpenCC只读取词库文件，部署前(Kernel.resetIme)调用
      */
-    fun getDictionaryStatistics(): Map<String, Int> {
-        return mapOf(
-            "繁简字数量" to loadCharacterDictionary().size,
-            "繁简词组数量" to loadPhraseDictionary().size
-        )
+    fun flush(): Boolean {
+        val characterFlushed = characterStore.flush()
+        val phraseFlushed = phraseStore.flush()
+        return characterFlushed && phraseFlushed
     }
     
     /**
-     * 保存到外部文件
+     * 获取词库统计信息
      */
-    private fun saveToExternalFile(fileName: String, content: String): Boolean {
-        return try {
-            val externalDir = context.getExternalFilesDir("rime/opencc")
-            if (externalDir != null && !externalDir.exists()) {
-                externalDir.mkdirs()
-            }
-            
-            val file = File(externalDir, fileName)
-            file.writeText(content, Charsets.UTF_8)
-            true
-        } catch (e: Exception) {
-            e.printStackTrace()
-            false
-        }
+    fun getDictionaryStatistics(): Map<String, Int> {
+        return mapOf(
+            "繁简字数量" to characterStore.size,
+            "繁简词组数量" to phraseStore.size
+        )
     }
 }
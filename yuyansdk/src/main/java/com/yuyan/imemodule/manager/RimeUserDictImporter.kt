@@ -2,14 +2,28 @@ package com.yuyan.imemodule.manager
 
 import android.content.Context
 import android.net.Uri
+import com.yuyan.imemodule.application.CustomConstant
 import com.yuyan.imemodule.application.Launcher
+import com.yuyan.inputmethod.core.Kernel
 import com.yuyan.inputmethod.core.Rime
 import com.yuyan.inputmethod.util.T9PinYinUtils
+import kotlinx.coroutines.CancellationException
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.delay
+import kotlinx.coroutines.ensureActive
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.collectIndexed
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.flowOn
 import kotlinx.coroutines.withContext
+import java.io.BufferedInputStream
+import java.io.File
+import java.io.FilterInputStream
 import java.io.InputStream
+import java.nio.ByteBuffer
+import java.nio.CharBuffer
 import java.nio.charset.Charset
+import java.nio.charset.CodingErrorAction
 
 /**
  * 词库学习工具
@@ -25,10 +39,17 @@ import java.nio.charset.Charset
  * 2. 拼音 词语 (如: nihao 你好)
  * 3. 深蓝词库格式 (如: 你好	ni hao	1)
  * 4. T9数字格式 (如: 6446 你好)
+ *
+ * 另提供批量导入[importToCustomPhrase]：直接写入自定义短语表，可添加新词，不受上述限制。
  */
 object RimeUserDictImporter {
     
     private val context: Context get() = Launcher.instance.context
+    private const val CUSTOM_PHRASE_FILE = "custom_phrase.txt"  // Rime custom_phrase翻译器读取的自定义短语表
+    private const val PROGRESS_INTERVAL = 1000  // 批量导入时每处理多少条回调一次进度
+    private const val CHARSET_PROBE_SIZE = 8 * 1024  // 检测编码读取的文件开头字节数
+    private val SEPARATOR = Regex("[\t ]+")
+    private val PROBE_CHARSETS = listOf(Charsets.UTF_8, Charset.forName("GBK"), Charset.forName("Big5"))
     
     data class WordEntry(
         val word: String,
@@ -48,6 +69,7 @@ object RimeUserDictImporter {
     /**
      * 从txt文件学习词库
      * 通过模拟输入让学习已有词汇，提升词频
+     * 词条逐条从文件流式读取，先扫描一遍统计总数用于显示进度，重复的词条会重复学习。
      */
     suspend fun importFromTxt(
         uri: Uri,
@@ -55,12 +77,10 @@ object RimeUserDictImporter {
         onProgress: (Int, Int, String, ImportStats) -> Unit
     ): Result<ImportStats> = withContext(Dispatchers.IO) {
         try {
-            val inputStream = context.contentResolver.openInputStream(uri)
+            val total = openDict(uri)?.use { parse(it, isT9Mode).count() }
                 ?: return@withContext Result.failure(Exception("无法打开文件"))
-
-            val entries = inputStream.use { parseEntries(it, isT9Mode) }
             
-            if (entries.isEmpty()) {
+            if (total == 0) {
                 return@withContext Result.failure(Exception("词库为空或格式不正确"))
             }
             
@@ -69,16 +89,16 @@ object RimeUserDictImporter {
             var skippedCount = 0
             var failedCount = 0
             
-            entries.forEachIndexed { index, entry ->
+            entriesFlow(uri, isT9Mode).collectIndexed { index, entry ->
                 val currentStats = ImportStats(
-                    total = entries.size,
+                    total = total,
                     success = successCount,
                     skipped = skippedCount,
                     failed = failedCount
                 )
                 
                 withContext(Dispatchers.Main) {
-                    onProgress(index + 1, entries.size, entry.word, currentStats)
+                    onProgress(index + 1, total, entry.word, currentStats)
                 }
                 
                 when (val result = learnWord(entry)) {
@@ -109,23 +129,117 @@ object RimeUserDictImporter {
             }
             
             val finalStats = ImportStats(
-                total = entries.size,
+                total = total,
                 success = successCount,
                 skipped = skippedCount,
                 failed = failedCount
             )
             
             Result.success(finalStats)
+        } catch (e: CancellationException) {
+            throw e
         } catch (e: Exception) {
             e.printStackTrace()
             Result.failure(e)
         }
     }
     
+    /**
+     * 批量导入词库
+     * 不模拟输入，在IO线程将词条直接追加到用户目录下的custom_phrase.txt，已存在的词语与编码跳过，
+     * 写入完成后重启引擎使其生效。取消协程即中断导入，中断时不修改原文件。
+     * 词条流式读取并直接写入临时文件，内存中只保留用于去重的词语与编码。
+     * @param onProgress 已处理词条数、已读取字节数、文件总字节数(未知时为-1)
+     */
+    suspend fun importToCustomPhrase(
+        uri: Uri,
+        isT9Mode: Boolean = false,
+        onProgress: (Int, Long, Long) -> Unit
+    ): Result<ImportStats> = withContext(Dispatchers.IO) {
+        val file = File(CustomConstant.RIME_DICT_PATH, CUSTOM_PHRASE_FILE)
+        // 先写临时文件再替换，避免写入中断导致短语表损坏
+        val tempFile = File(file.parentFile, "$CUSTOM_PHRASE_FILE.tmp")
+        try {
+            val totalBytes = context.contentResolver.openAssetFileDescriptor(uri, "r")?.use { it.length } ?: -1L
+            val existing = HashSet<String>()  // 词语\t编码
+            var successCount = 0
+            var skippedCount = 0
+            var failedCount = 0
+            var processed = 0
+            tempFile.bufferedWriter().use { writer ->
+                if (file.exists()) {
+                    file.forEachLine { line ->
+                        writer.write(line)
+                        writer.newLine()
+                        if (!line.startsWith("#")) {
+                            val parts = line.split('\t')
+                            if (parts.size >= 2) existing.add(parts[0] + "\t" + parts[1])
+                        }
+                    }
+                } else {
+                    writer.write("# Rime table\n# coding: utf-8\n# 文字\t编码\t权重(可选)\n")
+                }
+                // 打开后立即交给use，避免复制已有短语时抛出异常导致流未关闭
+                val input = context.contentResolver.openInputStream(uri)?.let { CountingInputStream(it) }
+                    ?: throw Exception("无法打开文件")
+                input.use {
+                    for (entry in parse(it, isT9Mode)) {
+                        if (processed % PROGRESS_INTERVAL == 0) {
+                            ensureActive()
+                            val readBytes = it.count
+                            withContext(Dispatchers.Main) { onProgress(processed, readBytes, totalBytes) }
+                        }
+                        processed++
+                        val code = entry.pinyin.lowercase().filter { c -> c in 'a'..'z' }
+                        if (code.isEmpty()) {
+                            failedCount++
+                        } else if (!existing.add(entry.word + "\t" + code)) {
+                            skippedCount++
+                        } else {
+                            writer.write(if (entry.weight > 0) "${entry.word}\t$code\t${entry.weight}" else "${entry.word}\t$code")
+                            writer.newLine()
+                            successCount++
+                        }
+                    }
+                }
+            }
+            ensureActive()
+            if (processed == 0) {
+                tempFile.delete()
+                return@withContext Result.failure(Exception("词库为空或格式不正确"))
+            }
+            if (!tempFile.renameTo(file)) {
+                tempFile.delete()
+                return@withContext Result.failure(Exception("写入自定义短语失败"))
+            }
+            withContext(Dispatchers.Main) { onProgress(processed, totalBytes, totalBytes) }
+            Kernel.resetIme()
+            Result.success(ImportStats(processed, successCount, skippedCount, failedCount))
+        } catch (e: CancellationException) {
+            tempFile.delete()
+            throw e
+        } catch (e: Exception) {
+            tempFile.delete()
+            e.printStackTrace()
+            Result.failure(e)
+        }
+    }
+
     private enum class LearnResult {
         SUCCESS, SKIPPED, FAILED
     }
     
+    /**
+     * 以流的形式读取词库，逐条产生词条，需在IO线程收集
+     * Flow按需读取，收集方处理慢时不会继续读文件；内存占用与文件大小无关。
+     */
+    fun entriesFlow(uri: Uri, isT9Mode: Boolean = false): Flow<WordEntry> = flow {
+        val input = openDict(uri) ?: throw Exception("无法打开文件")
+        input.use { parse(it, isT9Mode).forEach { entry -> emit(entry) } }
+    }.flowOn(Dispatchers.IO)
+
+    private fun openDict(uri: Uri): InputStream? = context.contentResolver.openInputStream(uri)
+
     /**
      * 解析txt词库文件
      * 支持多种格式：
@@ -133,172 +247,102 @@ object RimeUserDictImporter {
      * 2. 拼音 词语 [权重]
      * 3. T9数字 词语
      * 4. 搜狗格式：'pin'yin 词语
+     *
+     * 返回惰性序列，单次遍历逐行读取，不保留已读内容，不去重。序列遍历结束前调用方负责关闭流。
      */
-    private fun parseEntries(inputStream: InputStream, isT9Mode: Boolean): List<WordEntry> {
-        val entries = mutableListOf<WordEntry>()
-
-        // 检测文件编码
-        val charset = detectCharset(inputStream)
-
-        // 重置流位置，因为detectCharset已经读取了部分内容
-        if (inputStream.markSupported()) {
-            inputStream.reset()
-        } else {
-            android.util.Log.w("RimeDictImporter", "InputStream doesn't support mark, charset detection may be inaccurate")
-        }
-
-        // 使用指定的字符集创建Reader，避免一次性加载整个文件到内存
-        val reader = inputStream.reader(charset)
-        val uniqueWords = mutableSetOf<String>() // 去重
+    private fun parse(inputStream: InputStream, isT9Mode: Boolean): Sequence<WordEntry> {
+        val input = BufferedInputStream(inputStream, CHARSET_PROBE_SIZE)
+        val charset = detectCharset(input)
+        val reader = input.bufferedReader(charset)
+        return generateSequence { reader.readLine() }.mapNotNull { line -> parseLine(line, isT9Mode) }
+    }
 
-        reader.useLines { lines ->
-            lines.forEachIndexed { lineNum, line -> 
-            try {
-                if (line.isBlank() || line.startsWith("#") || line.startsWith("//")) {
-                    return@forEachIndexed
-                }
-                
-                // 清理行首行尾空白
-                val cleanLine = line.trim()
-                
-                // 尝试多种分隔符（Tab、空格、逗号），但保留拼音中的单引号
-                val parts = cleanLine.split(Regex("[\t ]+")).filter { it.isNotBlank() }
-                
-                // 调试日志
-                android.util.Log.d("RimeDictImporter", "Line $lineNum: '$cleanLine' -> parts: ${parts.joinToString("|")}")
-                
-                if (parts.size < 2) {
-                    android.util.Log.d("RimeDictImporter", "  SKIP: parts.size < 2")
-                    return@forEachIndexed
-                }
-                
-                // 检查各个条件（添加字符码点调试）
-                android.util.Log.d("RimeDictImporter", "  isT9Mode: $isT9Mode")
-                android.util.Log.d("RimeDictImporter", "  parts[0]: '${parts[0]}' isDigit: ${parts[0].all { it.isDigit() }} isAlpha: ${isAlpha(parts[0])} isChinese: ${isChinese(parts[0])}")
-                android.util.Log.d("RimeDictImporter", "  parts[1]: '${parts[1]}' isChinese: ${isChinese(parts[1])} isAlpha: ${isAlpha(parts[1])}")
-                // 打印字符的Unicode码点来判断真实字符
-                if (parts[1].isNotEmpty()) {
-                    val codePoints = parts[1].take(3).map { "U+${it.code.toString(16).uppercase()}" }.joinToString(" ")
-                    android.util.Log.d("RimeDictImporter", "  parts[1] codePoints: $codePoints")
-                }
-                
-                val entry = when {
-                    // T9模式：数字 词语
-                    isT9Mode && parts[0].all { it.isDigit() } && isChinese(parts[1]) -> {
-                        android.util.Log.d("RimeDictImporter", "  MATCH: T9 mode")
-                        val t9Code = parts[0]
-                        val word = parts[1]
-                        val pinyinArray = T9PinYinUtils.t9KeyToPinyin(t9Code)
-                        val pinyin = pinyinArray.firstOrNull()
-                        if (pinyin.isNullOrBlank()) {
-                            null  // T9转拼音失败，跳过此条
-                        } else {
-                            val weight = parts.getOrNull(2)?.toIntOrNull() ?: 0
-                            WordEntry(word, pinyin, weight)
-                        }
-                    }
-                    // 词语 拼音 [权重]
-                    isChinese(parts[0]) && isAlpha(parts[1]) -> {
-                        android.util.Log.d("RimeDictImporter", "  MATCH: 词语 拼音")
-                        val word = parts[0]
-                        // 搜狗拼音格式：单引号转为空格（音节分隔）
-                        val pinyin = parts[1].replace("'", " ").trim()
-                        val weight = parts.getOrNull(2)?.toIntOrNull() ?: 0
-                        WordEntry(word, pinyin, weight)
-                    }
-                    // 拼音 词语 [权重]（搜狗格式：'pin'yin 词语）
-                    isAlpha(parts[0]) && isChinese(parts[1]) -> {
-                        android.util.Log.d("RimeDictImporter", "  MATCH: 拼音 词语 (pinyin='${parts[0]}')")
-                        // 搜狗拼音格式：单引号转为空格（音节分隔）
-                        val pinyin = parts[0].replace("'", " ").trim()
-                        android.util.Log.d("RimeDictImporter", "  Converted pinyin: '$pinyin'")
-                        val word = parts[1]
-                        val weight = parts.getOrNull(2)?.toIntOrNull() ?: 0
-                        WordEntry(word, pinyin, weight)
-                    }
-                    // T9数字 词语（自动检测）
-                    parts[0].all { it.isDigit() } && parts[0].length in 2..6 && isChinese(parts[1]) -> {
-                        android.util.Log.d("RimeDictImporter", "  MATCH: T9 auto detect")
-                        val t9Code = parts[0]
-                        val word = parts[1]
-                        val pinyinArray = T9PinYinUtils.t9KeyToPinyin(t9Code)
-                        val pinyin = pinyinArray.firstOrNull()
-                        if (pinyin.isNullOrBlank()) {
-                            null  // T9转拼音失败，跳过此条
-                        } else {
-                            val weight = parts.getOrNull(2)?.toIntOrNull() ?: 0
-                            WordEntry(word, pinyin, weight)
-                        }
-                    }
-                    else -> {
-                        android.util.Log.d("RimeDictImporter", "  NO MATCH - skipped")
-                        null
-                    }
+    private fun parseLine(line: String, isT9Mode: Boolean): WordEntry? {
+        try {
+            if (line.isBlank() || line.startsWith("#") || line.startsWith("//")) {
+                return null
+            }
+            // 以Tab或空格分隔，保留拼音中的单引号
+            val parts = line.trim().split(SEPARATOR).filter { it.isNotBlank() }
+            if (parts.size < 2) {
+                return null
+            }
+            return when {
+                // T9模式：数字 词语
+                isT9Mode && parts[0].all { it.isDigit() } && isChinese(parts[1]) -> t9Entry(parts)
+                // 词语 拼音 [权重]
+                isChinese(parts[0]) && isAlpha(parts[1]) -> {
+                    // 搜狗拼音格式：单引号转为空格（音节分隔）
+                    val pinyin = parts[1].replace("'", " ").trim()
+                    WordEntry(parts[0], pinyin, parts.getOrNull(2)?.toIntOrNull() ?: 0)
                 }
-                
-                // 去重并添加
-                if (entry != null && entry.word !in uniqueWords) {
-                    uniqueWords.add(entry.word)
-                    entries.add(entry)
+                // 拼音 词语 [权重]（搜狗格式：'pin'yin 词语）
+                isAlpha(parts[0]) && isChinese(parts[1]) -> {
+                    val pinyin = parts[0].replace("'", " ").trim()
+                    WordEntry(parts[1], pinyin, parts.getOrNull(2)?.toIntOrNull() ?: 0)
                 }
-            } catch (e: Exception) {
-                // 忽略解析错误的行
+                // T9数字 词语（自动检测）
+                parts[0].all { it.isDigit() } && parts[0].length in 2..6 && isChinese(parts[1]) -> t9Entry(parts)
+                else -> null
             }
+        } catch (e: Exception) {
+            return null  // 忽略解析错误的行
         }
-        }
+    }
 
-        return entries
+    private fun t9Entry(parts: List<String>): WordEntry? {
+        val pinyin = T9PinYinUtils.t9KeyToPinyin(parts[0]).firstOrNull()
+        if (pinyin.isNullOrBlank()) return null  // T9转拼音失败，跳过此条
+        return WordEntry(parts[1], pinyin, parts.getOrNull(2)?.toIntOrNull() ?: 0)
     }
 
     /**
-     * 检测文件编码，避免一次性读取整个文件到内存
+     * 检测文件编码，只读取文件开头[CHARSET_PROBE_SIZE]字节，读取后回到流的开头
+     * 优先识别BOM，否则按UTF-8、GBK、Big5的顺序严格解码，都失败时使用GB18030
      */
-    private fun detectCharset(inputStream: InputStream): Charset {
-        // 尝试多种编码，只读取文件开头的一部分进行检测
-        val charsets = listOf(
-            Charset.forName("GBK"),      // 尝试GBK优先
-            Charset.forName("GB2312"),   // 然后GB2312
-            Charsets.UTF_8,              // 最后UTF-8
-            Charset.forName("Big5"),     // 繁体中文
-            Charsets.ISO_8859_1
-        )
-
-        // 读取文件开头的一部分用于编码检测
-        val buffer = ByteArray(1024) // 只读取1KB用于检测
-        val bytesRead = inputStream.read(buffer)
-        val sampleBytes = if (bytesRead > 0) buffer.copyOf(bytesRead) else ByteArray(0)
-
-        android.util.Log.d("RimeDictImporter", "Sample size: ${sampleBytes.size} bytes")
-
-        var bestCharset = Charsets.UTF_8
-        var minReplacementRatio = Double.MAX_VALUE
+    private fun detectCharset(input: BufferedInputStream): Charset {
+        input.mark(CHARSET_PROBE_SIZE)
+        val buffer = ByteArray(CHARSET_PROBE_SIZE)
+        var length = 0
+        while (length < buffer.size) {
+            val read = input.read(buffer, length, buffer.size - length)
+            if (read < 0) break
+            length += read
+        }
+        input.reset()
+        if (length >= 3 && buffer[0] == 0xEF.toByte() && buffer[1] == 0xBB.toByte() && buffer[2] == 0xBF.toByte()) {
+            input.skip(3)
+            return Charsets.UTF_8
+        }
+        if (length >= 2 && ((buffer[0] == 0xFF.toByte() && buffer[1] == 0xFE.toByte()) || (buffer[0] == 0xFE.toByte() && buffer[1] == 0xFF.toByte()))) {
+            return Charsets.UTF_16  // 搜狗导出的词库多为带BOM的UTF-16
+        }
+        for (charset in PROBE_CHARSETS) {
+            if (canDecode(buffer, length, charset)) return charset
+        }
+        return Charset.forName("GB18030")
+    }
 
-        for (charset in charsets) {
-            try {
-                val text = String(sampleBytes, charset)
-                // 检查替换字符的比例
-                val fffdCount = text.count { it == '\uFFFD' }
-                val ratio = if (text.isNotEmpty()) fffdCount.toDouble() / text.length else 0.0
+    private fun canDecode(bytes: ByteArray, length: Int, charset: Charset): Boolean {
+        val decoder = charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT)
+        // endOfInput为false，截断在末尾的多字节字符不算解码错误
+        return !decoder.decode(ByteBuffer.wrap(bytes, 0, length), CharBuffer.allocate(length), false).isError
+    }
 
-                android.util.Log.d("RimeDictImporter", "Charset $charset: replacement ratio=$ratio")
+    /**
+     * 统计已读取的字节数，用于显示导入进度
+     */
+    private class CountingInputStream(input: InputStream) : FilterInputStream(input) {
+        var count = 0L
+            private set
 
-                if (ratio < minReplacementRatio) {
-                    minReplacementRatio = ratio
-                    bestCharset = charset
-                }
+        override fun read(): Int = super.read().also { if (it >= 0) count++ }
 
-                // 如果替换字符很少，认为找到了正确的编码
-                if (ratio < 0.1) {
-                    android.util.Log.d("RimeDictImporter", "✅ Selected charset: $charset (ratio=$ratio)")
-                    return charset
-                }
-            } catch (e: Exception) {
-                android.util.Log.d("RimeDictImporter", "❌ Failed with $charset: ${e.message}")
-            }
-        }
+        override fun read(b: ByteArray, off: Int, len: Int): Int = super.read(b, off, len).also { if (it > 0) count += it }
 
-        android.util.Log.w("RimeDictImporter", "⚠️ No perfect charset found, using $bestCharset (ratio=$minReplacementRatio)")
-        return bestCharset
+        override fun skip(n: Long): Long = super.skip(n).also { count += it }
     }
 
     /**
@@ -403,20 +447,19 @@ object RimeUserDictImporter {
     
     /**
      * 选择词库文件（读取前100条）
+     * 只读取到第100条为止，不读取文件剩余部分
      */
-    suspend fun previewDict(uri: Uri): Result<List<WordEntry>> = withContext(Dispatchers.IO) {
+    suspend fun previewDict(uri: Uri, limit: Int = 100): Result<List<WordEntry>> = withContext(Dispatchers.IO) {
         try {
-            val inputStream = context.contentResolver.openInputStream(uri)
+            val inputStream = openDict(uri)
                 ?: return@withContext Result.failure(Exception("无法打开文件"))
             
             // 尝试自动检测T9模式
-            val entries = parseEntries(inputStream, false)
-            inputStream.close()
+            val entries = inputStream.use { parse(it, false).take(limit).toList() }
             
-            Result.success(entries.take(100))
+            Result.success(entries)
         } catch (e: Exception) {
             Result.failure(e)
         }
     }
 }
-
@@ -49,6 +49,15 @@ object UserDataManager {
     private val dataBasesDir = File(Launcher.instance.context.applicationInfo.dataDir, "databases")
     private val externalDir = Launcher.instance.context.getExternalFilesDir(null)!!
 
+    /**
+     * 备份与同步的目录，备份中的目录名 -> 本地目录
+     */
+    val fileTrees: Map<String, File> get() = mapOf(
+        "shared_prefs" to sharedPrefsDir,
+        "databases" to dataBasesDir,
+        "external" to externalDir
+    )
+
     @OptIn(ExperimentalSerializationApi::class)
     fun export(dest: OutputStream, timestamp: Long = System.currentTimeMillis()) = runCatching {
         android.util.Log.d("UserDataManager", "Starting export process...")
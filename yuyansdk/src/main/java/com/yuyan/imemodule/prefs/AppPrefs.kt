@@ -17,6 +17,7 @@ import com.yuyan.imemodule.prefs.behavior.FullDisplayKeyMode
 import com.yuyan.imemodule.prefs.behavior.HalfWidthSymbolsMode
 import com.yuyan.imemodule.prefs.behavior.KeyboardOneHandedMod
 import com.yuyan.imemodule.utils.DevicesUtils
+import com.yuyan.inputmethod.core.Rime
 
 
 class AppPrefs(private val sharedPreferences: SharedPreferences) {
@@ -31,6 +32,7 @@ class AppPrefs(private val sharedPreferences: SharedPreferences) {
         val voiceModelId = string("voice_model_id", "builtin_zh")  // 语音识别模型ID（仅内部存储）
         val candidatesHeightRatio = float("candidates_height_ratio", 0.035f)     //候选词栏高度比例
         val candidatesHeightRatioLandscape = float("candidates_height_ratio_landscape", 0.06f)     //候选词栏高度比例:横屏
+        val candidatesPageSize = int("candidates_page_size", Rime.DEFAULT_CANDIDATE_PAGE_SIZE)     //每次按键拉取的首屏候选词数量
         val keyboardModeFloat = bool("keyboard_mode_float", false)     // 悬浮模式
         val keyboardModeFloatLandscape = bool("keyboard_mode_float_landscape", false)// 悬浮模式:横屏
         val keyboardBottomPaddingFloat = int("keyboard_padding_bottom", DevicesUtils.dip2px(100))     //竖屏悬浮模式底边距
@@ -92,6 +94,12 @@ class AppPrefs(private val sharedPreferences: SharedPreferences) {
             R.string.chinese_association_date, "chinese_association_date_enable", true
         )
 
+        val phrasePrefixMatch = switch(
+            R.string.phrase_prefix_match, "phrase_prefix_match_enable", false, R.string.phrase_prefix_match_tips
+        ){
+            chinesePredictionDate.getValue()
+        }
+
         val titleEnglish = category(R.string.EnglishInput)
 
         //输出英文单词:英文补全
@@ -211,6 +219,7 @@ class AppPrefs(private val sharedPreferences: SharedPreferences) {
 
     inner class Other : ManagedPreferenceCategory(R.string.setting_ime_other, sharedPreferences) {
         val imeHideIcon = switch(R.string.ime_hide_icon, "ime_hide_icon_enable", false, R.string.ime_hide_icon_tips)
+        val asyncDecoding = switch(R.string.async_decoding, "async_decoding_enable", false, R.string.async_decoding_tips)
     }
     
     inner class WebDAV : ManagedPreferenceInternal(sharedPreferences) {
@@ -222,6 +231,7 @@ class AppPrefs(private val sharedPreferences: SharedPreferences) {
         val autoSync = bool("webdav_auto_sync", false)
         val syncOnWifiOnly = bool("webdav_sync_wifi_only", true)
         val ignoreSSLCert = bool("webdav_ignore_ssl_cert", false)
+        val incrementalSync = bool("webdav_incremental_sync", false)  // 增量同步，否则上传下载完整的zip备份
         val lastSyncTime = long("webdav_last_sync_time", 0L)
         val lastSyncSuccess = bool("webdav_last_sync_success", false)
     }
@@ -1,18 +1,48 @@
 package com.yuyan.imemodule.service
 
 import android.content.ClipboardManager.OnPrimaryClipChangedListener
+import androidx.room.withTransaction
 import com.yuyan.imemodule.application.Launcher
 import com.yuyan.imemodule.database.DataBaseKT
 import com.yuyan.imemodule.database.entry.Clipboard
 import com.yuyan.imemodule.prefs.AppPrefs
+import com.yuyan.imemodule.utils.LogUtil
 import com.yuyan.imemodule.utils.clipboardManager
-import kotlin.math.max
+import com.yuyan.imemodule.utils.thread.ThreadPoolUtils
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.asCoroutineDispatcher
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
 
 /**
  * 剪切板监听
  * 移除使用广播监听方式，解决部分手机后台无法启动监听服务异常(API level 31)。
+ *
+ * 剪切板内容先写入内存缓冲区，相同内容去重，[FLUSH_DELAY]内的连续事件合并为一批，
+ * 在后台单线程中一次事务写入并裁剪历史记录，避免应用频繁写剪切板时反复操作数据库。
  */
 object ClipboardHelper : OnPrimaryClipChangedListener {
+    private const val TAG = "ClipboardHelper"
+    private const val FLUSH_DELAY = 300L  // 合并连续剪切板事件的时间窗口(毫秒)
+    private val scope = CoroutineScope(SupervisorJob() + ThreadPoolUtils.newSingletonExecutor("ClipboardHelper").asCoroutineDispatcher())
+    private val pending = LinkedHashMap<String, Long>()  // 待写入内容 -> 复制时间，按复制顺序排列
+    private var flushJob: Job? = null
+
+    // 统计：收到的事件数、相同内容去重数、写入批次数
+    var receivedCount = 0L
+        private set
+    var dedupedCount = 0L
+        private set
+    var batchCount = 0L
+        private set
+
+    // 未单独写库、被合并进其他批次的事件数(含尚未写入的事件)
+    val collapsedCount: Long
+        get() = receivedCount - batchCount
 
     fun init() {
         Launcher.instance.context.clipboardManager.addPrimaryClipChangedListener(this)
@@ -24,14 +54,47 @@ object ClipboardHelper : OnPrimaryClipChangedListener {
            val item = Launcher.instance.context.clipboardManager.primaryClip?.getItemAt(0)
             item?.takeIf { it.text?.isNotBlank() == true }?.let {
                     val data = it.text.toString().take(20000)
-                    DataBaseKT.instance.clipboardDao().insert(Clipboard(content = data))
-                    val num = max(DataBaseKT.instance.clipboardDao().getCount() - AppPrefs.getInstance().clipboard.clipboardHistoryLimit.getValue(), 0)
-                    DataBaseKT.instance.clipboardDao().deleteOldest(num)
-                    if (AppPrefs.getInstance().clipboard.clipboardSuggestion.getValue()) {
-                        AppPrefs.getInstance().internal.clipboardUpdateTime.setValue(System.currentTimeMillis())
-                        AppPrefs.getInstance().internal.clipboardUpdateContent.setValue(data)
-                    }
+                    enqueue(data)
+                }
+        }
+    }
+
+    private fun enqueue(data: String) {
+        synchronized(pending) {
+            receivedCount++
+            if (pending.remove(data) != null) dedupedCount++
+            pending[data] = System.currentTimeMillis()
+            if (flushJob?.isActive != true) {
+                flushJob = scope.launch {
+                    delay(FLUSH_DELAY)
+                    flush()
                 }
+            }
+        }
+    }
+
+    private suspend fun flush() {
+        val batch = synchronized(pending) {
+            val items = pending.map { (content, time) -> Clipboard(content = content, time = time) }
+            pending.clear()
+            flushJob = null  // 写库期间的新事件另起一批
+            items
+        }
+        if (batch.isEmpty()) return
+        val newest = batch.last()
+        val limit = AppPrefs.getInstance().clipboard.clipboardHistoryLimit.getValue()
+        val dao = DataBaseKT.instance.clipboardDao()
+        DataBaseKT.instance.withTransaction {
+            dao.insertAllAsync(batch)
+            dao.trimAsync(limit)
+        }
+        batchCount++
+        LogUtil.d(TAG, "received=$receivedCount, deduped=$dedupedCount, collapsed=$collapsedCount, batches=$batchCount")
+        if (AppPrefs.getInstance().clipboard.clipboardSuggestion.getValue()) {
+            withContext(Dispatchers.Main) {
+                AppPrefs.getInstance().internal.clipboardUpdateTime.setValue(newest.time)
+                AppPrefs.getInstance().internal.clipboardUpdateContent.setValue(newest.content)
+            }
         }
     }
 }
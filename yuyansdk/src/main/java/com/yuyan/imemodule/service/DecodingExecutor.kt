@@ -0,0 +1,150 @@
+package com.yuyan.imemodule.service
+
+import android.os.Handler
+import android.os.Looper
+import android.view.KeyEvent
+import com.yuyan.imemodule.prefs.AppPrefs
+import com.yuyan.imemodule.utils.thread.ThreadPoolUtils
+import com.yuyan.inputmethod.core.Kernel
+import com.yuyan.inputmethod.data.CandidateBuffer
+import java.util.ArrayDeque
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+
+/**
+ * 后台解码线程
+ *
+ * 按键(输入、删除)进入队列后由单线程依次交给引擎处理，UI线程只负责渲染结果。
+ * 队列中连续的按键会被合并：只有最后一个按键拉取候选词并发布到[DecodingInfo.candidatesLiveData]，
+ * 中间按键只做引擎按键处理，不拉取候选词、不查询常用语。
+ * 关闭[AppPrefs.Other.asyncDecoding]时仍使用原有的同步解码流程，便于对比延迟。
+ */
+object DecodingExecutor {
+
+    private sealed class DecodeAction {
+        class Input(val event: KeyEvent) : DecodeAction()
+        class Delete(val onComposingEmpty: () -> Unit) : DecodeAction()
+    }
+
+    private val executor = ThreadPoolUtils.newSingletonExecutor("DecodingExecutor")
+    private val mainHandler = Handler(Looper.getMainLooper())
+    private val pendingActions = ArrayDeque<DecodeAction>()
+    private var onDecodedCallback: (() -> Unit)? = null
+    @Volatile private var inFlight = 0  // 已入队但尚未发布结果的按键数
+    private var decodedSincePublish = 0  // 解码线程上已处理但尚未发布的按键数
+    private var countedGeneration = 0  // decodedSincePublish所属的发布批次，仅解码线程访问
+    @Volatile private var generation = 0  // 发布批次，flush后丢弃过期结果
+    private const val FLUSH_TIMEOUT_MS = 200L  // flush在UI线程等待队列处理完毕的上限
+
+    val isEnabled: Boolean
+        get() = AppPrefs.getInstance().other.asyncDecoding.getValue()
+
+    /**
+     * 是否有尚未发布结果的按键
+     */
+    val hasPending: Boolean
+        get() = inFlight > 0
+
+    /**
+     * 增加拼写字符
+     * @param onDecoded 结果发布到[DecodingInfo.candidatesLiveData]后在UI线程回调
+     */
+    fun input(event: KeyEvent, onDecoded: () -> Unit) {
+        enqueue(DecodeAction.Input(event), onDecoded)
+    }
+
+    /**
+     * 删除
+     * @param onComposingEmpty 轮到该删除时引擎已无输入(之前的删除已清空拼写)，在UI线程回调，由调用方删除编辑框中的字符
+     * @param onDecoded 结果发布到[DecodingInfo.candidatesLiveData]后在UI线程回调
+     */
+    fun delete(onComposingEmpty: () -> Unit, onDecoded: () -> Unit) {
+        enqueue(DecodeAction.Delete(onComposingEmpty), onDecoded)
+    }
+
+    /**
+     * 在解码线程执行任务，排在已入队的按键之后
+     */
+    fun execute(task: Runnable) {
+        executor.execute(task)
+    }
+
+    private fun enqueue(action: DecodeAction, onDecoded: () -> Unit) {
+        synchronized(pendingActions) {
+            pendingActions.addLast(action)
+            onDecodedCallback = onDecoded
+            inFlight++
+        }
+        executor.execute { drain() }
+    }
+
+    private fun drain() {
+        while (true) {
+            val action: DecodeAction
+            val isLast: Boolean
+            val actionGeneration: Int
+            synchronized(pendingActions) {
+                action = pendingActions.pollFirst() ?: return
+                isLast = pendingActions.isEmpty()
+                actionGeneration = generation
+            }
+            // flush后开始新的批次，之前批次的计数已随inFlight一起清零
+            if (actionGeneration != countedGeneration) {
+                countedGeneration = actionGeneration
+                decodedSincePublish = 0
+            }
+            decodedSincePublish++
+            // 后续还有按键时不刷新候选词，由队列中最后一个按键统一刷新
+            val published = when (action) {
+                is DecodeAction.Input -> Kernel.inputKeyCode(action.event, isLast)
+                is DecodeAction.Delete -> if (Kernel.isComposing) {
+                    Kernel.deleteAction(isLast)
+                } else {
+                    // 拼写已被之前的删除清空，同步流程下该删除会作用于编辑框，不能交给引擎丢弃。
+                    // 不受flush影响：按键已经发生，必须送达编辑框
+                    mainHandler.post(action.onComposingEmpty)
+                    isLast  // 引擎无输入时候选词已刷新，最后一个按键直接发布
+                }
+            }
+            if (published) publish(actionGeneration)
+        }
+    }
+
+    private fun publish(publishGeneration: Int) {
+        val candidates = Kernel.acquireCandidates()  // 持有缓冲区引用，界面换用前引擎不会复用
+        val callback = synchronized(pendingActions) { onDecodedCallback }
+        val processed = decodedSincePublish
+        decodedSincePublish = 0
+        mainHandler.post {
+            if (publishGeneration != generation) {
+                (candidates as? CandidateBuffer)?.release()
+                return@post
+            }
+            synchronized(pendingActions) { inFlight -= processed }
+            DecodingInfo.publishCandidates(candidates)
+            callback?.invoke()
+        }
+    }
+
+    /**
+     * 等待队列中的按键处理完毕，并丢弃尚未发布的结果，之后可直接同步读取引擎状态。
+     * 等待不超过[FLUSH_TIMEOUT_MS]，超时后丢弃尚未开始处理的按键，正在处理的按键由[Kernel]的同步锁排在调用方之前完成，
+     * 避免引擎处理缓慢时长时间阻塞UI线程。
+     * 需在UI线程调用。
+     * @return 是否存在被丢弃的结果，调用方需同步刷新候选词
+     */
+    fun flush(): Boolean {
+        if (inFlight == 0) return false
+        try {
+            executor.submit {}.get(FLUSH_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+        } catch (e: TimeoutException) {
+            // 超时：下方清空队列，已提交的空任务在解码线程空闲后执行，无副作用
+        }
+        synchronized(pendingActions) {
+            pendingActions.clear()
+            inFlight = 0
+            generation++
+        }
+        return true
+    }
+}
@@ -1,9 +1,12 @@
 package com.yuyan.imemodule.service
 
+import android.os.Handler
+import android.os.Looper
 import android.view.KeyEvent
 import androidx.lifecycle.MutableLiveData
 import com.yuyan.inputmethod.core.CandidateListItem
 import com.yuyan.inputmethod.core.Kernel
+import com.yuyan.inputmethod.data.CandidateBuffer
 
 /**
  * 词库解码操作对象
@@ -12,7 +15,8 @@ object DecodingInfo {
 
     var activeCandidate = 0  //当前显示候选词位置
     var activeCandidateBar = 0  //当前显示候选词位置
-    // 候选词列表
+    private val mainHandler = Handler(Looper.getMainLooper())
+    // 候选词列表，只通过[publishCandidates]更新
     val candidatesLiveData = MutableLiveData<List<CandidateListItem>>()
 
     // 是否是联想词
@@ -24,14 +28,25 @@ object DecodingInfo {
      * 重置
      */
     fun reset() {
+        DecodingExecutor.flush()
         isAssociate = false
         isReset = true
         activeCandidate = 0
         activeCandidateBar = 0
-        candidatesLiveData.value = emptyList()
+        publishCandidates(emptyList())
         Kernel.reset()
     }
 
+    /**
+     * 在UI线程发布候选词。[candidates]为引擎的缓冲区时由界面持有一次引用，换用下一个列表时释放旧缓冲区，
+     * 之后引擎才能复用它，因此界面读取的列表在发布期间不会被改写
+     */
+    fun publishCandidates(candidates: List<CandidateListItem>) {
+        val old = candidatesLiveData.value
+        candidatesLiveData.value = candidates
+        (old as? CandidateBuffer)?.release()
+    }
+
     val isCandidatesListEmpty: Boolean
         // 候选词列表是否为空
         get() = candidatesLiveData.value.isNullOrEmpty()
@@ -58,11 +73,30 @@ object DecodingInfo {
         isAssociate = false
     }
 
+    /**
+     * 增加拼写字符(后台解码)，候选词发布后回调[onDecoded]
+     */
+    fun inputActionAsync(event: KeyEvent, onDecoded: () -> Unit) {
+        isReset = false
+        activeCandidate = 0
+        activeCandidateBar = 0
+        isAssociate = false
+        DecodingExecutor.input(event, onDecoded)
+    }
+
+    /**
+     * 等待后台解码完成，丢弃未发布的结果并同步刷新候选词
+     */
+    private fun awaitDecoding() {
+        if (DecodingExecutor.flush()) publishCandidates(Kernel.acquireCandidates())
+    }
+
     /**
      * 选择拼音
      * @param position 选择的position
      */
     fun selectPrefix(position: Int) {
+        awaitDecoding()
         activeCandidate = 0
         activeCandidateBar = 0
         Kernel.selectPrefix(position)
@@ -84,11 +118,26 @@ object DecodingInfo {
         }
     }
 
+    /**
+     * 删除(后台解码)，候选词发布后回调[onDecoded]。
+     * 排队的删除执行时拼写已空，则回调[onComposingEmpty]，由调用方像同步流程一样删除编辑框中的字符
+     */
+    fun deleteActionAsync(onComposingEmpty: () -> Unit, onDecoded: () -> Unit) {
+        activeCandidate = 0
+        activeCandidateBar = 0
+        if ((isEngineFinish && !DecodingExecutor.hasPending) || isAssociate) {
+            reset()
+            onDecoded()
+        } else {
+            DecodingExecutor.delete(onComposingEmpty, onDecoded)
+        }
+    }
+
     val isFinish: Boolean
         get() = isEngineFinish && isCandidatesListEmpty
 
     val isEngineFinish: Boolean
-        get() = Kernel.isFinish
+        get() = !DecodingExecutor.hasPending && Kernel.isFinish
 
     val composingStrForDisplay: String   //获取显示的拼音字符串/
         get() = Kernel.wordsShowPinyin
@@ -96,28 +145,60 @@ object DecodingInfo {
     val composingStrForCommit: String   // 获取输入的拼音字符串
         get() = Kernel.wordsShowPinyin.replace("'", "").ifEmpty { getCandidate(0)?.text?:""}
 
-    val nextPageCandidates: Int   // 获取下一页的候选词
-        get() {
-            val cands = Kernel.nextPageCandidates
-            if (cands.isNotEmpty()) {
-                candidatesLiveData.postValue(candidatesLiveData.value?.plus(cands))
-                return cands.size
+    /**
+     * 拉取下一页候选词(滑动到末尾时)，可在任意线程调用
+     */
+    fun loadNextPage() {
+        mainHandler.post { loadCandidatesUntil(candidateSize + 1) }
+    }
+
+    /**
+     * 在解码线程按页拉取候选词，直到候选词数量不少于[minCount]或没有更多候选词。
+     * 排在已入队的按键之后执行，拉取期间引擎状态或候选词列表发生变化时丢弃结果，合并在UI线程进行。
+     * 需在UI线程调用。
+     */
+    fun loadCandidatesUntil(minCount: Int) {
+        // 有未发布的按键时，当前列表与引擎状态不一致，不能在其后追加
+        if (DecodingExecutor.hasPending) return
+        val current = candidatesLiveData.value ?: return
+        if (current.size >= minCount || !Kernel.hasMoreCandidates) return
+        val version = Kernel.stateVersion
+        DecodingExecutor.execute {
+            val loaded = mutableListOf<CandidateListItem>()
+            var total = current.size
+            while (total < minCount) {
+                val cands = Kernel.nextPageCandidates(version) ?: return@execute
+                if (cands.isEmpty()) break
+                loaded.addAll(cands)
+                total += cands.size
+            }
+            if (loaded.isEmpty()) return@execute
+            mainHandler.post {
+                if (version != Kernel.stateVersion || candidatesLiveData.value !== current) return@post
+                // 合并到新的缓冲区，不引用当前缓冲区的候选词对象，当前缓冲区释放后可被复用
+                val merged = CandidateBuffer.obtain()
+                merged.addAll(current)
+                merged.addAll(loaded)
+                publishCandidates(merged)
             }
-            return 0
         }
+    }
 
     /**
      * 选择一个候选词，且重新获取候选词列表
      */
     fun chooseDecodingCandidate(candId: Int): String {
+        awaitDecoding()
         activeCandidate = 0
         activeCandidateBar = 0
         if (candId >= 0) Kernel.getWordSelectedWord(candId)
-        val newCandidates = Kernel.candidates
-        return if(newCandidates.isNotEmpty()){
-            candidatesLiveData.value = newCandidates
-            Kernel.commitText
-        } else if(candId in 0..<candidateSize){
+        val newCandidates = Kernel.acquireCandidates()
+        if(newCandidates.isNotEmpty()){
+            publishCandidates(newCandidates)
+            return Kernel.commitText
+        }
+        (newCandidates as? CandidateBuffer)?.release()
+        return if(candId in 0..<candidateSize){
             Kernel.commitText.ifEmpty { candidatesLiveData.value!![candId].text }
         } else ""
     }
@@ -128,13 +209,14 @@ object DecodingInfo {
     fun updateDecodingCandidate() {
         activeCandidate = 0
         activeCandidateBar = 0
-        candidatesLiveData.value = Kernel.candidates
+        publishCandidates(Kernel.acquireCandidates())
     }
 
     /**
      * 获得指定的候选词
      */
     fun getCandidate(candId: Int): CandidateListItem? {
+        awaitDecoding()
         return candidatesLiveData.value?.getOrNull(candId)
     }
 
@@ -143,7 +225,7 @@ object DecodingInfo {
         activeCandidate = 0
         activeCandidateBar = 0
         isReset = false
-        candidatesLiveData.value = words.asList()
+        publishCandidates(words.asList())
     }
 
     /**
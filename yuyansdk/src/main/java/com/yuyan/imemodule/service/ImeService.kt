@@ -1,5 +1,10 @@
 package com.yuyan.imemodule.service
 
+import android.Manifest
+import android.content.BroadcastReceiver
+import android.content.Context
+import android.content.Intent
+import android.content.IntentFilter
 import android.content.res.Configuration
 import android.inputmethodservice.InputMethodService
 import android.os.SystemClock
@@ -9,6 +14,7 @@ import android.view.KeyEvent
 import android.view.View
 import android.view.ViewGroup
 import android.view.inputmethod.EditorInfo
+import androidx.core.content.ContextCompat
 import com.yuyan.imemodule.data.emojicon.YuyanEmojiCompat
 import com.yuyan.imemodule.data.theme.Theme
 import com.yuyan.imemodule.data.theme.ThemeManager.OnThemeChangeListener
@@ -18,10 +24,11 @@ import com.yuyan.imemodule.data.theme.ThemeManager.removeOnChangedListener
 import com.yuyan.imemodule.prefs.AppPrefs.Companion.getInstance
 import com.yuyan.imemodule.prefs.behavior.SkbMenuMode
 import com.yuyan.imemodule.singleton.EnvironmentSingleton
-import com.yuyan.imemodule.utils.KeyboardLoaderUtil
 import com.yuyan.imemodule.keyboard.InputView
 import com.yuyan.imemodule.keyboard.KeyboardManager
 import com.yuyan.imemodule.keyboard.container.ClipBoardContainer
+import com.yuyan.imemodule.utils.PerfMetrics
+import com.yuyan.imemodule.utils.StartupTimeline
 import com.yuyan.imemodule.utils.StringUtils
 import com.yuyan.imemodule.utils.isDarkMode
 import com.yuyan.imemodule.view.preference.ManagedPreference
@@ -53,14 +60,26 @@ class ImeService : InputMethodService() {
             }
         }
     }
+    // 输出按键耗时统计：adb shell am broadcast -a com.yuyan.imemodule.DUMP_METRICS
+    // 只接收持有DUMP权限的发送方(adb shell具备该权限)，普通应用无法触发
+    private val dumpMetricsReceiver = object : BroadcastReceiver() {
+        override fun onReceive(context: Context, intent: Intent) {
+            PerfMetrics.dump()
+        }
+    }
     override fun onCreate() {
         super.onCreate()
         addOnChangedListener(onThemeChangeListener)
         clipboardUpdateContent.registerOnChangeListener(clipboardUpdateContentListener)
+        ContextCompat.registerReceiver(this, dumpMetricsReceiver, IntentFilter(PerfMetrics.ACTION_DUMP),
+            Manifest.permission.DUMP, null, ContextCompat.RECEIVER_EXPORTED)
     }
 
     override fun onCreateInputView(): View {
-        mInputView = InputView(baseContext, this)
+        // 只记录进程内首次创建，之后的重建(如配置变化)不属于启动阶段
+        mInputView = if (inputViewTraced) InputView(baseContext, this)
+            else StartupTimeline.trace("ImeService.onCreateInputView") { InputView(baseContext, this) }
+        inputViewTraced = true
         return mInputView
     }
 
@@ -74,6 +93,7 @@ class ImeService : InputMethodService() {
         if (::mInputView.isInitialized) mInputView.resetToIdleState()
         removeOnChangedListener(onThemeChangeListener)
         clipboardUpdateContent.unregisterOnChangeListener(clipboardUpdateContentListener)
+        unregisterReceiver(dumpMetricsReceiver)
     }
 
     /**
@@ -83,8 +103,7 @@ class ImeService : InputMethodService() {
         super.onConfigurationChanged(newConfig)
         CoroutineScope(Dispatchers.Main).launch {
             delay(200) //延时，解决获取屏幕尺寸不准确。
-            EnvironmentSingleton.instance.initData()
-            KeyboardLoaderUtil.instance.clearKeyboardMap()
+            EnvironmentSingleton.instance.initData()  // 键盘布局按横竖屏分别缓存，无需清空
             KeyboardManager.instance.clearKeyboard()
             if (::mInputView.isInitialized) KeyboardManager.instance.switchKeyboard()
         }
@@ -217,7 +236,9 @@ class ImeService : InputMethodService() {
      * 发送字符串给编辑框
      */
     fun commitText(text: String) {
-        currentInputConnection.commitText(StringUtils.converted2FlowerTypeface(text), 1)
+        PerfMetrics.measure(PerfMetrics.COMMIT) {
+            currentInputConnection.commitText(StringUtils.converted2FlowerTypeface(text), 1)
+        }
     }
 
     fun getTextBeforeCursor(length:Int) : String {
@@ -239,4 +260,8 @@ class ImeService : InputMethodService() {
     fun setSelection(start: Int, end: Int) {
         currentInputConnection.setSelection(start, end)
     }
+
+    companion object {
+        private var inputViewTraced = false  // 是否已记录首次创建键盘视图
+    }
 }
@@ -47,6 +47,8 @@ class EnvironmentSingleton private constructor() {
         initData()
     }
 
+    // 加锁：后台预生成键盘布局时持有同一把锁，不会读到改写到一半的尺寸
+    @Synchronized
     fun initData() {
         val resources = Launcher.instance.context.resources
         val dm = resources.displayMetrics
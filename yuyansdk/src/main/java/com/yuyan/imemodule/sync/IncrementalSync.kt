@@ -0,0 +1,366 @@
+package com.yuyan.imemodule.sync
+
+import android.os.SystemClock
+import com.yuyan.imemodule.application.Launcher
+import com.yuyan.imemodule.manager.UserDataManager
+import kotlinx.serialization.Serializable
+import kotlinx.serialization.json.Json
+import java.io.File
+import java.io.FileOutputStream
+import java.io.RandomAccessFile
+import java.security.MessageDigest
+
+/**
+ * WebDAV 增量同步，按内容寻址的分块存储
+ *
+ * 同步范围与备份 zip 相同(shared_prefs、databases、external)，文件按 CHUNK_SIZE 固定切分，分块以 SHA-256 命名：
+ *   incremental/manifest.json      最近一次上传的快照，记录每个文件的大小与分块哈希
+ *   incremental/objects/<sha256>   分块内容，相同内容只存一份
+ * 本地清单缓存各文件的大小、修改时间与分块哈希，未变化的文件不再重新计算。修改时间距扫描不足 RACY_MILLIS 的文件，
+ * 在同一时间精度内再次修改时修改时间不变，这类文件不写入本地清单，每次重新计算。
+ * 上传时只上传服务器上没有的分块，发布清单前确认文件在扫描后没有变化。发布后删除新旧两份清单都不再引用的分块，
+ * 上一份清单的分块保留一代，其他设备仍在按上一份清单下载时不会缺少分块；发布后远程清单已被其他设备覆盖时本次不删除。
+ * 下载时只写入内容变化的文件，本地已有的分块直接复制，只下载缺少的分块。
+ * 校验发现文件已变化时从本地清单中移除该文件，下次重新计算。与 zip 导入一致，下载不删除远程快照中没有的本地文件。
+ *
+ * @param fileTrees 同步范围，目录名 -> 本地目录
+ * @param localManifestFile 本地清单文件
+ */
+class IncrementalSync(
+    private val client: WebDAVClient,
+    remotePath: String,
+    private val fileTrees: Map<String, File> = UserDataManager.fileTrees,
+    private val localManifestFile: File = File(Launcher.instance.context.filesDir, LOCAL_MANIFEST_NAME)
+) {
+
+    @Serializable
+    data class FileEntry(
+        val path: String,  // 形如 databases/xxx.db
+        val size: Long,
+        val modified: Long,
+        val chunks: List<String>
+    )
+
+    @Serializable
+    data class Manifest(
+        val version: Int = VERSION,
+        val timestamp: Long,
+        val files: List<FileEntry>
+    )
+
+    /**
+     * @param files 快照中的文件数
+     * @param changedFiles 上传时为内容变化的文件数，下载时为写入的文件数
+     * @param transferredChunks 实际上传/下载的分块数
+     * @param reusedChunks 无需传输的分块数(服务器或本地已有)
+     * @param bytes 实际传输的分块字节数，不含清单
+     * @param removedChunks 上传后从服务器删除的无用分块数
+     */
+    class Stats(
+        val files: Int,
+        val changedFiles: Int,
+        val transferredChunks: Int,
+        val reusedChunks: Int,
+        val bytes: Long,
+        val costMillis: Long,
+        val removedChunks: Int = 0
+    ) {
+        override fun toString() = "files=$files, changed=$changedFiles, transferred=$transferredChunks, " +
+            "reused=$reusedChunks, removed=$removedChunks, bytes=$bytes, cost=${costMillis}ms"
+    }
+
+    // 分块在本地文件中的位置，path为清单中的路径
+    private class ChunkLocation(val path: String, val file: File, val offset: Long, val length: Int)
+
+    private val baseDir = "${remotePath.trimEnd('/')}/$REMOTE_DIR"
+    private val objectsDir = "$baseDir/$OBJECTS_DIR"
+
+    /**
+     * 读取远程快照，没有时返回null
+     */
+    suspend fun fetchRemoteManifest(): Manifest? {
+        val exists = client.fileExists(baseDir, MANIFEST_NAME).getOrDefault(false)
+        if (!exists) return null
+        val data = client.downloadFile(baseDir, MANIFEST_NAME).getOrThrow()
+        return json.decodeFromString<Manifest>(data.decodeToString())
+    }
+
+    /**
+     * 上传本地数据，只上传服务器上没有的分块，最后覆盖远程快照
+     */
+    suspend fun upload(onProgress: ((String) -> Unit)?): Stats {
+        val start = SystemClock.elapsedRealtime()
+        onProgress?.invoke("正在计算本地文件差异...")
+        val local = scanLocal()
+        val previous = fetchRemoteManifest()
+        val remoteFiles = previous?.files?.associateBy { it.path } ?: emptyMap()
+
+        client.createDirectory(baseDir).getOrThrow()
+        client.createDirectory(objectsDir).getOrThrow()
+        // 以服务器上实际存在的分块为准，中断的上传下次只补传缺少的部分
+        val remoteChunks = client.listFiles(objectsDir).getOrThrow().mapTo(HashSet()) { it.name }
+
+        val pending = LinkedHashMap<String, ChunkLocation>()
+        var reused = 0
+        for (entry in local.files) {
+            entry.chunks.forEachIndexed { index, hash ->
+                if (hash in remoteChunks) reused++
+                else pending.putIfAbsent(hash, chunkLocation(entry, resolve(entry.path), index))
+            }
+        }
+
+        var bytes = 0L
+        var uploaded = 0
+        for ((hash, location) in pending) {
+            onProgress?.invoke("正在上传分块 ${uploaded + 1}/${pending.size}...")
+            val data = readChunk(location)
+            if (sha256(data, data.size) != hash) throw modifiedDuringSync(location.path)
+            client.uploadData(data, objectsDir, hash).getOrThrow()
+            bytes += data.size
+            uploaded++
+        }
+
+        // 服务器已有的分块没有重新读取，发布清单前确认所有文件在扫描后没有变化
+        onProgress?.invoke("正在校验本地文件...")
+        local.files.firstOrNull { !isUnchanged(it, local.timestamp) }?.let { throw modifiedDuringSync(it.path) }
+
+        onProgress?.invoke("正在上传文件清单...")
+        val manifest = json.encodeToString(Manifest.serializer(), local).encodeToByteArray()
+        client.uploadData(manifest, baseDir, MANIFEST_NAME, "application/json").getOrThrow()
+
+        val removed = removeUnreferencedChunks(local, previous, remoteChunks)
+
+        val changed = local.files.count { remoteFiles[it.path]?.chunks != it.chunks }
+        return Stats(local.files.size, changed, uploaded, reused, bytes, SystemClock.elapsedRealtime() - start, removed).also {
+            android.util.Log.d(TAG, "upload: $it")
+        }
+    }
+
+    /**
+     * 删除新旧两份清单都不再引用的分块，返回删除数量。删除失败不影响本次上传，下次上传时重试。
+     * 远程清单已不是刚发布的清单时(其他设备同时上传)，对方可能引用了这些分块，本次不删除
+     */
+    private suspend fun removeUnreferencedChunks(published: Manifest, previous: Manifest?, remoteChunks: Set<String>): Int {
+        val referenced = published.files.flatMapTo(HashSet()) { it.chunks }
+        previous?.files?.flatMapTo(referenced) { it.chunks }
+        if (remoteChunks.all { it in referenced || !isChunkName(it) }) return 0
+        if (fetchRemoteManifest() != published) return 0
+        var removed = 0
+        for (name in remoteChunks) {
+            if (name in referenced || !isChunkName(name)) continue
+            if (client.deleteFile(objectsDir, name).isSuccess) removed++
+        }
+        return removed
+    }
+
+    /**
+     * 按远程快照更新本地数据，内容未变化的文件跳过，本地已有的分块不再下载
+     */
+    suspend fun download(onProgress: ((String) -> Unit)?): Stats {
+        val start = SystemClock.elapsedRealtime()
+        onProgress?.invoke("正在获取远程文件清单...")
+        val remote = fetchRemoteManifest() ?: throw Exception("远程没有找到增量备份")
+        // 写入任何文件前先检查整个快照，非法路径或分块名不写入任何内容
+        val targets = remote.files.associate { entry ->
+            if (!entry.chunks.all(::isChunkName)) throw Exception("非法的分块: ${entry.path}")
+            entry.path to resolve(entry.path)
+        }
+        onProgress?.invoke("正在计算本地文件差异...")
+        val local = scanLocal()
+        val localFiles = local.files.associateBy { it.path }
+
+        val localChunks = HashMap<String, ChunkLocation>()
+        for (entry in local.files) {
+            val file = resolve(entry.path)
+            entry.chunks.forEachIndexed { index, hash -> localChunks.putIfAbsent(hash, chunkLocation(entry, file, index)) }
+        }
+
+        val changed = remote.files.filter { localFiles[it.path]?.chunks != it.chunks }
+        val written = HashMap<String, FileEntry>()
+        val stale = HashSet<String>()  // 扫描后被修改的本地文件
+        var bytes = 0L
+        var downloaded = 0
+        var reused = 0
+        changed.forEachIndexed { fileIndex, entry ->
+            onProgress?.invoke("正在更新文件 ${fileIndex + 1}/${changed.size}...")
+            val target = targets.getValue(entry.path)
+            val tempFile = File(target.parentFile, "${target.name}.sync_tmp")
+            target.parentFile?.mkdirs()
+            try {
+                FileOutputStream(tempFile).use { out ->
+                    for (hash in entry.chunks) {
+                        val data = localChunks[hash]?.let { location ->
+                            // 本地文件可能在扫描后被修改，校验不通过时改为下载，并且不再沿用该文件的缓存
+                            readChunkOrNull(location)?.takeIf { sha256(it, it.size) == hash } ?: run {
+                                stale.add(location.path)
+                                null
+                            }
+                        }
+                        if (data != null) {
+                            reused++
+                            out.write(data)
+                        } else {
+                            val remoteData = client.downloadFile(objectsDir, hash).getOrThrow()
+                            if (sha256(remoteData, remoteData.size) != hash) throw Exception("分块校验失败: $hash")
+                            downloaded++
+                            bytes += remoteData.size
+                            out.write(remoteData)
+                        }
+                    }
+                }
+                if (!tempFile.renameTo(target)) throw Exception("无法写入文件: ${entry.path}")
+            } finally {
+                tempFile.delete()
+            }
+            // 被覆盖文件中的旧分块已失效，改为指向新内容
+            localChunks.values.removeAll { it.file == target }
+            entry.chunks.forEachIndexed { index, hash -> localChunks.putIfAbsent(hash, chunkLocation(entry, target, index)) }
+            written[entry.path] = entry.copy(modified = target.lastModified())
+            stale.remove(entry.path)
+        }
+
+        // 刚写入的文件修改时间晚于扫描时间，不会写入本地清单，下次扫描时重新计算
+        saveLocalManifest(local.files.filter { it.path !in written && it.path !in stale } + written.values, local.timestamp)
+        return Stats(remote.files.size, changed.size, downloaded, reused, bytes, SystemClock.elapsedRealtime() - start).also {
+            android.util.Log.d(TAG, "download: $it")
+        }
+    }
+
+    /**
+     * 扫描本地文件，大小与修改时间未变的文件沿用本地清单中的分块哈希，并更新本地清单
+     *
+     * 返回的快照时间为扫描开始时间
+     */
+    private fun scanLocal(): Manifest {
+        val timestamp = System.currentTimeMillis()
+        val cached = loadLocalManifest()
+        val files = ArrayList<FileEntry>()
+        for ((prefix, root) in fileTrees) {
+            root.walkTopDown().filter { it.isFile && !it.name.endsWith(".sync_tmp") }.forEach { file ->
+                val path = "$prefix/${file.relativeTo(root).path}"
+                val modified = file.lastModified()
+                val old = cached[path]
+                files.add(if (old != null && old.size == file.length() && old.modified == modified) old
+                    else hashFile(path, file, modified))
+            }
+        }
+        saveLocalManifest(files, timestamp)
+        return Manifest(timestamp = timestamp, files = files)
+    }
+
+    /**
+     * 文件在扫描后是否没有变化，修改时间过近的文件重新计算哈希
+     */
+    private fun isUnchanged(entry: FileEntry, timestamp: Long): Boolean {
+        val file = resolve(entry.path)
+        if (!file.isFile || file.length() != entry.size || file.lastModified() != entry.modified) return false
+        return !isRacy(entry, timestamp) || hashFile(entry.path, file, entry.modified).chunks == entry.chunks
+    }
+
+    // 修改时间距扫描时间过近，之后同一时间精度内的修改不会改变修改时间
+    private fun isRacy(entry: FileEntry, timestamp: Long): Boolean = timestamp - entry.modified < RACY_MILLIS
+
+    // 从本地清单中移除已变化的文件，下次扫描时重新计算
+    private fun modifiedDuringSync(path: String): Exception {
+        val files = loadLocalManifest()
+        if (path in files) saveLocalManifest(files.values.filter { it.path != path }, Long.MAX_VALUE)
+        return Exception("文件在同步过程中被修改，请重试: $path")
+    }
+
+    private fun hashFile(path: String, file: File, modified: Long): FileEntry {
+        val chunks = ArrayList<String>()
+        val buffer = ByteArray(CHUNK_SIZE)
+        var size = 0L
+        file.inputStream().use { input ->
+            while (true) {
+                // 读满一个分块再计算哈希
+                var filled = 0
+                while (filled < CHUNK_SIZE) {
+                    val read = input.read(buffer, filled, CHUNK_SIZE - filled)
+                    if (read < 0) break
+                    filled += read
+                }
+                if (filled == 0) break
+                chunks.add(sha256(buffer, filled))
+                size += filled
+                if (filled < CHUNK_SIZE) break
+            }
+        }
+        return FileEntry(path, size, modified, chunks)
+    }
+
+    private fun loadLocalManifest(): Map<String, FileEntry> = try {
+        if (!localManifestFile.exists()) emptyMap()
+        else json.decodeFromString<Manifest>(localManifestFile.readText()).files.associateBy { it.path }
+    } catch (e: Exception) {
+        // 清单损坏时重新计算全部哈希
+        android.util.Log.w(TAG, "Failed to load local manifest", e)
+        emptyMap()
+    }
+
+    /**
+     * @param timestamp 各文件哈希的计算时间不早于此时间，修改时间过近的文件不写入
+     */
+    private fun saveLocalManifest(files: List<FileEntry>, timestamp: Long) {
+        val trusted = files.filter { !isRacy(it, timestamp) }
+        val tempFile = File(localManifestFile.parentFile, "${localManifestFile.name}.tmp")
+        tempFile.writeText(json.encodeToString(Manifest.serializer(), Manifest(timestamp = timestamp, files = trusted)))
+        tempFile.renameTo(localManifestFile)
+    }
+
+    // 远程清单中的路径映射到本地文件，拒绝跳出同步目录的路径
+    private fun resolve(path: String): File {
+        val prefix = path.substringBefore('/')
+        val root = fileTrees[prefix] ?: throw Exception("未知的同步路径: $path")
+        val file = File(root, path.substringAfter('/'))
+        if (!file.canonicalPath.startsWith(root.canonicalPath + File.separator)) throw Exception("非法的同步路径: $path")
+        return file
+    }
+
+    private fun chunkLocation(entry: FileEntry, file: File, index: Int): ChunkLocation {
+        val offset = index.toLong() * CHUNK_SIZE
+        return ChunkLocation(entry.path, file, offset, minOf(CHUNK_SIZE.toLong(), entry.size - offset).toInt())
+    }
+
+    private fun readChunk(location: ChunkLocation): ByteArray {
+        val data = ByteArray(location.length)
+        RandomAccessFile(location.file, "r").use { file ->
+            file.seek(location.offset)
+            file.readFully(data)
+        }
+        return data
+    }
+
+    private fun readChunkOrNull(location: ChunkLocation): ByteArray? = try {
+        readChunk(location)
+    } catch (e: Exception) {
+        null
+    }
+
+    companion object {
+        private const val TAG = "IncrementalSync"
+        private const val VERSION = 1
+        private const val CHUNK_SIZE = 1024 * 1024
+        private const val REMOTE_DIR = "incremental"
+        private const val OBJECTS_DIR = "objects"
+        private const val MANIFEST_NAME = "manifest.json"
+        private const val LOCAL_MANIFEST_NAME = "webdav_manifest.json"
+        private const val RACY_MILLIS = 3000L  // 大于常见文件系统的修改时间精度(FAT为2秒)
+
+        private const val HEX_DIGITS = "0123456789abcdef"
+
+        private val json = Json { ignoreUnknownKeys = true }
+
+        // 分块名为64位小写十六进制的SHA-256
+        private fun isChunkName(name: String): Boolean = name.length == 64 && name.all { it in HEX_DIGITS }
+
+        private fun sha256(data: ByteArray, length: Int): String {
+            val digest = MessageDigest.getInstance("SHA-256").apply { update(data, 0, length) }.digest()
+            val hex = StringBuilder(digest.size * 2)
+            for (b in digest) {
+                hex.append(HEX_DIGITS[(b.toInt() shr 4) and 0xF]).append(HEX_DIGITS[b.toInt() and 0xF])
+            }
+            return hex.toString()
+        }
+    }
+}
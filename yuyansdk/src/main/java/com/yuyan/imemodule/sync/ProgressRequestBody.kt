@@ -0,0 +1,40 @@
+package com.yuyan.imemodule.sync
+
+import okhttp3.MediaType
+import okhttp3.RequestBody
+import okio.BufferedSink
+import okio.source
+import java.io.File
+
+/**
+ * 从文件流式读取的请求体，按块写出并回调已发送字节数，内存占用与文件大小无关
+ * @param onProgress (已发送字节, 总字节)，在网络线程回调
+ */
+class ProgressRequestBody(
+    private val file: File,
+    private val contentType: MediaType?,
+    private val onProgress: ((sent: Long, total: Long) -> Unit)? = null
+) : RequestBody() {
+
+    override fun contentType(): MediaType? = contentType
+
+    override fun contentLength(): Long = file.length()
+
+    override fun writeTo(sink: BufferedSink) {
+        val total = contentLength()
+        var sent = 0L
+        file.source().use { source ->
+            while (true) {
+                val read = source.read(sink.buffer, SEGMENT_SIZE)
+                if (read == -1L) break
+                sink.emit()  // 写满一块即发出，避免在缓冲区中积累
+                sent += read
+                onProgress?.invoke(sent, total)
+            }
+        }
+    }
+
+    companion object {
+        private const val SEGMENT_SIZE = 64 * 1024L
+    }
+}
@@ -13,7 +13,7 @@ import okhttp3.ConnectionPool
 import okhttp3.Interceptor
 import java.io.ByteArrayInputStream
 import java.io.ByteArrayOutputStream
-import java.io.InputStream
+import java.io.File
 import java.util.concurrent.TimeUnit
 import javax.net.ssl.SSLContext
 import javax.net.ssl.TrustManager
@@ -207,8 +207,8 @@ class WebDAVClient(
         }
     }
     
-    private val sardine: Sardine by lazy {
-        val okHttpClient = if (ignoreSSLCert) {
+    private val okHttpClient: OkHttpClient by lazy {
+        if (ignoreSSLCert) {
             if (com.yuyan.imemodule.BuildConfig.DEBUG) {
                 android.util.Log.d("WebDAVClient", "Using unsafe SSL client (ignoring certificates)")
             }
@@ -248,7 +248,9 @@ class WebDAVClient(
                 }
             }
             .build()
+    }
 
+    private val sardine: Sardine by lazy {
         OkHttpSardine(okHttpClient).apply {
             // username和password已经在构造函数中标准化，直接使用
             if (com.yuyan.imemodule.BuildConfig.DEBUG) {
@@ -583,26 +585,36 @@ class WebDAVClient(
     }
     
     /**
-     * 上传文件
+     * 上传文件，从本地文件流式发送，不整体读入内存
+     * @param onProgress (已发送字节, 总字节)，在网络线程回调
      */
     suspend fun uploadFile(
-        localStream: InputStream,
+        localFile: File,
         remotePath: String,
-        fileName: String
+        fileName: String,
+        onProgress: ((sent: Long, total: Long) -> Unit)? = null
     ): Result<Unit> = withContext(Dispatchers.IO) {
         try {
             // 确保远程目录存在
             createDirectory(remotePath).getOrThrow()
             
-            // 读取本地文件到内存
-            val bytes = localStream.readBytes()
             val fullPath = buildFullPath(remotePath, fileName)
             
             android.util.Log.d("WebDAVClient", "Uploading file to: $fullPath")
-            android.util.Log.d("WebDAVClient", "File size: ${bytes.size} bytes")
+            android.util.Log.d("WebDAVClient", "File size: ${localFile.length()} bytes")
             
-            // 上传文件
-            sardine.put(fullPath, bytes, "application/zip")
+            // sardine.put不支持进度回调，直接用同一个OkHttpClient发送PUT
+            val request = Request.Builder()
+                .url(fullPath)
+                .header("Authorization", Credentials.basic(username, password))
+                .put(ProgressRequestBody(localFile, "application/zip".toMediaType(), onProgress))
+                .build()
+            
+            okHttpClient.newCall(request).execute().use { response ->
+                if (!response.isSuccessful) {
+                    throw Exception("服务器返回: ${response.code} ${response.message}")
+                }
+            }
             
             android.util.Log.d("WebDAVClient", "File uploaded successfully")
             Result.success(Unit)
@@ -612,6 +624,25 @@ class WebDAVClient(
         }
     }
     
+    /**
+     * 上传内存中的小文件(增量同步的分块与清单)，不检查远程目录
+     */
+    suspend fun uploadData(
+        data: ByteArray,
+        remotePath: String,
+        fileName: String,
+        contentType: String = "application/octet-stream"
+    ): Result<Unit> = withContext(Dispatchers.IO) {
+        try {
+            val fullPath = buildFullPath(remotePath, fileName)
+            sardine.put(fullPath, data, contentType)
+            Result.success(Unit)
+        } catch (e: Exception) {
+            android.util.Log.e("WebDAVClient", "Failed to upload data: $fileName", e)
+            Result.failure(e)
+        }
+    }
+    
     /**
      * 下载文件
      */
@@ -13,7 +13,6 @@ import kotlinx.coroutines.delay
 import kotlinx.coroutines.sync.Mutex
 import kotlinx.coroutines.sync.withLock
 import java.io.ByteArrayInputStream
-import java.io.ByteArrayOutputStream
 import java.io.File
 
 /**
@@ -161,15 +160,24 @@ object WebDAVSyncManager {
                 val remotePath = prefs.remotePath.getValue()
                 
                 // 根据操作类型执行不同的同步逻辑
-                when (operation) {
-                    SyncOperation.UPLOAD -> {
-                        uploadBackup(client, remotePath, onProgress)
+                if (prefs.incrementalSync.getValue()) {
+                    val incrementalSync = IncrementalSync(client, remotePath)
+                    when (operation) {
+                        SyncOperation.UPLOAD -> incrementalUpload(incrementalSync, onProgress)
+                        SyncOperation.DOWNLOAD -> incrementalDownload(incrementalSync, onProgress)
+                        SyncOperation.AUTO -> incrementalAutoSync(incrementalSync, onProgress)
                     }
-                    SyncOperation.DOWNLOAD -> {
-                        downloadBackup(client, remotePath, onProgress)
-                    }
-                    SyncOperation.AUTO -> {
-                        autoSync(client, remotePath, onProgress)
+                } else {
+                    when (operation) {
+                        SyncOperation.UPLOAD -> {
+                            uploadBackup(client, remotePath, onProgress)
+                        }
+                        SyncOperation.DOWNLOAD -> {
+                            downloadBackup(client, remotePath, onProgress)
+                        }
+                        SyncOperation.AUTO -> {
+                            autoSync(client, remotePath, onProgress)
+                        }
                     }
                 }
                 
@@ -187,7 +195,7 @@ object WebDAVSyncManager {
     }
     
     /**
-     * 上传备份到 WebDAV - 直接使用现有的导出功能
+     * 上传备份到 WebDAV - 先导出到缓存目录的临时文件，再流式上传，内存占用与备份大小无关
      */
     private suspend fun uploadBackup(
         client: WebDAVClient,
@@ -196,28 +204,34 @@ object WebDAVSyncManager {
     ) {
         onProgress?.invoke("正在导出用户数据...")
         
-        // 直接使用UserDataManager的导出功能（与OtherSettingsFragment相同）
-        val outputStream = ByteArrayOutputStream()
-        val exportResult = UserDataManager.export(outputStream)
-        
-        if (exportResult.isFailure) {
-            throw Exception("导出用户数据失败: ${exportResult.exceptionOrNull()?.message}")
-        }
-        
-        val backupData = outputStream.toByteArray()
-        val fileName = generateBackupFileName()
-        
-        onProgress?.invoke("正在上传备份文件...")
-        
-        // 上传到 WebDAV
-        val uploadResult = client.uploadFile(
-            ByteArrayInputStream(backupData),
-            remotePath,
-            fileName
-        )
-        
-        if (uploadResult.isFailure) {
-            throw Exception("上传失败: ${uploadResult.exceptionOrNull()?.message}")
+        val backupFile = File.createTempFile(BACKUP_FILE_PREFIX, BACKUP_FILE_EXTENSION, context.cacheDir)
+        try {
+            // 直接使用UserDataManager的导出功能（与OtherSettingsFragment相同），export会关闭输出流
+            val exportResult = UserDataManager.export(backupFile.outputStream())
+            
+            if (exportResult.isFailure) {
+                throw Exception("导出用户数据失败: ${exportResult.exceptionOrNull()?.message}")
+            }
+            
+            val fileName = generateBackupFileName()
+            
+            onProgress?.invoke("正在上传备份文件...")
+            
+            // 上传到 WebDAV，进度按百分比变化时才回调，避免频繁刷新界面
+            var lastPercent = -1
+            val uploadResult = client.uploadFile(backupFile, remotePath, fileName) { sent, total ->
+                val percent = if (total > 0) (sent * 100 / total).toInt() else 100
+                if (percent != lastPercent) {
+                    lastPercent = percent
+                    onProgress?.invoke("正在上传备份文件... %.2f/%.2f MB".format(sent / 1024.0 / 1024.0, total / 1024.0 / 1024.0))
+                }
+            }
+            
+            if (uploadResult.isFailure) {
+                throw Exception("上传失败: ${uploadResult.exceptionOrNull()?.message}")
+            }
+        } finally {
+            backupFile.delete()
         }
         
         onProgress?.invoke("上传完成！")
@@ -335,6 +349,47 @@ object WebDAVSyncManager {
     }
     
     
+    /**
+     * 增量上传，只上传服务器上没有的分块
+     */
+    private suspend fun incrementalUpload(sync: IncrementalSync, onProgress: ((String) -> Unit)?) {
+        val stats = sync.upload(onProgress)
+        onProgress?.invoke("上传完成！${stats.changedFiles} 个文件有变化，上传 %.2f MB".format(stats.bytes / 1024.0 / 1024.0))
+    }
+    
+    /**
+     * 增量下载，只下载本地没有的分块
+     */
+    private suspend fun incrementalDownload(sync: IncrementalSync, onProgress: ((String) -> Unit)?) {
+        val stats = sync.download(onProgress)
+        onProgress?.invoke("下载完成！更新 ${stats.changedFiles} 个文件，下载 %.2f MB".format(stats.bytes / 1024.0 / 1024.0))
+    }
+    
+    /**
+     * 增量模式的自动同步，按远程快照时间判断上传还是下载
+     */
+    private suspend fun incrementalAutoSync(sync: IncrementalSync, onProgress: ((String) -> Unit)?) {
+        onProgress?.invoke("正在检查远程备份...")
+        
+        val remoteManifest = sync.fetchRemoteManifest()
+        val lastSyncTime = prefs.lastSyncTime.getValue()
+        
+        when {
+            remoteManifest == null -> {
+                onProgress?.invoke("远程无备份，开始上传...")
+                incrementalUpload(sync, onProgress)
+            }
+            lastSyncTime == 0L || remoteManifest.timestamp > lastSyncTime -> {
+                onProgress?.invoke("远程数据较新，开始下载...")
+                incrementalDownload(sync, onProgress)
+            }
+            else -> {
+                onProgress?.invoke("本地数据较新，开始上传...")
+                incrementalUpload(sync, onProgress)
+            }
+        }
+    }
+    
     /**
      * 获取最新的备份文件
      */
@@ -13,6 +13,8 @@ import com.yuyan.imemodule.utils.addPreference
 
 class AboutFragment : PreferenceFragmentCompat() {
 
+    private var buildTimeClicks = 0  // 连续点击构建时间进入按键耗时统计
+
     override fun onCreatePreferences(savedInstanceState: Bundle?, rootKey: String?) {
         preferenceScreen = preferenceManager.createPreferenceScreen(requireContext()).apply {
             addPreference(R.string.privacy_policy) {
@@ -35,7 +37,12 @@ class AboutFragment : PreferenceFragmentCompat() {
                     val uri = Uri.parse("${CustomConstant.YUYAN_IME_REPO}/commit/${commit}")
                     startActivity(Intent(Intent.ACTION_VIEW, uri))
                 }
-                addPreference(R.string.build_time, BuildConfig.AppBuildTime)
+                addPreference(R.string.build_time, BuildConfig.AppBuildTime) {
+                    if (++buildTimeClicks >= 7) {
+                        buildTimeClicks = 0
+                        findNavController().navigate(R.id.action_aboutFragment_to_perfMetricsFragment)
+                    }
+                }
 
             }
             addCategory(R.string.sdk_version) {
@@ -116,6 +116,13 @@ class OtherSettingsFragment: ManagedPreferenceFragment(AppPrefs.getInstance().ot
             }
         }
         
+        // 启动耗时（仅调试版本）
+        if (BuildConfig.DEBUG) {
+            screen.addPreference("启动耗时") {
+                findNavController().navigate(R.id.action_otherSettingsFragment_to_startupTimelineFragment)
+            }
+        }
+
         screen.addPreference(R.string.export_user_data) {
             lifecycleScope.launch {
                 exportTimestamp = System.currentTimeMillis()
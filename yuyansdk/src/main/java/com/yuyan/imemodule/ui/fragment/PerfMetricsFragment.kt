@@ -0,0 +1,37 @@
+package com.yuyan.imemodule.ui.fragment
+
+import android.os.Bundle
+import android.widget.Toast
+import androidx.preference.PreferenceFragmentCompat
+import com.yuyan.imemodule.utils.PerfMetrics
+import com.yuyan.imemodule.utils.addCategory
+import com.yuyan.imemodule.utils.addPreference
+
+/**
+ * 按键耗时统计(隐藏页面，关于页面连续点击构建时间进入)
+ */
+class PerfMetricsFragment : PreferenceFragmentCompat() {
+
+    override fun onCreatePreferences(savedInstanceState: Bundle?, rootKey: String?) {
+        refresh()
+    }
+
+    private fun refresh() {
+        preferenceScreen = preferenceManager.createPreferenceScreen(requireContext()).apply {
+            addPreference("输出到logcat") {
+                PerfMetrics.dump()
+                Toast.makeText(context, "已输出", Toast.LENGTH_SHORT).show()
+            }
+            addPreference("清空统计") {
+                PerfMetrics.reset()
+                refresh()
+            }
+            addCategory("指标/方案") {
+                isIconSpaceReserved = false
+                for ((name, histogram) in PerfMetrics.snapshot()) {
+                    addPreference(name, histogram.toString())
+                }
+            }
+        }
+    }
+}
@@ -8,8 +8,10 @@ import android.view.ViewGroup
 import android.widget.LinearLayout
 import androidx.appcompat.app.AppCompatActivity
 import androidx.fragment.app.Fragment
+import androidx.lifecycle.lifecycleScope
 import androidx.recyclerview.widget.LinearLayoutManager
 import androidx.recyclerview.widget.RecyclerView
+import androidx.room.withTransaction
 import com.yuyan.imemodule.R
 import com.yuyan.imemodule.adapter.PrefixSettingsAdapter
 import com.yuyan.imemodule.application.Launcher
@@ -17,6 +19,7 @@ import com.yuyan.imemodule.database.DataBaseKT
 import com.yuyan.imemodule.database.entry.SideSymbol
 import com.yuyan.imemodule.utils.DevicesUtils
 import com.yuyan.imemodule.keyboard.KeyboardManager
+import kotlinx.coroutines.launch
 import splitties.dimensions.dp
 import splitties.views.dsl.core.add
 import splitties.views.dsl.core.lParams
@@ -27,10 +30,10 @@ import java.util.Collections
 
 class PrefixSettingsFragment(type:String) : Fragment(){
     private var  mType = "pinyin"
-    private var  datas:MutableList<SideSymbol>
+    private val  datas:MutableList<SideSymbol> = mutableListOf()
+    private var  savedSymbols:List<SideSymbol>? = null  // 数据库中的符号，加载完成前为null，此时不写回
     init {
         mType = type
-        datas = if(type == "pinyin")DataBaseKT.instance.sideSymbolDao().getAllSideSymbolPinyin().toMutableList() else DataBaseKT.instance.sideSymbolDao().getAllSideSymbolNumber().toMutableList()
     }
     override fun onResume() {
         super.onResume()
@@ -102,6 +105,14 @@ class PrefixSettingsFragment(type:String) : Fragment(){
             }
         }
         mRVSymbolsView.setAdapter(adapter)
+        // 直接查询数据库，SideSymbolCache在Flow首次发射前为空，不能作为编辑的初始数据
+        lifecycleScope.launch {
+            val symbols = DataBaseKT.instance.sideSymbolDao().getAllSideSymbolAsync(mType)
+            savedSymbols = symbols
+            datas.clear()
+            datas.addAll(symbols.map { it.copy() })
+            adapter.notifyDataSetChanged()
+        }
         LinearLayout(context).apply {
             orientation = LinearLayout.VERTICAL
             fitsSystemWindows = true
@@ -114,8 +125,16 @@ class PrefixSettingsFragment(type:String) : Fragment(){
 
     override fun onPause() {
         super.onPause()
-        DataBaseKT.instance.sideSymbolDao().deleteAll(mType)
-        DataBaseKT.instance.sideSymbolDao().insertAll(datas.filter { it.symbolKey.isNotBlank()})
-        KeyboardManager.instance.clearKeyboard()
+        val saved = savedSymbols ?: return  // 尚未加载，不能用空列表覆盖用户数据
+        val symbols = datas.filter { it.symbolKey.isNotBlank()}.map { it.copy() }
+        if (symbols == saved) return
+        savedSymbols = symbols
+        DataBaseKT.scope.launch {
+            DataBaseKT.instance.withTransaction {
+                DataBaseKT.instance.sideSymbolDao().deleteAllAsync(mType)
+                DataBaseKT.instance.sideSymbolDao().insertAllAsync(symbols)
+            }
+            KeyboardManager.instance.clearKeyboard()
+        }
     }
 }
\ No newline at end of file
@@ -25,6 +25,7 @@ class RimeDictImportFragment : CsPreferenceFragment() {
     
     private lateinit var importLauncher: ActivityResultLauncher<String>
     private lateinit var previewLauncher: ActivityResultLauncher<String>
+    private lateinit var bulkImportLauncher: ActivityResultLauncher<String>
     private var progressDialog: AlertDialog? = null
     private var isT9Mode = false
     
@@ -48,6 +49,12 @@ class RimeDictImportFragment : CsPreferenceFragment() {
         ) { uri ->
             uri?.let { previewDictionary(it) }
         }
+        
+        bulkImportLauncher = registerForActivityResult(
+            ActivityResultContracts.GetContent()
+        ) { uri ->
+            uri?.let { bulkImportDictionary(it) }
+        }
     }
     
     override fun onCreatePreferences(savedInstanceState: Bundle?, rootKey: String?) {
@@ -61,6 +68,11 @@ class RimeDictImportFragment : CsPreferenceFragment() {
             showImportConfirm()
         }
         
+        // 批量导入
+        screen.addPreference("⚡ 批量导入词库（可添加新词）") {
+            showBulkImportConfirm()
+        }
+        
         // 使用说明
         screen.addPreference("📖 使用说明") {
             showInstructions()
@@ -220,6 +232,106 @@ class RimeDictImportFragment : CsPreferenceFragment() {
         }
     }
     
+    private fun showBulkImportConfirm() {
+        val layout = LinearLayout(requireContext()).apply {
+            orientation = LinearLayout.VERTICAL
+            setPadding(50, 30, 50, 10)
+        }
+        val message = TextView(requireContext()).apply {
+            text = """
+                📌 工作原理：直接写入自定义短语表
+                ⏱️ 处理速度：10万词条约数秒
+                💾 保存位置：Rime用户目录 custom_phrase.txt
+                
+                ⚠️ 提示：
+                • 可添加词库中不存在的新词
+                • 已存在的词语与拼音会自动跳过
+                • 导入完成后输入法会重新加载
+            """.trimIndent()
+            textSize = 14f
+            setPadding(0, 0, 0, 20)
+        }
+        layout.addView(message)
+        val t9Checkbox = CheckBox(requireContext()).apply {
+            text = "T9数字格式 (如: 6446 你好)"
+            isChecked = isT9Mode
+            setOnCheckedChangeListener { _, checked ->
+                isT9Mode = checked
+            }
+        }
+        layout.addView(t9Checkbox)
+        AlertDialog.Builder(requireContext())
+            .setTitle("⚡ 批量导入词库")
+            .setView(layout)
+            .setPositiveButton("选择文件") { _, _ ->
+                bulkImportLauncher.launch("text/plain")
+            }
+            .setNegativeButton("取消", null)
+            .show()
+    }
+    
+    private fun bulkImportDictionary(uri: android.net.Uri) {
+        val progressBar = ProgressBar(requireContext(), null, android.R.attr.progressBarStyleHorizontal).apply {
+            isIndeterminate = false
+            max = 100
+        }
+        val progressText = TextView(requireContext()).apply {
+            text = "准备导入..."
+            textSize = 14f
+            setPadding(0, 20, 0, 0)
+        }
+        val progressView = LinearLayout(requireContext()).apply {
+            orientation = LinearLayout.VERTICAL
+            setPadding(50, 50, 50, 50)
+            addView(progressBar)
+            addView(progressText)
+        }
+        val job = lifecycleScope.launch {
+            try {
+                val result = RimeUserDictImporter.importToCustomPhrase(uri, isT9Mode) { processed, readBytes, totalBytes ->
+                    if (isAdded && !isDetached) {
+                        if (totalBytes > 0) {
+                            progressBar.progress = (readBytes * 100 / totalBytes).toInt().coerceIn(0, 100)
+                        } else {
+                            progressBar.isIndeterminate = true
+                        }
+                        progressText.text = "已处理: $processed 条"
+                    }
+                }
+                result.fold(
+                    onSuccess = { stats ->
+                        if (isAdded) {
+                            AlertDialog.Builder(requireContext())
+                                .setTitle("✅ 导入完成")
+                                .setMessage("总计词条：${stats.total}\n✓ 已导入：${stats.success}\n⊘ 跳过（已存在）：${stats.skipped}\n✗ 失败（拼音无效）：${stats.failed}")
+                                .setPositiveButton("确定", null)
+                                .show()
+                        }
+                    },
+                    onFailure = { error ->
+                        if (isAdded) {
+                            AlertDialog.Builder(requireContext())
+                                .setTitle("❌ 导入失败")
+                                .setMessage("错误: ${error.message}\n\n请检查词库格式是否正确")
+                                .setPositiveButton("确定", null)
+                                .show()
+                        }
+                    }
+                )
+            } finally {
+                progressDialog?.dismiss()
+                progressDialog = null
+            }
+        }
+        progressDialog = AlertDialog.Builder(requireContext())
+            .setTitle("⚡ 正在导入词库...")
+            .setView(progressView)
+            .setCancelable(false)
+            .setNegativeButton("取消") { _, _ -> job.cancel() }
+            .create()
+        progressDialog?.show()
+    }
+    
     private fun showResultDialog(stats: RimeUserDictImporter.ImportStats) {
         val message = """
             📊 学习统计：
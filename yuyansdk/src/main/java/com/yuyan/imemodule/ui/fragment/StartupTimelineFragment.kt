@@ -0,0 +1,58 @@
+package com.yuyan.imemodule.ui.fragment
+
+import android.os.Bundle
+import android.widget.Toast
+import androidx.activity.result.ActivityResultLauncher
+import androidx.activity.result.contract.ActivityResultContracts
+import androidx.lifecycle.lifecycleScope
+import androidx.preference.PreferenceFragmentCompat
+import com.yuyan.imemodule.utils.StartupTimeline
+import com.yuyan.imemodule.utils.addCategory
+import com.yuyan.imemodule.utils.addPreference
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+
+/**
+ * 启动耗时(调试)
+ */
+class StartupTimelineFragment : PreferenceFragmentCompat() {
+
+    private lateinit var exportLauncher: ActivityResultLauncher<String>
+
+    override fun onCreate(savedInstanceState: Bundle?) {
+        super.onCreate(savedInstanceState)
+        exportLauncher =
+            registerForActivityResult(ActivityResultContracts.CreateDocument("application/json")) { uri ->
+                if (uri == null) return@registerForActivityResult
+                val ctx = requireContext()
+                lifecycleScope.launch {
+                    val success = withContext(Dispatchers.IO) {
+                        try {
+                            ctx.contentResolver.openOutputStream(uri)!!.use { it.write(StartupTimeline.toTraceJson().toByteArray()) }
+                            true
+                        } catch (e: Exception) {
+                            e.printStackTrace()
+                            false
+                        }
+                    }
+                    Toast.makeText(ctx, if (success) "已导出" else "导出失败", Toast.LENGTH_SHORT).show()
+                }
+            }
+    }
+
+    override fun onCreatePreferences(savedInstanceState: Bundle?, rootKey: String?) {
+        preferenceScreen = preferenceManager.createPreferenceScreen(requireContext()).apply {
+            addPreference("导出Trace文件", "Chrome Trace格式，可用Perfetto打开") {
+                exportLauncher.launch("yuyanIme_startup_trace.json")
+            }
+            addCategory("启动阶段") {
+                isIconSpaceReserved = false
+                for (phase in StartupTimeline.phases()) {
+                    val summary = "开始 +%.1fms  耗时 %.1fms  线程 %s".format(phase.startNanos / 1000_000f, phase.durationNanos / 1000_000f, phase.thread)
+                    addPreference(phase.name, summary)
+                }
+            }
+        }
+    }
+}
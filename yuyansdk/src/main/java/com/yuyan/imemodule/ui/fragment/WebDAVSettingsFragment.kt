@@ -243,6 +243,18 @@ class WebDAVSettingsFragment : CsPreferenceFragment() {
             ).show()
         }
         
+        // 增量同步
+        screen.addPreference("🧩 增量同步", if (prefs.incrementalSync.getValue()) "✅ 只传输变化的文件分块" else "❌ 每次传输完整备份") {
+            val currentValue = prefs.incrementalSync.getValue()
+            prefs.incrementalSync.setValue(!currentValue)
+            refreshScreen()
+            Toast.makeText(
+                requireContext(), 
+                if (!currentValue) "已启用增量同步" else "已改为完整备份同步", 
+                Toast.LENGTH_SHORT
+            ).show()
+        }
+        
         // 忽略SSL证书（用于自建服务器）
         screen.addPreference("🔒 忽略SSL证书", if (prefs.ignoreSSLCert.getValue()) "⚠️ 已忽略" else "✅ 已验证") {
             val currentValue = prefs.ignoreSSLCert.getValue()
@@ -876,7 +888,8 @@ class WebDAVSettingsFragment : CsPreferenceFragment() {
             .setTitle("⚠️ 警告")
             .setMessage("下载备份将覆盖所有本地数据，包括：\n• 输入法设置\n• 用户词库\n• 个人数据\n\n确定要继续吗？")
             .setPositiveButton("确定") { _, _ ->
-                doDownload()
+                // 增量模式由同步流程下载并导入，完成后同样重启
+                if (prefs.incrementalSync.getValue()) doSync(WebDAVSyncManager.SyncOperation.DOWNLOAD) else doDownload()
             }
             .setNegativeButton("取消", null)
             .show()
@@ -973,9 +986,12 @@ class WebDAVSettingsFragment : CsPreferenceFragment() {
         val statusText = progressView.getChildAt(1) as TextView
         
         lifecycleScope.launch {
+            // 上传进度在网络线程回调，切回主线程更新
             val result = WebDAVSyncManager.sync(operation) { status ->
-                if (isAdded && !isDetached) {
-                    statusText.text = status
+                statusText.post {
+                    if (isAdded && !isDetached) {
+                        statusText.text = status
+                    }
                 }
             }
             
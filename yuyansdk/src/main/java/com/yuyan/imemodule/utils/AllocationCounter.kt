@@ -0,0 +1,49 @@
+package com.yuyan.imemodule.utils
+
+import android.os.Debug
+import com.yuyan.imemodule.BuildConfig
+
+/**
+ * 按键分配统计(仅Debug版本生效)
+ *
+ * 通过ART运行时统计记录每次按键期间的内存分配量与GC次数，用于验证输入过程中的垃圾产生情况。
+ * 分配量为进程级统计，包含同一时间其他线程的分配。
+ */
+object AllocationCounter {
+    private const val TAG = "AllocationCounter"
+    private const val REPORT_INTERVAL = 50  // 每隔多少次按键输出一次统计
+    private val enabled = BuildConfig.DEBUG
+    private var startBytes = 0L
+    private var startGcCount = 0L
+    private var keyCount = 0
+    private var totalBytes = 0L
+    private var totalGcCount = 0L
+
+    fun begin() {
+        if (!enabled) return
+        startBytes = runtimeStat("art.gc.bytes-allocated")
+        startGcCount = runtimeStat("art.gc.gc-count")
+    }
+
+    fun end() {
+        if (!enabled) return
+        totalBytes += runtimeStat("art.gc.bytes-allocated") - startBytes
+        totalGcCount += runtimeStat("art.gc.gc-count") - startGcCount
+        if (++keyCount % REPORT_INTERVAL == 0) LogUtil.d(TAG, dump())
+    }
+
+    fun reset() {
+        keyCount = 0
+        totalBytes = 0
+        totalGcCount = 0
+    }
+
+    fun dump(): String {
+        val avgBytes = if (keyCount == 0) 0 else totalBytes / keyCount
+        return "keys=$keyCount, allocated=${totalBytes}B, avg=${avgBytes}B/key, gc=$totalGcCount"
+    }
+
+    private fun runtimeStat(name: String): Long {
+        return Debug.getRuntimeStat(name)?.toLongOrNull() ?: 0L
+    }
+}
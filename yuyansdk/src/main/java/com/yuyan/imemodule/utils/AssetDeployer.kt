@@ -0,0 +1,128 @@
+package com.yuyan.imemodule.utils
+
+import android.content.Context
+import android.os.SystemClock
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.runBlocking
+import java.io.File
+import java.io.FileOutputStream
+import java.io.IOException
+
+/**
+ * 按清单增量部署assets目录
+ *
+ * 构建时由Gradle任务generateRimeAssetManifest生成清单(相对路径\t大小\tSHA-256)，与目标目录中记录的已部署清单比较，
+ * 只复制新增或内容变化的文件，未变化的文件(包括用户修改过的词库)不再覆盖。
+ * 文件并行复制，未压缩的资源直接使用FileChannel传输，复制先写入临时文件再重命名。
+ */
+object AssetDeployer {
+    private const val TAG = "AssetDeployer"
+    private const val MANIFEST_NAME = "manifest.txt"  // assets中的资源清单
+    private const val DEPLOYED_MANIFEST_NAME = ".deployed_manifest"  // 目标目录中已部署文件的清单
+    private const val BUFFER_SIZE = 256 * 1024
+
+    private class Entry(val path: String, val size: Long, val hash: String) {
+        fun sameAs(other: Entry?) = other != null && size == other.size && hash == other.hash
+        override fun toString() = "$path\t$size\t$hash"
+    }
+
+    /**
+     * @param total 清单中的文件数
+     * @param copied 本次复制的文件数
+     * @param failed 复制失败的文件数
+     * @param bytes 本次复制的字节数
+     */
+    class Result(val total: Int, val copied: Int, val failed: Int, val bytes: Long, val costMillis: Long) {
+        override fun toString() = "total=$total, copied=$copied, failed=$failed, bytes=$bytes, cost=${costMillis}ms"
+    }
+
+    /**
+     * 部署assetDir到destDir，需在子线程调用
+     * @return 部署结果，assets中没有清单时返回null
+     */
+    fun deploy(context: Context, assetDir: String, destDir: String): Result? {
+        val start = SystemClock.elapsedRealtime()
+        val manifest = try {
+            context.assets.open("$assetDir/$MANIFEST_NAME").bufferedReader().useLines { parseManifest(it) }
+        } catch (e: IOException) {
+            return null
+        }
+        val deployedFile = File(destDir, DEPLOYED_MANIFEST_NAME)
+        val deployed = if (deployedFile.exists()) deployedFile.useLines { lines -> parseManifest(lines).associateBy { it.path } }
+            else emptyMap()
+        val changed = manifest.filter { !it.sameAs(deployed[it.path]) || !File(destDir, it.path).exists() }
+        val copied = if (changed.isEmpty()) emptyList() else runBlocking(Dispatchers.IO) {
+            changed.map { entry ->
+                async { if (copyAsset(context, "$assetDir/${entry.path}", File(destDir, entry.path))) entry else null }
+            }.awaitAll().filterNotNull()
+        }
+        if (changed.isNotEmpty()) {
+            // 复制失败的文件保留旧记录，下次启动重试
+            val copiedPaths = copied.mapTo(HashSet()) { it.path }
+            val records = manifest.mapNotNull { if (it.path in copiedPaths) it else deployed[it.path]?.takeIf { old -> it.sameAs(old) } }
+            writeManifest(deployedFile, records)
+        }
+        val result = Result(manifest.size, copied.size, changed.size - copied.size, copied.sumOf { it.size },
+            SystemClock.elapsedRealtime() - start)
+        LogUtil.d(TAG, "deploy $assetDir: $result")
+        return result
+    }
+
+    private fun parseManifest(lines: Sequence<String>): List<Entry> {
+        return lines.mapNotNull { line ->
+            val parts = line.split('\t')
+            if (parts.size < 3) return@mapNotNull null
+            val size = parts[1].toLongOrNull() ?: return@mapNotNull null
+            Entry(parts[0], size, parts[2])
+        }.toList()
+    }
+
+    private fun writeManifest(file: File, entries: List<Entry>) {
+        try {
+            val tempFile = File(file.parentFile, "${file.name}.tmp")
+            tempFile.bufferedWriter().use { writer ->
+                for (entry in entries) {
+                    writer.write(entry.toString())
+                    writer.newLine()
+                }
+            }
+            tempFile.renameTo(file)
+        } catch (e: IOException) {
+            e.printStackTrace()
+        }
+    }
+
+    private fun copyAsset(context: Context, assetPath: String, dest: File): Boolean {
+        val tempFile = File(dest.parentFile, "${dest.name}.tmp")
+        return try {
+            dest.parentFile?.mkdirs()
+            FileOutputStream(tempFile).use { out ->
+                try {
+                    // 未压缩的资源可直接按文件描述符传输
+                    context.assets.openFd(assetPath).use { fd ->
+                        fd.createInputStream().channel.use { channel ->
+                            var position = fd.startOffset
+                            val end = fd.startOffset + fd.length
+                            while (position < end) {
+                                val transferred = channel.transferTo(position, end - position, out.channel)
+                                if (transferred <= 0) throw IOException("transfer stalled: $assetPath")
+                                position += transferred
+                            }
+                        }
+                    }
+                } catch (e: IOException) {
+                    // 压缩的资源无法openFd，按流复制
+                    out.channel.truncate(0)
+                    context.assets.open(assetPath).use { input -> input.copyTo(out, BUFFER_SIZE) }
+                }
+            }
+            tempFile.renameTo(dest)
+        } catch (e: Exception) {
+            e.printStackTrace()
+            tempFile.delete()
+            false
+        }
+    }
+}
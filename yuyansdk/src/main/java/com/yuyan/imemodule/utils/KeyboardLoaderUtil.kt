@@ -21,21 +21,42 @@ import com.yuyan.imemodule.keyboard.doubleSogouMnemonicPreset
 import com.yuyan.imemodule.keyboard.doubleZiguangMnemonicPreset
 import com.yuyan.imemodule.keyboard.lx17MnemonicPreset
 import com.yuyan.imemodule.prefs.behavior.SkbStyleMode
+import com.yuyan.imemodule.utils.thread.ThreadPoolUtils
 import java.util.LinkedList
+import java.util.Objects
 
 /**
  * 键盘加载类  包括中文9键  中文26键 英文26键
+ *
+ * 横屏、竖屏分别缓存键盘布局，旋转屏幕时直接使用对应方向的缓存；键盘尺寸变化时(如折叠屏展开)对应缓存失效。
+ * 布局可在后台线程预先生成，生成与读取缓存均加锁。后台生成时同时持有[EnvironmentSingleton]的锁，
+ * 并与发起预生成时(UI线程)的屏幕方向、尺寸比较，期间屏幕已旋转或尺寸已变化时不生成。
  */
 class KeyboardLoaderUtil private constructor() {
     private var rimeValue: String? = null
     private var mSkbValue: Int = 0
     private var numberLine: Boolean = false
     private var skbStyleMode: SkbStyleMode = SkbStyleMode.Yuyan
+    @Synchronized
     fun clearKeyboardMap() {
-        mSoftKeyboardMap.clear()
+        mPortraitKeyboardCache.clear()
+        mLandscapeKeyboardCache.clear()
     }
 
+    /**
+     * 当前屏幕方向的键盘缓存
+     */
+    private fun currentCache(): KeyboardCache {
+        val env = EnvironmentSingleton.instance
+        val cache = if (env.isLandscape) mLandscapeKeyboardCache else mPortraitKeyboardCache
+        cache.validate(sizeHash(env))
+        return cache
+    }
+
+    private fun sizeHash(env: EnvironmentSingleton) = Objects.hash(env.skbWidth, env.skbHeight, env.keyXMargin, env.keyYMargin)
+
     private fun loadBaseSkb(skbValue: Int): SoftKeyboard {
+        val cache = currentCache()
         skbStyleMode = ThemeManager.prefs.skbStyleMode.getValue()
         mSkbValue = skbValue
         // shift键状态
@@ -308,7 +329,7 @@ class KeyboardLoaderUtil private constructor() {
             SkbStyleMode.Google -> numberLine
         }
         softKeyboard = getSoftKeyboard(rows, numberLineSkb)
-        mSoftKeyboardMap[skbValue] = softKeyboard
+        cache.keyboards[skbValue] = softKeyboard
         return softKeyboard
     }
 
@@ -430,21 +451,47 @@ class KeyboardLoaderUtil private constructor() {
         return keyBeans
     }
 
+    @Synchronized
     fun changeSKBNumberRow() {
-        for (skbValue in mSoftKeyboardMap.keys) {
+        val cache = currentCache()
+        (if (cache === mPortraitKeyboardCache) mLandscapeKeyboardCache else mPortraitKeyboardCache).clear()
+        for (skbValue in cache.keyboards.keys.toList()) {
             loadBaseSkb(skbValue)
         }
     }
 
+    @Synchronized
     fun getSoftKeyboard(skbValue: Int): SoftKeyboard {
         LogUtil.d("111111111111", "getSoftKeyboard  skbValue:$skbValue")
-        var softKeyboard = mSoftKeyboardMap[skbValue]
+        var softKeyboard = currentCache().keyboards[skbValue]
         if (softKeyboard == null) {
             softKeyboard = loadBaseSkb(skbValue)
         }
         return softKeyboard
     }
 
+    /**
+     * 在后台线程预先生成键盘布局，首次切换到该键盘时直接使用缓存。需在UI线程调用
+     */
+    fun prewarm(vararg skbValues: Int) {
+        val env = EnvironmentSingleton.instance
+        val isLandscape = env.isLandscape
+        val sizeHash = sizeHash(env)
+        ThreadPoolUtils.execute {
+            for (skbValue in skbValues) prewarmKeyboard(skbValue, isLandscape, sizeHash)
+        }
+    }
+
+    @Synchronized
+    private fun prewarmKeyboard(skbValue: Int, isLandscape: Boolean, sizeHash: Int) {
+        val env = EnvironmentSingleton.instance
+        synchronized(env) {
+            // 发起预生成后屏幕已旋转或尺寸已变化，由新配置按需生成
+            if (env.isLandscape != isLandscape || sizeHash(env) != sizeHash) return
+            if (currentCache().keyboards[skbValue] == null) loadBaseSkb(skbValue)
+        }
+    }
+
     /** 生成键盘布局，主要用于计算键盘边界 */
     private fun getSoftKeyboard(rows: List<List<SoftKey>>, isNumberRow: Boolean): SoftKeyboard {
         var lastKeyBottom = 0f
@@ -581,9 +628,30 @@ class KeyboardLoaderUtil private constructor() {
         return SoftKeyToggle(code)
     }
 
+    /**
+     * 单个屏幕方向的键盘缓存，记录生成布局时的键盘尺寸
+     */
+    private class KeyboardCache {
+        val keyboards = HashMap<Int, SoftKeyboard>()
+        private var sizeHash = 0
+
+        fun validate(sizeHash: Int) {
+            if (this.sizeHash != sizeHash) {
+                keyboards.clear()
+                this.sizeHash = sizeHash
+            }
+        }
+
+        fun clear() {
+            keyboards.clear()
+        }
+    }
+
     companion object {
         private var mInstance: KeyboardLoaderUtil? = null
-        private val mSoftKeyboardMap = HashMap<Int, SoftKeyboard?>() //缓存所有可用键盘
+        //缓存所有可用键盘，横竖屏分开
+        private val mPortraitKeyboardCache = KeyboardCache()
+        private val mLandscapeKeyboardCache = KeyboardCache()
         @JvmStatic
         val instance: KeyboardLoaderUtil
             get() {
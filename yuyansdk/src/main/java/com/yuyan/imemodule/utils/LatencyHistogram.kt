@@ -0,0 +1,83 @@
+package com.yuyan.imemodule.utils
+
+import java.lang.Long.numberOfLeadingZeros
+
+/**
+ * 耗时直方图(微秒)
+ *
+ * 与HdrHistogram相同的对数-线性分桶：32微秒以内每微秒一个桶，之后每个2的幂区间等分为16个桶，相对误差约6%。
+ * 桶数固定，记录只做一次数组自增，不分配内存。
+ */
+class LatencyHistogram {
+    private val counts = LongArray(BUCKET_COUNT)
+    private var totalCount = 0L
+    private var totalMicros = 0L
+    private var maxMicros = 0L
+
+    val count: Long
+        @Synchronized get() = totalCount
+
+    @Synchronized
+    fun recordNanos(nanos: Long) {
+        val micros = (nanos / 1000).coerceIn(0, MAX_MICROS)
+        counts[bucketIndex(micros)]++
+        totalCount++
+        totalMicros += micros
+        if (micros > maxMicros) maxMicros = micros
+    }
+
+    /**
+     * 百分位耗时(微秒)，返回所在桶的中间值
+     * @param percentile 0~100
+     */
+    @Synchronized
+    fun percentile(percentile: Double): Long {
+        if (totalCount == 0L) return 0
+        val rank = maxOf(1L, Math.ceil(totalCount * percentile / 100).toLong())
+        var seen = 0L
+        for (index in counts.indices) {
+            seen += counts[index]
+            if (seen >= rank) return minOf((bucketLower(index) + bucketLower(index + 1) - 1) / 2, maxMicros)
+        }
+        return maxMicros
+    }
+
+    @Synchronized
+    fun reset() {
+        counts.fill(0)
+        totalCount = 0
+        totalMicros = 0
+        maxMicros = 0
+    }
+
+    @Synchronized
+    override fun toString(): String {
+        val avg = if (totalCount == 0L) 0 else totalMicros / totalCount
+        return "count=$totalCount, avg=${avg}us, p50=${percentile(50.0)}us, p90=${percentile(90.0)}us, " +
+                "p99=${percentile(99.0)}us, max=${maxMicros}us"
+    }
+
+    companion object {
+        private const val SUB_BUCKET_BITS = 4
+        private const val SUB_BUCKET_COUNT = 1 shl SUB_BUCKET_BITS  // 每个2的幂区间的桶数
+        private const val LINEAR_LIMIT = SUB_BUCKET_COUNT * 2  // 小于该值每微秒一个桶
+        private const val MAX_EXPONENT = 36  // 最大约19小时
+        private const val MAX_MICROS = (1L shl (MAX_EXPONENT + 1)) - 1
+        private const val BUCKET_COUNT = LINEAR_LIMIT + (MAX_EXPONENT - 4) * SUB_BUCKET_COUNT
+
+        private fun bucketIndex(micros: Long): Int {
+            if (micros < LINEAR_LIMIT) return micros.toInt()
+            val exponent = 63 - numberOfLeadingZeros(micros)
+            val shift = exponent - SUB_BUCKET_BITS
+            return LINEAR_LIMIT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKET_COUNT + ((micros shr shift) - SUB_BUCKET_COUNT).toInt()
+        }
+
+        // 桶的下界(含)
+        private fun bucketLower(index: Int): Long {
+            if (index < LINEAR_LIMIT) return index.toLong()
+            val offset = index - LINEAR_LIMIT
+            val shift = offset / SUB_BUCKET_COUNT + 1
+            return (SUB_BUCKET_COUNT + offset % SUB_BUCKET_COUNT).toLong() shl shift
+        }
+    }
+}
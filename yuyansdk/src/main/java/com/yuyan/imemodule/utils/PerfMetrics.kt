@@ -0,0 +1,69 @@
+package com.yuyan.imemodule.utils
+
+import android.util.Log
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * 按键耗时统计
+ *
+ * 按"指标/方案"分别记录耗时直方图(方案如t9_pinyin、pinyin、double_pinyin_*、english)，始终开启。
+ * 可在关于页面连续点击构建时间进入统计页面查看，或通过广播输出到logcat：
+ * adb shell am broadcast -a com.yuyan.imemodule.DUMP_METRICS
+ * 广播要求发送方持有android.permission.DUMP，仅adb shell等系统调用方可触发
+ */
+object PerfMetrics {
+    private const val TAG = "PerfMetrics"
+    const val ACTION_DUMP = "com.yuyan.imemodule.DUMP_METRICS"
+
+    const val KEY_TO_CANDIDATES = "keyToCandidates"  // 按键到候选词刷新完成
+    const val PROCESS_KEY = "processKey"  // JNI按键处理
+    const val CONTEXT_FETCH = "contextFetch"  // 拉取引擎上下文(候选词)
+    const val STATUS_FETCH = "statusFetch"  // 拉取引擎状态
+    const val PHRASE_LOOKUP = "phraseLookup"  // 常用语查询
+    const val CANDIDATE_BIND = "candidateBind"  // 候选词栏刷新
+    const val COMMIT = "commit"  // 上屏
+
+    private val histograms = ConcurrentHashMap<String, ConcurrentHashMap<String, LatencyHistogram>>()  // 方案 -> 指标 -> 直方图
+
+    @Volatile
+    var schema: String = ""  // 当前输入方案，切换方案时更新
+
+    fun record(metric: String, startNanos: Long) {
+        val duration = System.nanoTime() - startNanos
+        val schema = schema
+        val metrics = histograms[schema] ?: histograms.getOrPut(schema) { ConcurrentHashMap() }
+        val histogram = metrics[metric] ?: metrics.getOrPut(metric) { LatencyHistogram() }
+        histogram.recordNanos(duration)
+    }
+
+    inline fun <T> measure(metric: String, block: () -> T): T {
+        val start = System.nanoTime()
+        try {
+            return block()
+        } finally {
+            record(metric, start)
+        }
+    }
+
+    /**
+     * 按名称排序的所有直方图
+     */
+    fun snapshot(): List<Pair<String, LatencyHistogram>> {
+        val result = ArrayList<Pair<String, LatencyHistogram>>()
+        for ((schema, metrics) in histograms) {
+            for ((metric, histogram) in metrics) result.add("$metric/$schema" to histogram)
+        }
+        return result.sortedBy { it.first }
+    }
+
+    fun reset() {
+        histograms.values.forEach { metrics -> metrics.values.forEach { it.reset() } }
+    }
+
+    /**
+     * 输出到logcat，正式版本也需输出，因此不使用LogUtil
+     */
+    fun dump() {
+        for ((name, histogram) in snapshot()) Log.i(TAG, "$name: $histogram")
+    }
+}
@@ -0,0 +1,104 @@
+package com.yuyan.imemodule.utils
+
+import android.os.Process
+import android.os.Trace
+import org.json.JSONArray
+import org.json.JSONObject
+
+/**
+ * 启动阶段耗时记录
+ *
+ * 记录每个启动阶段的开始时间(单调时钟)、耗时与线程，同时输出systrace标记。
+ * 只保留前[MAX_PHASES]条记录，可在设置中查看或导出为Chrome Trace格式(Perfetto、chrome://tracing可打开)。
+ */
+object StartupTimeline {
+    private const val TAG = "StartupTimeline"
+    private const val MAX_PHASES = 64
+
+    /**
+     * @param startNanos 相对首个阶段开始时间的偏移
+     */
+    class Phase(val name: String, val thread: String, val threadId: Long, val startNanos: Long, val durationNanos: Long)
+
+    private val phases = ArrayList<Phase>()
+    private var originNanos = -1L
+
+    /**
+     * 记录block的耗时
+     */
+    inline fun <T> trace(name: String, block: () -> T): T {
+        val start = begin(name)
+        try {
+            return block()
+        } finally {
+            end(name, start)
+        }
+    }
+
+    fun begin(name: String): Long {
+        Trace.beginSection(name)
+        val start = System.nanoTime()
+        synchronized(phases) {
+            if (originNanos < 0) originNanos = start
+        }
+        return start
+    }
+
+    fun end(name: String, startNanos: Long) {
+        val duration = System.nanoTime() - startNanos
+        Trace.endSection()
+        val thread = Thread.currentThread()
+        synchronized(phases) {
+            if (phases.size >= MAX_PHASES) return
+            phases.add(Phase(name, thread.name, thread.id, startNanos - originNanos, duration))
+        }
+        LogUtil.d(TAG, "$name: ${duration / 1000_000f}ms on ${thread.name}")
+    }
+
+    /**
+     * 按开始时间排序的所有阶段
+     */
+    fun phases(): List<Phase> {
+        return synchronized(phases) { phases.sortedBy { it.startNanos } }
+    }
+
+    /**
+     * 清空记录，仅供单元测试使用
+     */
+    internal fun reset() {
+        synchronized(phases) {
+            phases.clear()
+            originNanos = -1L
+        }
+    }
+
+    /**
+     * 导出为Chrome Trace Event格式
+     */
+    fun toTraceJson(): String {
+        val events = JSONArray()
+        val pid = Process.myPid()
+        val threads = HashMap<Long, String>()
+        for (phase in phases()) {
+            threads[phase.threadId] = phase.thread
+            events.put(JSONObject().apply {
+                put("name", phase.name)
+                put("ph", "X")
+                put("ts", phase.startNanos / 1000)
+                put("dur", phase.durationNanos / 1000)
+                put("pid", pid)
+                put("tid", phase.threadId)
+            })
+        }
+        for ((tid, name) in threads) {
+            events.put(JSONObject().apply {
+                put("name", "thread_name")
+                put("ph", "M")
+                put("pid", pid)
+                put("tid", tid)
+                put("args", JSONObject().put("name", name))
+            })
+        }
+        return JSONObject().put("traceEvents", events).put("displayTimeUnit", "ms").toString()
+    }
+}
@@ -3,16 +3,50 @@ package com.yuyan.imemodule.utils
 import com.yuyan.imemodule.application.CustomConstant
 import com.yuyan.imemodule.data.flower.FlowerTypefaceMode
 import com.yuyan.imemodule.data.flower.simplified2HotPreset
-import java.util.regex.Pattern
 
 object StringUtils {
+    private const val CLASS_LETTER = 1  // a-z、A-Z
+    private const val CLASS_DIGIT = 2  // 0-9
+    private const val CLASS_SPACE = 4  // 半角空格
+    private const val CLASS_SYMBOL = 8  // 半角符号(含空格)，不含数字、字母
+
+    // ASCII字符类别表，按位记录上面的类别
+    private val ASCII_CLASSES = ByteArray(128).apply {
+        for (c in 'a'..'z') this[c.code] = CLASS_LETTER.toByte()
+        for (c in 'A'..'Z') this[c.code] = CLASS_LETTER.toByte()
+        for (c in '0'..'9') this[c.code] = CLASS_DIGIT.toByte()
+        for (code in 32..126) if (this[code].toInt() == 0) this[code] = CLASS_SYMBOL.toByte()
+        this[' '.code] = (CLASS_SPACE or CLASS_SYMBOL).toByte()
+    }
+
+    private fun isAsciiClass(c: Char, mask: Int): Boolean = c.code < 128 && (ASCII_CLASSES[c.code].toInt() and mask) != 0
+
+    /**
+     * 是否为ASCII字母
+     */
+    @JvmStatic
+    fun isAsciiLetter(c: Char): Boolean = isAsciiClass(c, CLASS_LETTER)
+
+    /**
+     * 是否为ASCII数字
+     */
+    @JvmStatic
+    fun isAsciiDigit(c: Char): Boolean = isAsciiClass(c, CLASS_DIGIT)
+
+    /**
+     * 是否为CJK统一汉字(基本区)
+     */
+    @JvmStatic
+    fun isCjkUnified(c: Char): Boolean = c in '\u4e00'..'\u9fff'
+
     /**
      * 判断字符串是不是字母
      */
     @JvmStatic
     fun isLetter(str: String?): Boolean {
-        val pattern = Pattern.compile("[a-zA-Z]*")
-        return pattern.matcher(str.toString()).matches()
+        str ?: return false
+        for (c in str) if (!isAsciiClass(c, CLASS_LETTER)) return false
+        return true
     }
 
     /**
@@ -20,20 +54,29 @@ object StringUtils {
      */
     @JvmStatic
     fun isEnglishWord(str: String?): Boolean {
-        val pattern = Pattern.compile("[a-zA-Z ]*")
-        return pattern.matcher(str.toString()).matches()
+        str ?: return false
+        for (c in str) if (!isAsciiClass(c, CLASS_LETTER or CLASS_SPACE)) return false
+        return true
     }
 
+    /**
+     * 判断字符串是不是数字，即[+-]?\d*(\.\d*)?
+     */
     @JvmStatic
     fun isNumber(str: String?): Boolean {
         if(str.isNullOrBlank())return false
-        val pattern = Pattern.compile("^[+-]?\\d*(\\.\\d*)?\$")
-        return pattern.matcher(str).matches()
+        var index = 0
+        if (str[0] == '+' || str[0] == '-') index++
+        while (index < str.length && isAsciiDigit(str[index])) index++
+        if (index < str.length && str[index] == '.') {
+            index++
+            while (index < str.length && isAsciiDigit(str[index])) index++
+        }
+        return index == str.length
     }
 
     fun isChineseEnd(input: String): Boolean {
-        val chineseEndPattern = "[\\u4e00-\\u9fff]\$".toRegex()
-        return chineseEndPattern.find(input) != null
+        return input.isNotEmpty() && isCjkUnified(input[input.length - 1])
     }
 
     // 标点全角半角关系
@@ -76,11 +119,12 @@ object StringUtils {
         if (src == null) {
             return null
         }
-        val c = src.toCharArray()
-        for (i in c.indices) {
-            c[i] = sbc2dbc(c[i])
-        }
-        return String(c)
+        var index = 0
+        while (index < src.length && sbc2dbc(src[index]) == src[index]) index++
+        if (index == src.length) return src  // 没有全角字符时不创建新字符串
+        val chars = src.toCharArray()  // 从第一个全角字符起原地转换
+        for (i in index..<chars.size) chars[i] = sbc2dbc(chars[i])
+        return String(chars)
     }
 
     /**
@@ -88,11 +132,10 @@ object StringUtils {
      * 排除数字、大小写字母
      */
     fun isDBCSymbol(src: String?): Boolean {
-        if (src == null || src.length > 1) {
+        if (src == null || src.length != 1) {
             return false
         }
-        val c = src[0]
-        return c.code in 32..47 || c.code in 58..64 || c.code in 91..96 || c.code in 123..126
+        return isAsciiClass(src[0], CLASS_SYMBOL)
     }
 
     /**
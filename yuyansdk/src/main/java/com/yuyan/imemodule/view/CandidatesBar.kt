@@ -24,6 +24,7 @@ import com.yuyan.imemodule.data.flower.FlowerTypefaceMode
 import com.yuyan.imemodule.data.menuSkbFunsPreset
 import com.yuyan.imemodule.data.theme.ThemeManager
 import com.yuyan.imemodule.database.DataBaseKT
+import com.yuyan.imemodule.database.entry.SkbFun
 import com.yuyan.imemodule.entity.SkbFunItem
 import com.yuyan.imemodule.prefs.AppPrefs
 import com.yuyan.imemodule.prefs.behavior.KeyboardOneHandedMod
@@ -36,6 +37,8 @@ import com.yuyan.imemodule.keyboard.container.ClipBoardContainer
 import com.yuyan.imemodule.keyboard.container.InputBaseContainer
 import com.yuyan.imemodule.manager.layout.CustomLinearLayoutManager
 import com.yuyan.imemodule.prefs.behavior.SkbStyleMode
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.launch
 import splitties.dimensions.dp
 
 /**
@@ -58,6 +61,9 @@ class CandidatesBar(context: Context?, attrs: AttributeSet?) : RelativeLayout(co
     private lateinit var mCandidatesMenuAdapter: CandidatesMenuAdapter
     private lateinit var candidatesData: LinearLayout //候选词视图
     private var activeCandNo:Int = 0
+    private var barMenus: List<SkbFun> = emptyList()  // 候选词栏菜单，通过Flow监听skbfun表
+    private var barMenusJob: Job? = null
+    private var isBarMenusShowing = false
 
     fun initialize(cvListener: CandidateViewListener) {
         mCvListener = cvListener
@@ -103,7 +109,7 @@ class CandidatesBar(context: Context?, attrs: AttributeSet?) : RelativeLayout(co
                             layoutManager.findLastVisibleItemPosition()
                         val itemCount = recyclerView.adapter?.itemCount
                         if (KeyboardManager.instance.currentContainer !is CandidatesContainer && itemCount != null && DecodingInfo.activeCandidateBar >= itemCount - 1) {
-                            DecodingInfo.nextPageCandidates
+                            DecodingInfo.loadNextPage()
                         }
                     }
                 }
@@ -263,31 +269,55 @@ class CandidatesBar(context: Context?, attrs: AttributeSet?) : RelativeLayout(co
         } else if (DecodingInfo.isCandidatesListEmpty) {
             mRightArrowBtn.drawable.setLevel(0)
             showViewVisibility(mCandidatesMenuContainer)
-            val mFunItems: MutableList<SkbFunItem> = mutableListOf()
-            val barMenus = DataBaseKT.instance.skbFunDao().getALlBarMenu()
-            for (item in barMenus) {
-                val skbMenuMode = SkbMenuMode.decode(item.name)
-                val skbFunItem = menuSkbFunsPreset[skbMenuMode]
-                if (skbFunItem != null) {
-                    mFunItems.add(skbFunItem)
-                }
-            }
-            mCandidatesMenuAdapter.items = mFunItems
+            updateBarMenus()
         } else {
             if (DecodingInfo.candidateSize > DecodingInfo.activeCandidateBar) mRVCandidates.layoutManager?.scrollToPosition(DecodingInfo.activeCandidateBar)
             showViewVisibility(mCandidatesDataContainer)
             mRightArrowBtn.drawable.setLevel(if (DecodingInfo.isAssociate) 2 else if (KeyboardManager.instance.currentContainer is CandidatesContainer) 1 else 0)
         }
+        isBarMenusShowing = container !is ClipBoardContainer && DecodingInfo.isCandidatesListEmpty
         activeCandNo = 0
         mCandidatesAdapter.activeCandidates(activeCandNo)
-        mCandidatesAdapter.notifyChanged()
+        mCandidatesAdapter.submitCandidates()
         mCandidatesMenuAdapter.notifyChanged()
     }
 
+    private fun updateBarMenus() {
+        val mFunItems: MutableList<SkbFunItem> = mutableListOf()
+        for (item in barMenus) {
+            val skbMenuMode = SkbMenuMode.decode(item.name)
+            val skbFunItem = menuSkbFunsPreset[skbMenuMode]
+            if (skbFunItem != null) {
+                mFunItems.add(skbFunItem)
+            }
+        }
+        mCandidatesMenuAdapter.items = mFunItems
+    }
+
+    override fun onAttachedToWindow() {
+        super.onAttachedToWindow()
+        barMenusJob = DataBaseKT.scope.launch {
+            DataBaseKT.instance.skbFunDao().observeAllBarMenu().collect {
+                barMenus = it
+                if (isBarMenusShowing) {
+                    updateBarMenus()
+                    mCandidatesMenuAdapter.notifyChanged()
+                }
+            }
+        }
+    }
+
+    override fun onDetachedFromWindow() {
+        super.onDetachedFromWindow()
+        barMenusJob?.cancel()
+        barMenusJob = null
+    }
+
     /**
      * 显示表情
      */
     fun showEmoji() {
+        isBarMenusShowing = false
         showViewVisibility(mCandidatesMenuContainer)
         mCandidatesMenuAdapter.items = listOf(menuSkbFunsPreset[SkbMenuMode.Emoticon]!!,menuSkbFunsPreset[SkbMenuMode.Emojicon]!!)
         activeCandNo = 0
@@ -310,7 +340,6 @@ class CandidatesBar(context: Context?, attrs: AttributeSet?) : RelativeLayout(co
                 }
             }
             mCandidatesAdapter.activeCandidates(activeCandNo)
-            mCandidatesAdapter.notifyChanged()
             mRVCandidates.layoutManager?.scrollToPosition(if(activeCandNo - 1 > 0) activeCandNo - 1 else 0 )
         }
     }
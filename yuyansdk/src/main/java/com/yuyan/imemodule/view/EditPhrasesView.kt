@@ -25,6 +25,7 @@ import splitties.views.dsl.core.add
 import splitties.views.dsl.core.lParams
 import splitties.views.dsl.core.matchParent
 import splitties.views.dsl.core.wrapContent
+import kotlinx.coroutines.launch
 
 class EditPhrasesView(context: Context) : LinearLayout(context){
 
@@ -90,7 +91,7 @@ class EditPhrasesView(context: Context) : LinearLayout(context){
             val pinYinHeadT9 = pinYinHeadChar.map { T9PinYinUtils.pinyin2T9Key(it)}.joinToString("")
             val pinYinHeadLX17 = pinYinHeadChar.map { LX17PinYinUtils.pinyin2Lx17Key(it)}.joinToString("")
             val phrase =  Phrase(content = content, t9 = pinYinHeadT9, qwerty = pinYinHeadChar, lx17 = pinYinHeadLX17)
-            DataBaseKT.instance.phraseDao().insert(phrase)
+            DataBaseKT.scope.launch { DataBaseKT.instance.phraseDao().insertAsync(phrase) }
             KeyboardManager.instance.switchKeyboard(InputModeSwitcherManager.skbImeLayout)
         }
     }
@@ -1,22 +1,21 @@
 package com.yuyan.inputmethod
 
-import com.yuyan.imemodule.database.DataBaseKT
+import com.yuyan.imemodule.database.PhraseIndex
+import com.yuyan.imemodule.utils.PerfMetrics
 import com.yuyan.imemodule.utils.StringUtils
 import com.yuyan.imemodule.utils.TimeUtils
-import com.yuyan.imemodule.libs.expression.ExpressionBuilder
+import com.yuyan.imemodule.libs.expression.ExpressionCache
 import com.yuyan.imemodule.prefs.AppPrefs.Companion.getInstance
+import com.yuyan.inputmethod.util.ExpressionTailScanner
 
 object CustomEngine {
-    fun parseExpressionAtEnd(input: String): String? {
-        val expressionEndPattern = "((φ|π|pi|sin|cos|tan|cot|asin|acos|atan|sinh|cosh|tanh|abs|log|log1p|ceil|floor|sqrt|cbrt|pow|exp|expm|signum|csc|sec|csch|sech|coth|toradian|todegree|\\(|\\)|^|%|\\+|-|\\*|/|\\.|e|E|\\d)+)$".toRegex()
-        return expressionEndPattern.find(input.removeSuffix("="))?.value
-    }
+    fun parseExpressionAtEnd(input: String): String? = ExpressionTailScanner.scan(input)
 
     fun expressionCalculator(input: String, expression: String):Array<String>{
         val results = mutableListOf<String>()
         if(!StringUtils.isNumber(expression) && !StringUtils.isLetter(expression)){
             try {
-                val evaluate = ExpressionBuilder(expression).build().evaluate()
+                val evaluate = ExpressionCache.get(expression).evaluate()
                 val  resultFloat = evaluate.toFloat()
                 val  resultInt = evaluate.toInt()
                 if(evaluate.compareTo(resultInt) == 0){
@@ -53,7 +52,9 @@ object CustomEngine {
         val phrases = mutableListOf<String>()
         val chinesePredictionDate = getInstance().input.chinesePredictionDate.getValue()
         if(chinesePredictionDate) {
-            phrases.addAll(DataBaseKT.instance.phraseDao().query(text).map { it.content })
+            phrases.addAll(PerfMetrics.measure(PerfMetrics.PHRASE_LOOKUP) {
+                PhraseIndex.query(text, getInstance().input.phrasePrefixMatch.getValue())
+            })
             val suffixesDate = setOf("rq", "riqi", "7474", "77")
             if (suffixesDate.any { it == text }) {
                 phrases.addAll(TimeUtils.getData())
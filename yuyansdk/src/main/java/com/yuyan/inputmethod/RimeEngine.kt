@@ -8,6 +8,7 @@ import com.yuyan.imemodule.prefs.AppPrefs
 import com.yuyan.imemodule.utils.StringUtils
 import com.yuyan.inputmethod.core.CandidateListItem
 import com.yuyan.inputmethod.core.Rime
+import com.yuyan.inputmethod.data.CandidateBuffer
 import com.yuyan.inputmethod.data.InputKey
 import com.yuyan.inputmethod.data.KeyRecordStack
 import com.yuyan.inputmethod.util.DoublePinYinUtils
@@ -19,9 +20,10 @@ import java.util.Locale
 object RimeEngine {
     private val keyRecordStack = KeyRecordStack()
     private var pinyins: Array<String> = emptyArray() // 候选词界面的候选拼音列表
-    var showCandidates: List<CandidateListItem> = emptyList() // 所有待展示的候选词
-    var showComposition: String = "" // 候选词上方展示的拼音
-    var preCommitText: String = "" // 待提交的文字
+    @Volatile var showCandidates: List<CandidateListItem> = emptyList() // 所有待展示的候选词
+        private set
+    @Volatile var showComposition: String = "" // 候选词上方展示的拼音
+    @Volatile var preCommitText: String = "" // 待提交的文字
     private var customPhraseSize: Int = 0 // 自定义引擎候选词长度
     fun init() {
         Rime.getInstance(false)
@@ -29,6 +31,7 @@ object RimeEngine {
 
     fun selectSchema(mod: String): Boolean {
         keyRecordStack.clear()
+        Rime.candidatePageSize = AppPrefs.getInstance().internal.candidatesPageSize.getValue()
         Rime.startup(Launcher.instance.context, false)
         return Rime.selectSchema(mod)
     }
@@ -45,16 +48,39 @@ object RimeEngine {
     }
 
     fun onNormalKey(event: KeyEvent) {
+        onNormalKey(event, true)
+    }
+
+    /**
+     * 处理按键，[refresh]为false且引擎仍在输入中时跳过候选词刷新(由后续按键合并刷新)。
+     * @return 是否已刷新候选词
+     */
+    fun onNormalKey(event: KeyEvent, refresh: Boolean): Boolean {
         val keyCode = event.keyCode
-        val keyChar = if(keyCode == KeyEvent.KEYCODE_APOSTROPHE) if(isFinish()) '/'.code else '\''.code
+        val keyChar = if(keyCode == KeyEvent.KEYCODE_APOSTROPHE) if(isFinish() && !Rime.isComposing) '/'.code else '\''.code
             else event.unicodeChar
-        if (keyRecordStack.pushKey(event))Rime.processKey(keyChar, event.action)
-        updateCandidatesOrCommitText()
+        if (keyRecordStack.pushKey(event))Rime.processKey(keyChar, event.action, refresh)
+        return refreshIfNeeded(refresh)
     }
 
     fun onDeleteKey() {
+        onDeleteKey(true)
+    }
+
+    /**
+     * 处理删除，[refresh]为false且引擎仍在输入中时跳过候选词刷新(由后续按键合并刷新)。
+     * @return 是否已刷新候选词
+     */
+    fun onDeleteKey(refresh: Boolean): Boolean {
         processDelAction()
+        return refreshIfNeeded(refresh)
+    }
+
+    private fun refreshIfNeeded(refresh: Boolean): Boolean {
+        if (!refresh && Rime.isComposing) return false
+        if (!refresh) Rime.updateContext()
         updateCandidatesOrCommitText()
+        return true
     }
 
     fun selectCandidate(index: Int): String? {
@@ -64,10 +90,14 @@ object RimeEngine {
         return updateCandidatesOrCommitText()
     }
 
+    /**
+     * 是否还有未拉取的候选词
+     */
+    fun hasMoreCandidates(): Boolean = Rime.hasRight()
+
     fun getNextPageCandidates(): Array<CandidateListItem> {
         return if (Rime.hasRight()) {
-            Rime.processKey(getRimeKeycodeByName("Page_Down"), 0)
-           val candidates = Rime.getRimeContext()!!.candidates
+            val candidates = Rime.nextCandidatePage()
             if (InputModeSwitcherManager.isEnglishUpperCase) {
                 for (item in candidates) {
                     item.text = item.text.lowercase().replaceFirstChar { if (it.isLowerCase()) it.titlecase(Locale.getDefault()) else it.toString() }
@@ -94,10 +124,10 @@ object RimeEngine {
     fun predictAssociationWords(text: String) {
         pinyins = emptyArray()
         if (text.isNotEmpty()) {
-            val words = CustomEngine.predictAssociationWordsChinese(text).plus(Rime.getAssociateList(text))
-            showCandidates = words.filterNotNull().map {
-                CandidateListItem("", it)
-            }
+            val buffer = CandidateBuffer.obtain()
+            for (word in CustomEngine.predictAssociationWordsChinese(text)) buffer.add("", word)
+            for (word in Rime.getAssociateList(text)) if (word != null) buffer.add("", word)
+            replaceCandidates(buffer)
             showComposition = ""
         }
     }
@@ -110,7 +140,7 @@ object RimeEngine {
     }
 
     fun reset() {
-        showCandidates = emptyList()
+        replaceCandidates(emptyList())
         pinyins = emptyArray()
         showComposition = ""
         preCommitText = ""
@@ -153,11 +183,12 @@ object RimeEngine {
     }
 
     private fun updateCandidatesOrCommitText(): String? {
+        val rimeSchema = Rime.getCurrentRimeSchema()
         val rimeCommit = Rime.getRimeCommit()
         if (rimeCommit != null) {
             keyRecordStack.clear()
             preCommitText = rimeCommit.commitText
-            if(Rime.getCurrentRimeSchema() == CustomConstant.SCHEMA_EN) {
+            if(rimeSchema == CustomConstant.SCHEMA_EN) {
                 preCommitText = if (InputModeSwitcherManager.isEnglishUpperCase) {
                     preCommitText.lowercase().replaceFirstChar { if (it.isLowerCase()) it.titlecase(Locale.getDefault()) else it.toString() }
                 } else if (InputModeSwitcherManager.isEnglishUpperLockCase) {
@@ -167,40 +198,39 @@ object RimeEngine {
                 }
             }
             showComposition = ""
-            showCandidates = emptyList()
+            replaceCandidates(emptyList())
             return preCommitText
         }
-        val candidates = Rime.getRimeContext()?.candidates?.asList() ?: emptyList()
+        val candidates = Rime.candidates  // 复用按键时已拉取的上下文，不再重复跨JNI获取
+        val buffer = CandidateBuffer.obtain()
         customPhraseSize = 0
         val compositionText = Rime.compositionText
-        showCandidates = when {
-            compositionText.isNotBlank() -> {
-                val phrase = CustomEngine.processPhrase(compositionText.replace("\'", ""))
-                if(InputModeSwitcherManager.isEnglish && StringUtils.isLetter(compositionText) &&
-                    !compositionText.equals(candidates.first().text, ignoreCase = true) ){
-                    phrase.add(0, compositionText)
-                }
-                customPhraseSize = phrase.size
-                phrase.map { content -> CandidateListItem("📋", content) }.toMutableList().plus(candidates)
+        if (compositionText.isNotBlank()) {
+            val phrase = CustomEngine.processPhrase(compositionText.replace("\'", ""))
+            if(InputModeSwitcherManager.isEnglish && StringUtils.isLetter(compositionText) &&
+                !compositionText.equals(candidates.firstOrNull()?.text, ignoreCase = true) ){
+                phrase.add(0, compositionText)
             }
-            else -> candidates
+            customPhraseSize = phrase.size
+            for (content in phrase) buffer.add("📋", content)
         }
-        var composition = getCurrentComposition(candidates)
-        if(Rime.getCurrentRimeSchema() == CustomConstant.SCHEMA_EN) {
+        buffer.addAll(candidates)
+        var composition = getCurrentComposition(rimeSchema, candidates)
+        if(rimeSchema == CustomConstant.SCHEMA_EN) {
             if (InputModeSwitcherManager.isEnglishUpperCase) {
-                for (item in showCandidates) item.text = item.text.lowercase()
-                    .replaceFirstChar { if (it.isLowerCase()) it.titlecase(Locale.getDefault()) else it.toString() }
+                buffer.transformText { text -> text.lowercase()
+                    .replaceFirstChar { if (it.isLowerCase()) it.titlecase(Locale.getDefault()) else it.toString() } }
                 composition = composition.lowercase()
                     .replaceFirstChar { if (it.isLowerCase()) it.titlecase(Locale.getDefault()) else it.toString() }
             } else if (InputModeSwitcherManager.isEnglishUpperLockCase) {
-                for (item in showCandidates) item.text = item.text.uppercase()
+                buffer.transformText { it.uppercase() }
                 composition = composition.uppercase()
             } else {
-                for (item in showCandidates) item.text = item.text.lowercase()
+                buffer.transformText { it.lowercase() }
                 composition = composition.lowercase()
             }
         }
-        val rimeSchema = Rime.getCurrentRimeSchema()
+        replaceCandidates(buffer)
         pinyins = when (rimeSchema) {
             CustomConstant.SCHEMA_ZH_T9 -> {
                 T9PinYinUtils.t9KeyToPinyin(compositionText.filter { it.isUpperCase() })
@@ -217,6 +247,15 @@ object RimeEngine {
         return null
     }
 
+    /**
+     * 替换当前候选词，释放引擎对旧缓冲区的引用(界面仍持有时由界面换用后回收)
+     */
+    private fun replaceCandidates(candidates: List<CandidateListItem>) {
+        val old = showCandidates
+        showCandidates = candidates
+        (old as? CandidateBuffer)?.release()
+    }
+
     /**
      * 拿到候选词拼音组合
      */
@@ -224,9 +263,8 @@ object RimeEngine {
         return pinyins
     }
 
-    private fun getCurrentComposition(candidates: List<CandidateListItem>): String {
+    private fun getCurrentComposition(rimeSchema: String, candidates: Array<CandidateListItem>): String {
         val composition = Rime.compositionText
-        val rimeSchema = Rime.getCurrentRimeSchema()
         if(rimeSchema == CustomConstant.SCHEMA_EN) return ""
         if(composition.isEmpty()) return ""
         if(candidates.isEmpty()) return composition
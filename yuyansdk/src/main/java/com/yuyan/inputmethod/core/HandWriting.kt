@@ -51,10 +51,10 @@ object HandWriting {
                     val code = jsonObject1.optInt("code")
                     if (code == 0) {
                         val result = jsonObject1.optString("result")
-                        val results = result.split(",0,".toRegex()).dropLastWhile { it.isEmpty() }
+                        val results = result.split(",0,").dropLastWhile { it.isEmpty() }
                         val recogResultItems = ArrayList<CandidateListItem>()
                         for (can in results) {
-                            val cans = can.split(",".toRegex()).dropLastWhile { it.isEmpty() }
+                            val cans = can.split(",").dropLastWhile { it.isEmpty() }
                             val sb = StringBuilder()
                             for (ca in cans) {
                                 sb.append(Integer.parseInt(ca).toChar())
@@ -1,15 +1,26 @@
 package com.yuyan.inputmethod.core
 
 import android.view.KeyEvent
+import com.yuyan.imemodule.manager.RimeDictionaryEditor
 import com.yuyan.imemodule.prefs.AppPrefs
 import com.yuyan.imemodule.service.DecodingInfo
+import com.yuyan.imemodule.utils.AllocationCounter
+import com.yuyan.imemodule.utils.PerfMetrics
 import com.yuyan.inputmethod.RimeEngine
+import com.yuyan.inputmethod.data.CandidateBuffer
 
 object Kernel {
 
+    // 引擎状态版本，每次按键、选词、重置等改变拼写的操作递增，用于丢弃过期的后台分页结果
+    @Volatile
+    var stateVersion = 0
+        private set
+
     // 初始化输入法
     @Synchronized
     fun initImeSchema(schema: String) {
+        PerfMetrics.schema = schema
+        stateVersion++
         RimeEngine.selectSchema(schema)
         nativeUpdateImeOption()
     }
@@ -19,31 +30,61 @@ object Kernel {
     }
 
     // 传入一个键码
+    @Synchronized
     fun inputKeyCode(event: KeyEvent) {
+        stateVersion++
+        AllocationCounter.begin()
         RimeEngine.onNormalKey(event)
+        AllocationCounter.end()
+    }
+
+    // 传入一个键码，refresh为false且仍在输入中时不刷新候选词，返回是否已刷新
+    @Synchronized
+    fun inputKeyCode(event: KeyEvent, refresh: Boolean): Boolean {
+        stateVersion++
+        AllocationCounter.begin()
+        return RimeEngine.onNormalKey(event, refresh).also {
+            AllocationCounter.end()
+        }
     }
 
     // 是否输入完毕，等待上屏。
     val isFinish: Boolean
         get() = RimeEngine.isFinish()
 
-    val candidates: List<CandidateListItem>
-        get() = RimeEngine.showCandidates
+    // 引擎中是否有未完成的拼写，按键后即更新，不依赖候选词是否刷新
+    val isComposing: Boolean
+        get() = Rime.isComposing
+
+    // 当前候选词的只读列表，不复制。为缓冲区时已增加一次引用，调用方发布到界面，换用其他列表后释放
+    @Synchronized
+    fun acquireCandidates(): List<CandidateListItem> =
+        RimeEngine.showCandidates.let { if (it is CandidateBuffer) it.retain() else it }
+
+    // 引擎状态仍为version时拉取下一页候选词，状态已变化时返回null
+    @Synchronized
+    fun nextPageCandidates(version: Int): Array<CandidateListItem>? =
+        if (version != stateVersion) null else RimeEngine.getNextPageCandidates()
 
-    val nextPageCandidates: Array<CandidateListItem>
-        get() = RimeEngine.getNextPageCandidates()
+    // 是否还有未拉取的候选词
+    val hasMoreCandidates: Boolean
+        get() = RimeEngine.hasMoreCandidates()
 
     // 拿到候选词拼音
     val prefixs: Array<String>
         get() = RimeEngine.getPrefixs()
 
     // 选择某个候选拼音
+    @Synchronized
     fun selectPrefix(index: Int) {
+        stateVersion++
         RimeEngine.selectPinyin(index)
     }
 
     // 执行选择动作，选择了index指向的词语
+    @Synchronized
     fun getWordSelectedWord(index: Int) {
+        stateVersion++
         if (DecodingInfo.isAssociate) RimeEngine.selectAssociation(index)
         else RimeEngine.selectCandidate(index)
     }
@@ -57,23 +98,38 @@ object Kernel {
         get() = RimeEngine.preCommitText
 
     // 删除操作
+    @Synchronized
     fun deleteAction() {
+        stateVersion++
         RimeEngine.onDeleteKey()
     }
 
+    // 删除操作，refresh为false且仍在输入中时不刷新候选词，返回是否已刷新
+    @Synchronized
+    fun deleteAction(refresh: Boolean): Boolean {
+        stateVersion++
+        return RimeEngine.onDeleteKey(refresh)
+    }
+
     // 重置输入状态
+    @Synchronized
     fun reset() {
+        stateVersion++
         RimeEngine.reset()
     }
 
     // 释放内存
+    @Synchronized
     fun resetIme() {
+        RimeDictionaryEditor.flush()  // 繁简词库的修改先写入词库文件，部署后OpenCC才能读取
         RimeEngine.destroy()
         initImeSchema(AppPrefs.getInstance().internal.pinyinModeRime.getValue())
     }
 
     // 根据输入的字符查询候选词
+    @Synchronized
     fun getAssociateWord(words: String) {
+        stateVersion++
         RimeEngine.predictAssociationWords(words)
     }
 
@@ -3,7 +3,7 @@ package com.yuyan.inputmethod.core
 import android.content.Context
 import com.yuyan.imemodule.application.CustomConstant
 import com.yuyan.imemodule.application.Launcher
-import kotlin.system.measureTimeMillis
+import com.yuyan.imemodule.utils.PerfMetrics
 
 class Rime(fullCheck: Boolean) {
 
@@ -15,6 +15,12 @@ class Rime(fullCheck: Boolean) {
         private var instance: Rime? = null
         private var mContext: RimeContext? = null
         private var mStatus: RimeStatus? = null
+        const val DEFAULT_CANDIDATE_PAGE_SIZE = 30
+
+        // 每次按键从引擎拉取的候选词数量(首屏)，后续候选词通过翻页按需拉取
+        @JvmStatic
+        var candidatePageSize = DEFAULT_CANDIDATE_PAGE_SIZE
+            set(value) { field = value.coerceIn(5, 100) }
 
         @JvmStatic
         fun getInstance(fullCheck: Boolean = false): Rime {
@@ -38,13 +44,13 @@ class Rime(fullCheck: Boolean) {
         }
 
         fun updateStatus() {
-            measureTimeMillis {
+            PerfMetrics.measure(PerfMetrics.STATUS_FETCH) {
                 mStatus = getRimeStatus() ?: RimeStatus()
             }
         }
 
         fun updateContext() {
-            measureTimeMillis {
+            PerfMetrics.measure(PerfMetrics.CONTEXT_FETCH) {
                 mContext = getRimeContext() ?: RimeContext()
             }
             updateStatus()
@@ -71,15 +77,38 @@ class Rime(fullCheck: Boolean) {
         val compositionText: String
             get() = composition?.preedit ?: ""
 
+        // 最近一次拉取的上下文中当前页的候选词
+        @JvmStatic
+        val candidates: Array<CandidateListItem>
+            get() = mContext?.candidates ?: emptyArray()
+
         @JvmStatic
         fun processKey(keycode: Int, mask: Int): Boolean {
+            return processKey(keycode, mask, true)
+        }
+
+        /**
+         * @param refresh 为false时只刷新状态，不拉取上下文(候选词)，用于连续按键合并
+         */
+        @JvmStatic
+        fun processKey(keycode: Int, mask: Int, refresh: Boolean): Boolean {
             if (keycode <= 0 || keycode == 0xffffff) return false
-            setRimePageSize(100)
-            return processRimeKey(keycode, mask).also {
-                updateContext()
+            setRimePageSize(candidatePageSize)
+            return PerfMetrics.measure(PerfMetrics.PROCESS_KEY) { processRimeKey(keycode, mask) }.also {
+                if (refresh) updateContext() else updateStatus()
             }
         }
 
+        /**
+         * 拉取下一页候选词，没有更多候选词时返回空数组
+         */
+        @JvmStatic
+        fun nextCandidatePage(): Array<CandidateListItem> {
+            if (!hasRight()) return emptyArray()
+            processKey(getRimeKeycodeByName("Page_Down"), 0)
+            return mContext?.candidates ?: emptyArray()
+        }
+
         @JvmStatic
         fun replaceKey(caretPos: Int, length: Int, key: String): Boolean {
             return replaceRimeKey(caretPos, length, key).also {
@@ -116,7 +145,9 @@ class Rime(fullCheck: Boolean) {
         }
 
         fun chooseAssociate(index: Int): Boolean {
-            return selectRimeAssociate(index)
+            return selectRimeAssociate(index).also {
+                updateContext()
+            }
         }
 
         @JvmStatic
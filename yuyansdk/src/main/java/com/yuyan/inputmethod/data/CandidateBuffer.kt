@@ -0,0 +1,94 @@
+package com.yuyan.inputmethod.data
+
+import com.yuyan.inputmethod.core.CandidateListItem
+import java.util.ArrayDeque
+
+/**
+ * 可复用的候选词缓冲区
+ *
+ * 候选词对象在多次按键之间复用，回收后只重置长度，不释放对象，稳定输入时不再产生新的列表和候选词对象。
+ * 缓冲区按引用计数回收：引擎与界面(候选词LiveData)各持有一次引用，发布后对外是只读列表，内容不再改变；
+ * 双方都换用其他列表、调用[release]后才放回池中，供下一次[obtain]重新填充。
+ * 界面尚未换用时引擎会取用池中其他缓冲区，池空时新建，稳定输入时池中通常只有2~3个缓冲区。
+ */
+class CandidateBuffer private constructor() : AbstractList<CandidateListItem>(), RandomAccess {
+    private var items = arrayOfNulls<CandidateListItem>(INITIAL_CAPACITY)
+    private var count = 0
+    private var refCount = 0
+
+    override val size: Int
+        get() = count
+
+    override fun get(index: Int): CandidateListItem {
+        if (index !in 0..<count) throw IndexOutOfBoundsException("index: $index, size: $count")
+        return items[index]!!
+    }
+
+    fun add(comment: String, text: String) {
+        if (count == items.size) items = items.copyOf(items.size * 2)
+        val item = items[count]
+        if (item == null) {
+            items[count] = CandidateListItem(comment, text)
+        } else {
+            item.comment = comment
+            item.text = text
+        }
+        count++
+    }
+
+    fun addAll(candidates: Array<CandidateListItem>) {
+        for (candidate in candidates) add(candidate.comment, candidate.text)
+    }
+
+    fun addAll(candidates: List<CandidateListItem>) {
+        for (candidate in candidates) add(candidate.comment, candidate.text)
+    }
+
+    /**
+     * 原地转换所有候选词文字，用于英文大小写，只能在发布前调用
+     */
+    inline fun transformText(transform: (String) -> String) {
+        for (i in 0..<size) {
+            val item = get(i)
+            item.text = transform(item.text)
+        }
+    }
+
+    /**
+     * 增加一次引用，用于把引擎持有的缓冲区发布给界面
+     */
+    fun retain(): CandidateBuffer {
+        synchronized(pool) {
+            check(refCount > 0) { "buffer already recycled" }
+            refCount++
+        }
+        return this
+    }
+
+    /**
+     * 释放一次引用，引用全部释放后放回池中
+     */
+    fun release() {
+        synchronized(pool) {
+            check(refCount > 0) { "buffer already recycled" }
+            if (--refCount == 0 && pool.size < MAX_POOLED) pool.addLast(this)
+        }
+    }
+
+    companion object {
+        private const val INITIAL_CAPACITY = 64
+        private const val MAX_POOLED = 4
+        private val pool = ArrayDeque<CandidateBuffer>()
+
+        /**
+         * 取出一个空的缓冲区，调用方持有一次引用
+         */
+        fun obtain(): CandidateBuffer {
+            val buffer = synchronized(pool) {
+                (pool.pollLast() ?: CandidateBuffer()).also { it.refCount = 1 }
+            }
+            buffer.count = 0
+            return buffer
+        }
+    }
+}
@@ -7,7 +7,6 @@ import com.yuyan.inputmethod.core.Rime
 import com.yuyan.inputmethod.data.InputKey.QwertKey
 import com.yuyan.inputmethod.util.LX17PinYinUtils
 import com.yuyan.inputmethod.util.T9PinYinUtils
-import java.util.LinkedList
 
 class KeyRecordStack {
     private val keyRecords = ArrayList<InputKey>(20)
@@ -54,24 +53,11 @@ class KeyRecordStack {
 
     fun pushPinyinSelectAction(pinyin: String?): InputKey.PinyinKey? {
         pinyin ?: return null
-        val keys = LinkedList<QwertKey>()
-        val rimeSchema = Rime.getCurrentRimeSchema()
-        when (rimeSchema) {
-            CustomConstant.SCHEMA_ZH_T9 -> {
-                T9PinYinUtils.pinyin2Key(pinyin).forEach {
-                    keys.add(QwertKey(it))
-                }
-            }
-            CustomConstant.SCHEMA_ZH_DOUBLE_LX17 -> {
-                LX17PinYinUtils.pinyin2Key(pinyin).forEach {
-                    keys.add(QwertKey(it))
-                }
-            }
-        }
-        val index1 = (0..keyRecords.size - keys.size).indexOfFirst { start ->
-            keys.indices.all { j -> keyRecords[start + j].toString() == keys[j].toString() }
+        val keys = InputKey.PinyinKey.keysOf(pinyin)
+        val index1 = (0..keyRecords.size - keys.length).indexOfFirst { start ->
+            keys.indices.all { j -> keyRecords[start + j].isKey(keys[j]) }
         }
-        repeat(keys.size) {
+        repeat(keys.length) {
             keyRecords.removeAt(index1)
         }
         keyRecords.add(index1, InputKey.PinyinKey(pinyin))
@@ -105,6 +91,9 @@ class KeyRecordStack {
         return inputKey
     }
 
+    private fun InputKey.isKey(keyChar: Char): Boolean =
+        (this is InputKey.T9Key && this.keyChar == keyChar) || (this is QwertKey && this.keyChar == keyChar)
+
     private fun <T> ArrayList<T>.replaceAt(index: Int, elements: List<T>) {
         if (index == lastIndex) {
             removeAt(index)
@@ -126,13 +115,13 @@ interface InputKey {
     object DefaultAction : InputKey
 
     object SelectPinyinAction : InputKey
-    class T9Key(private val keyChar: Char, var consumed: Boolean = false) : InputKey {
+    class T9Key(val keyChar: Char, var consumed: Boolean = false) : InputKey {
         constructor(keyCode: Int) : this(keyCode.toChar())
 
         override fun toString(): String = keyChar.toString()
     }
 
-    class QwertKey(private val keyChar: Char) : InputKey {
+    class QwertKey(val keyChar: Char) : InputKey {
         constructor(keyCode: Int) : this(keyCode.toChar())
 
         override fun toString(): String = keyChar.toString()
@@ -141,41 +130,25 @@ interface InputKey {
     class PinyinKey(private val pinyin: String, val posInInput: Int = 0) : InputKey {
         val pinyinLength: Int = pinyin.length
         val inputKeyLength: Int = pinyinLength + 1
-        fun t9Keys(): String {
-            val rimeSchema = Rime.getCurrentRimeSchema()
-            return when (rimeSchema) {
-                CustomConstant.SCHEMA_ZH_T9 -> {
-                    T9PinYinUtils.pinyin2Key(pinyin)
-                }
-                CustomConstant.SCHEMA_ZH_DOUBLE_LX17 -> {
-                    LX17PinYinUtils.pinyin2Key(pinyin)
-                }
-                else -> ""
-            }
-        }
+        fun t9Keys(): String = keysOf(pinyin)
 
-        fun restoreToT9key(): List<QwertKey> {
-            val keys = LinkedList<QwertKey>()
-            val rimeSchema = Rime.getCurrentRimeSchema()
-            when (rimeSchema) {
-                CustomConstant.SCHEMA_ZH_T9 -> {
-                    T9PinYinUtils.pinyin2Key(pinyin).forEach {
-                        keys.add(QwertKey(it))
-                    }
-                }
-                CustomConstant.SCHEMA_ZH_DOUBLE_LX17 -> {
-                    LX17PinYinUtils.pinyin2Key(pinyin).forEach {
-                        keys.add(QwertKey(it))
-                    }
-                }
-                else -> pinyin
-            }
-
-            return keys
-        }
+        fun restoreToT9key(): List<QwertKey> = t9Keys().map { QwertKey(it) }
 
         fun copy(posInInput: Int) = PinyinKey(pinyin, posInInput)
 
         fun pinyin() = "${pinyin.lowercase()}'"
+
+        companion object {
+            /**
+             * 拼音在当前方案下对应的按键序列
+             */
+            fun keysOf(pinyin: String): String {
+                return when (Rime.getCurrentRimeSchema()) {
+                    CustomConstant.SCHEMA_ZH_T9 -> T9PinYinUtils.pinyin2Key(pinyin)
+                    CustomConstant.SCHEMA_ZH_DOUBLE_LX17 -> LX17PinYinUtils.pinyin2Key(pinyin)
+                    else -> ""
+                }
+            }
+        }
     }
 }
\ No newline at end of file
@@ -32,7 +32,7 @@ object DoublePinYinUtils {
     )
 
     fun getDoublePinYinComposition(rimeSchema: String, composition: String, comment: String): String {
-        val compositionList = composition.filter { it.code <= 0xFF }.split("'".toRegex())
+        val compositionList = composition.filter { it.code <= 0xFF }.split('\'')
         return buildSpannedString {
             append(composition.filter { it.code > 0xFF })
             if(comment.isEmpty()){
@@ -0,0 +1,56 @@
+package com.yuyan.inputmethod.util
+
+/**
+ * 识别文本末尾的算式
+ *
+ * 找出末尾能完整切分为算式记号(数字、运算符、常量、函数名)的最长后缀，不使用正则。
+ * 从光标处向前扫描，记录从各位置起到末尾能否完整切分；连续MAX_WORD_LENGTH个位置都不能切分时，
+ * 更前面的记号无法越过这段位置，停止扫描。耗时只与末尾算式长度有关，与传入的文本长度(如光标前100个字符的滑动窗口)无关。
+ */
+object ExpressionTailScanner {
+    private val WORDS = arrayOf(
+        "pi", "sin", "cos", "tan", "cot", "asin", "acos", "atan", "sinh", "cosh", "tanh", "abs", "log", "log1p",
+        "ceil", "floor", "sqrt", "cbrt", "pow", "exp", "expm", "signum", "csc", "sec", "csch", "sech", "coth",
+        "toradian", "todegree",
+    )
+
+    private val MAX_WORD_LENGTH = WORDS.maxOf { it.length }
+
+    /**
+     * @return 末尾的算式(忽略结尾的一个=)，没有时返回null
+     */
+    fun scan(input: CharSequence): String? {
+        val end = if (input.isNotEmpty() && input[input.length - 1] == '=') input.length - 1 else input.length
+        // 第k位表示从index + k起到end能否完整切分，初始只有end(空后缀)可切分
+        var reachable = 1
+        var start = -1
+        for (index in end - 1 downTo 0) {
+            val c = input[index]
+            var matched = isOperandChar(c) && reachable and 1 != 0
+            if (!matched) {
+                for (word in WORDS) {
+                    if (word[0] == c && reachable shr (word.length - 1) and 1 != 0 && matchesAt(input, index, end, word)) {
+                        matched = true
+                        break
+                    }
+                }
+            }
+            reachable = reachable shl 1 or (if (matched) 1 else 0)
+            if (matched) start = index
+            else if (reachable and ((1 shl MAX_WORD_LENGTH) - 1) == 0) break
+        }
+        return if (start < 0) null else input.substring(start, end)
+    }
+
+    private fun matchesAt(input: CharSequence, start: Int, end: Int, word: String): Boolean {
+        if (start + word.length > end) return false
+        for (index in word.indices) if (input[start + index] != word[index]) return false
+        return true
+    }
+
+    // 单字符记号
+    private fun isOperandChar(c: Char): Boolean = when (c) {
+        in '0'..'9', '+', '-', '*', '/', '%', '^', '.', '(', ')', 'e', 'E', 'φ', 'π' -> true
+        else -> false
+    }
+}
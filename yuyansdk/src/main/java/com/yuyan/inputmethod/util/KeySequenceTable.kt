@@ -0,0 +1,43 @@
+package com.yuyan.inputmethod.util
+
+/**
+ * 按键序列与拼音的双向查询表，T9与LX17共用
+ *
+ * 构建时一次性拆分拼音，之后只读，查询不再拆分、拼接字符串。
+ * @param pinyinMap 按键序列 -> 逗号分隔的拼音
+ * @param maxKeyLength 正向查询时按键序列的最大长度
+ */
+class KeySequenceTable(pinyinMap: Map<String, String>, private val maxKeyLength: Int) {
+    private val forward = HashMap<String, Array<String>>(pinyinMap.size * 2)  // 按键序列 -> 拼音
+    private val reverse = HashMap<String, String>(pinyinMap.size * 4)  // 拼音 -> 按键序列
+
+    init {
+        for ((key, value) in pinyinMap) {
+            val pinyins = value.split(",").toTypedArray()
+            forward[key] = pinyins
+            // 同一拼音对应多个按键序列时，取遍历中的第一个
+            for (pinyin in pinyins) reverse.putIfAbsent(pinyin, key)
+        }
+    }
+
+    /**
+     * 按键序列各前缀(由长到短)对应的拼音
+     * 与旧实现一致：序列为空时返回空数组，没有匹配的前缀时返回只含空串的数组
+     */
+    fun keyToPinyin(sequence: String?): Array<String> {
+        if (sequence.isNullOrEmpty()) return emptyArray()
+        val result = ArrayList<String>(8)
+        for (length in minOf(sequence.length, maxKeyLength) downTo 1) {
+            forward[sequence.substring(0, length)]?.let { result.addAll(it) }
+        }
+        return if (result.isEmpty()) arrayOf("") else result.toTypedArray()
+    }
+
+    /**
+     * 拼音对应的按键序列，没有时返回空串
+     */
+    fun pinyinToKey(pinyin: String?): String {
+        if (pinyin.isNullOrEmpty()) return ""
+        return reverse[pinyin] ?: ""
+    }
+}
@@ -33,7 +33,8 @@ object LX17PinYinUtils {
         'y' to "Y",
     )
 
-    private val lx17PinyinMap = HashMap<String, String>(225)
+    // internal供单元测试与旧实现对比
+    internal val lx17PinyinMap = HashMap<String, String>(225)
 
     init {
         lx17PinyinMap.put("H", "h,p")
@@ -349,40 +350,20 @@ object LX17PinYinUtils {
         lx17PinyinMap.put("TT", "tong")
     }
 
+    private val table = KeySequenceTable(lx17PinyinMap, 2)
+
     /**
      * 获取键码对应的拼音组合
      */
     fun lx17KeyToPinyin(sequence: String?): Array<String> {
-        if (sequence.isNullOrEmpty()) {
-            return emptyArray()
-        }
-        val sequenceString = if (sequence.length > 2) sequence.substring(0..1) else sequence
-        val pinyin = ArrayList<String>(5)
-        for (length in sequenceString.length downTo 1) {
-            val prefix = sequenceString.substring(0, length)
-            lx17PinyinMap[prefix]?.let { value ->
-                pinyin.add(value)
-            }
-        }
-        return pinyin.joinToString(",") { it }.split(",").toTypedArray()
+        return table.keyToPinyin(sequence)
     }
 
 
     /**
      * 获取拼音拼音对应的键码
      */
-    fun pinyin2Key(sequence: String?): String {
-        if (sequence.isNullOrEmpty()) {
-            return ""
-        }
-        for ((key, value) in lx17PinyinMap) {
-            val pinyinList = value.split(",")
-            if (pinyinList.any { it == sequence }) {
-                return key
-            }
-        }
-        return ""
-    }
+    fun pinyin2Key(sequence: String?): String = table.pinyinToKey(sequence)
 
     fun pinyin2Lx17Key(pinyin: Char): String = lx17KeyMap[pinyin]?:pinyin.toString()
 }
\ No newline at end of file
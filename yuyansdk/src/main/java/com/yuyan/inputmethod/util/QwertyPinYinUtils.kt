@@ -3,7 +3,7 @@ package com.yuyan.inputmethod.util
 object QwertyPinYinUtils {
     fun getQwertyComposition(composition: String, comment: String): String {
         if(comment.isEmpty())return composition
-        val compositionList = composition.filter { it.code <= 0xFF }.split("'".toRegex())
+        val compositionList = composition.filter { it.code <= 0xFF }.split('\'')
         return buildSpannedString {
             append(composition.filter { it.code > 0xFF })
             comment.split("'").zip(compositionList).forEach { (pinyin, compo) ->
@@ -28,7 +28,8 @@ object T9PinYinUtils {
         'y' to 'W',
         'z' to 'W',
     )
-    private val pinyinMap = HashMap<String, String>(225)
+    // internal供单元测试与旧实现对比
+    internal val pinyinMap = HashMap<String, String>(225)
 
     init {
         pinyinMap.put("A", "a,b,c")
@@ -258,44 +259,26 @@ object T9PinYinUtils {
         pinyinMap.put("WGTAMG", "zhuang")
     }
 
+    private val table = KeySequenceTable(pinyinMap, 6)
+
     /**
      * 获取T9键码对应的拼音组合
      */
     fun t9KeyToPinyin(t9Sequence: String?): Array<String> {
-        if (t9Sequence.isNullOrEmpty()) {
-            return emptyArray()
-        }
-        val t9NumString = if (t9Sequence.length > 6) t9Sequence.substring(0, 6) else t9Sequence
-        val pinyin = ArrayList<String>(5)
-        for (length in t9NumString.length downTo 1) {
-            val prefix = t9NumString.substring(0, length)
-            pinyinMap[prefix]?.let { value ->
-                pinyin.add(value)
-            }
-        }
-        return pinyin.joinToString(",") { it }.split(",").toTypedArray()
+        return table.keyToPinyin(t9Sequence)
     }
 
 
     /**
      * 获取拼音拼音对应的键码
      */
-    fun pinyin2Key(sequence: String?): String {
-        if (sequence.isNullOrEmpty()) return ""
-        for ((key, value) in pinyinMap) {
-            val pinyinList = value.split(",")
-            if (pinyinList.any { it == sequence }) {
-                return key
-            }
-        }
-        return ""
-    }
+    fun pinyin2Key(sequence: String?): String = table.pinyinToKey(sequence)
 
     fun pinyin2T9Key(pinyin: Char): Char = t9KeyMap[pinyin]?:pinyin
 
     fun getT9Composition(composition: String, comment: String): String {
         if(comment.isEmpty())return composition
-        val compositionList = composition.filter { it.code <= 0xFF }.split("'".toRegex())
+        val compositionList = composition.filter { it.code <= 0xFF }.split('\'')
         return buildSpannedString {
             append(composition.filter { it.code > 0xFF })
             comment.split("'").zip(compositionList).forEach { (pinyin, compo) ->
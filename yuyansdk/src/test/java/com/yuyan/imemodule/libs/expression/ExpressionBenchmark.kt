@@ -0,0 +1,62 @@
+package com.yuyan.imemodule.libs.expression
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import kotlin.math.sin
+
+/**
+ * Compares building a fresh expression on every evaluation with reusing the cached compiled program
+ */
+class ExpressionBenchmark {
+
+    @Test
+    fun cachedExpressionEvaluatesLikeFreshOne() {
+        for ((expression, expected) in listOf(
+            EXPRESSION to 12.0 * 3 + sin(30.0),
+            "2^10-1" to 1023.0,
+            "sqrt(16)+abs(-2)*pi" to 4 + 2 * Math.PI,
+            "-3+log(e)" to -2.0,
+            "7/4*2" to 3.5,
+        )) {
+            assertEquals(expression, expected, ExpressionBuilder(expression).build().evaluate(), DELTA)
+            assertEquals(expression, expected, ExpressionCache.get(expression).evaluate(), DELTA)
+            // repeated evaluation reuses the preallocated stack
+            assertEquals(expression, expected, ExpressionCache.get(expression).evaluate(), DELTA)
+        }
+        assertSame(ExpressionCache.get(EXPRESSION), ExpressionCache.get(EXPRESSION))
+    }
+
+    @Test
+    fun evaluateTwelveTimesThreePlusSin() {
+        val fresh = measure { ExpressionBuilder(EXPRESSION).build().evaluate() }
+        val cached = measure { ExpressionCache.get(EXPRESSION).evaluate() }
+        val compiled = ExpressionBuilder(EXPRESSION).build()
+        val evaluateOnly = measure { compiled.evaluate() }
+        println("Expression %s fresh=%.0fns/op cached=%.0fns/op evaluateOnly=%.0fns/op".format(
+            EXPRESSION, fresh, cached, evaluateOnly))
+    }
+
+    // median ns per evaluation over several rounds, after warmup
+    private fun measure(block: () -> Double): Double {
+        var sink = 0.0
+        repeat(WARMUP) { sink += block() }
+        val costs = LongArray(ROUNDS) {
+            val start = System.nanoTime()
+            repeat(OPERATIONS) { sink += block() }
+            System.nanoTime() - start
+        }
+        assertTrue(sink > 0)
+        costs.sort()
+        return costs[ROUNDS / 2].toDouble() / OPERATIONS
+    }
+
+    companion object {
+        private const val EXPRESSION = "12*3+sin(30)"
+        private const val DELTA = 1e-9
+        private const val WARMUP = 20000
+        private const val ROUNDS = 15
+        private const val OPERATIONS = 10000
+    }
+}
@@ -0,0 +1,130 @@
+package com.yuyan.imemodule.libs.pinyin4j.multipinyin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 文本表与二进制表的加载耗时、常驻堆内存对比，并校验两者查询结果一致
+ * <p>
+ * 二进制表由generatePinyinTable任务生成(preBuild依赖该任务)，单元测试工作目录为模块目录。
+ */
+public class PinyinTableBenchmark {
+
+    private static final File TEXT_DIR = new File("src/main/assets/pinyindb");
+
+    private static final File BINARY_FILE = new File("build/generated/pinyinTable/pinyindb/pinyin_table.pyb");
+
+    private static final int WARMUP = 3;
+
+    private static final int ROUNDS = 10;
+
+    private static final int HELD = 10;
+
+    private interface Loader {
+        PinyinTable load() throws IOException;
+    }
+
+    @Test
+    public void binaryMatchesText() throws IOException {
+        PinyinTable text = loadText();
+        PinyinTable binary = loadBinary();
+        int checked = 0;
+        for (char ch = '〇'; ch <= '龥'; ch++) {
+            assertSameMatch(text, binary, new char[]{ch});
+            checked++;
+        }
+        for (String phrase : samplePhrases()) {
+            assertSameMatch(text, binary, (phrase + "好").toCharArray());
+            checked++;
+        }
+        assertTrue(checked > 20000);
+    }
+
+    @Test
+    public void loadTimeAndHeap() throws IOException {
+        report("text", this::loadText);
+        report("binary", this::loadBinary);
+    }
+
+    private PinyinTable loadText() throws IOException {
+        return PinyinTable.load(new FileInputStream(new File(TEXT_DIR, "unicode_to_hanyu_pinyin.txt")),
+                new FileInputStream(new File(TEXT_DIR, "multi_pinyin.txt")));
+    }
+
+    private PinyinTable loadBinary() throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(BINARY_FILE, "r")) {
+            ByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+            return PinyinTable.map(buffer);
+        }
+    }
+
+    // 输出加载耗时中位数与加载后常驻的堆内存(映射内存不在堆上)
+    private static void report(String name, Loader loader) throws IOException {
+        // 先测内存，计时循环中产生的垃圾不影响统计；同时持有多份取平均，减小GC统计误差
+        long before = usedHeap();
+        PinyinTable[] tables = new PinyinTable[HELD];
+        for (int i = 0; i < HELD; i++) tables[i] = loader.load();
+        long retained = (usedHeap() - before) / HELD;
+        for (PinyinTable table : tables) assertEquals(1, table.matchLength(table.longestMatch(new char[]{'一'}, 0)));
+        for (int i = 0; i < WARMUP; i++) loader.load();
+        long[] costs = new long[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            loader.load();
+            costs[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(costs);
+        System.out.printf("PinyinTable %-6s load median=%.2fms min=%.2fms retainedHeap=%dKB%n",
+                name, costs[ROUNDS / 2] / 1e6, costs[0] / 1e6, Math.max(retained, 0) / 1024);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void assertSameMatch(PinyinTable text, PinyinTable binary, char[] chars) {
+        int expected = text.longestMatch(chars, 0);
+        int actual = binary.longestMatch(chars, 0);
+        String key = new String(chars);
+        assertEquals(key, expected < 0, actual < 0);
+        if (expected < 0) return;
+        assertEquals(key, text.matchLength(expected), binary.matchLength(actual));
+        assertEquals(key, syllables(text, expected), syllables(binary, actual));
+    }
+
+    private static List<String> syllables(PinyinTable table, int entry) {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < table.syllableCount(entry); i++) result.add(table.syllable(entry, i));
+        return result;
+    }
+
+    private static List<String> samplePhrases() throws IOException {
+        List<String> phrases = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(new File(TEXT_DIR, "multi_pinyin.txt")), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int space = line.indexOf(' ');
+                if (space > 1) phrases.add(line.substring(0, space));
+            }
+        }
+        return phrases;
+    }
+}
@@ -0,0 +1,270 @@
+package com.yuyan.imemodule.sync
+
+import kotlinx.coroutines.runBlocking
+import kotlinx.serialization.json.Json
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import okio.Buffer
+import org.junit.After
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.File
+import java.security.MessageDigest
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
+import kotlin.random.Random
+
+class IncrementalSyncTest {
+
+    /**
+     * 内存中的WebDAV服务器，支持PROPFIND(Depth 0/1)、MKCOL、PUT、GET、DELETE
+     */
+    private class FakeWebDav : Dispatcher() {
+        val files: MutableMap<String, ByteArray> = ConcurrentHashMap()
+        val dirs: MutableSet<String> = ConcurrentHashMap.newKeySet<String>().apply { add(ROOT) }
+        val puts = CopyOnWriteArrayList<String>()
+        @Volatile var beforeObjectGet: (() -> Unit)? = null  // 下一次读取分块前执行一次
+
+        override fun dispatch(request: RecordedRequest): MockResponse {
+            val path = request.requestUrl!!.encodedPath.trimEnd('/')
+            return when (request.method) {
+                "PROPFIND" -> propfind(path, request.getHeader("Depth") == "0")
+                "HEAD" -> MockResponse().setResponseCode(if (path in files || path in dirs) 200 else 404)
+                "MKCOL" -> {
+                    dirs.add(path)
+                    MockResponse().setResponseCode(201)
+                }
+                "PUT" -> {
+                    files[path] = request.body.readByteArray()
+                    puts.add(path)
+                    MockResponse().setResponseCode(201)
+                }
+                "GET" -> {
+                    if (path.startsWith("$OBJECTS/")) beforeObjectGet?.also { beforeObjectGet = null }?.invoke()
+                    files[path]?.let { MockResponse().setBody(Buffer().write(it)) } ?: MockResponse().setResponseCode(404)
+                }
+                "DELETE" -> MockResponse().setResponseCode(if (files.remove(path) != null) 204 else 404)
+                else -> MockResponse().setResponseCode(405)
+            }
+        }
+
+        fun objects(): Set<String> = files.keys.filter { it.startsWith("$OBJECTS/") }.mapTo(HashSet()) { it.substringAfterLast('/') }
+
+        fun objectPuts(): List<String> = puts.filter { it.startsWith("$OBJECTS/") }
+
+        private fun propfind(path: String, selfOnly: Boolean): MockResponse {
+            val body = StringBuilder("<?xml version=\"1.0\" encoding=\"utf-8\"?><d:multistatus xmlns:d=\"DAV:\">")
+            when (path) {
+                in dirs -> {
+                    body.append(entry("$path/", null))
+                    if (!selfOnly) {
+                        dirs.filter { it.substringBeforeLast('/') == path && it != path }.forEach { body.append(entry("$it/", null)) }
+                        files.filterKeys { it.substringBeforeLast('/') == path }.forEach { (name, data) -> body.append(entry(name, data.size)) }
+                    }
+                }
+                in files -> body.append(entry(path, files.getValue(path).size))
+                else -> return MockResponse().setResponseCode(404)
+            }
+            body.append("</d:multistatus>")
+            return MockResponse().setResponseCode(207).setHeader("Content-Type", "application/xml; charset=utf-8").setBody(body.toString())
+        }
+
+        private fun entry(href: String, size: Int?): String {
+            val type = if (size == null) "<d:resourcetype><d:collection/></d:resourcetype>"
+                else "<d:resourcetype/><d:getcontentlength>$size</d:getcontentlength><d:getcontenttype>application/octet-stream</d:getcontenttype>"
+            return "<d:response><d:href>$href</d:href><d:propstat><d:prop>$type" +
+                "<d:getlastmodified>Mon, 01 Jan 2024 00:00:00 GMT</d:getlastmodified></d:prop>" +
+                "<d:status>HTTP/1.1 200 OK</d:status></d:propstat></d:response>"
+        }
+    }
+
+    @get:Rule
+    val folder = TemporaryFolder()
+
+    private val webDav = FakeWebDav()
+    private val server = MockWebServer()
+    private lateinit var client: WebDAVClient
+
+    @Before
+    fun setUp() {
+        server.dispatcher = webDav
+        server.start()
+        client = WebDAVClient(server.url("$ROOT/").toString(), "user", "password")
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    @Test
+    fun unchangedResyncUploadsNoChunks() = runBlocking {
+        val device = Device("a")
+        device.write("databases/dict.db", randomBytes(CHUNK_SIZE * 2 + 1000, 1))
+        device.write("shared_prefs/prefs.xml", "<map/>".toByteArray())
+
+        val first = device.sync.upload(null)
+        assertEquals(2, first.changedFiles)
+        assertEquals(4, first.transferredChunks)
+        assertEquals(4, webDav.objects().size)
+
+        webDav.puts.clear()
+        val second = device.sync.upload(null)
+        assertEquals(0, second.changedFiles)
+        assertEquals(0, second.transferredChunks)
+        assertEquals(4, second.reusedChunks)
+        assertEquals(0, second.removedChunks)
+        assertTrue(webDav.objectPuts().isEmpty())
+    }
+
+    @Test
+    fun changedFileUploadsOnlyItsChunks() = runBlocking {
+        val device = Device("a")
+        val dict = randomBytes(CHUNK_SIZE * 2 + 1000, 2)
+        device.write("databases/dict.db", dict)
+        device.write("shared_prefs/prefs.xml", "<map/>".toByteArray())
+        device.write("external/theme.json", "{}".toByteArray())
+        device.sync.upload(null)
+        val before = webDav.objects()
+
+        // 只改动第二个分块
+        dict[CHUNK_SIZE + 10] = (dict[CHUNK_SIZE + 10] + 1).toByte()
+        device.write("databases/dict.db", dict, OLD_TIME + 1000)
+        webDav.puts.clear()
+        val stats = device.sync.upload(null)
+
+        assertEquals(1, stats.changedFiles)
+        assertEquals(1, stats.transferredChunks)
+        assertEquals(listOf(sha256(dict.copyOfRange(CHUNK_SIZE, CHUNK_SIZE * 2))), webDav.objectPuts().map { it.substringAfterLast('/') })
+        // 旧的第二个分块仍被上一份清单引用，保留一代
+        assertEquals(0, stats.removedChunks)
+        assertEquals(before.size + 1, webDav.objects().size)
+        assertTrue(webDav.objects().containsAll(before))
+
+        // 再发布一代后删除
+        val next = device.sync.upload(null)
+        assertEquals(1, next.removedChunks)
+        assertEquals(before.size, webDav.objects().size)
+    }
+
+    @Test
+    fun recentlyModifiedFileIsRehashed() = runBlocking {
+        val device = Device("a")
+        val modified = System.currentTimeMillis() - 500
+        device.write("shared_prefs/prefs.xml", "<map>1</map>".toByteArray(), modified)
+        device.sync.upload(null)
+
+        // 同一时间精度内再次修改，大小与修改时间都不变
+        device.write("shared_prefs/prefs.xml", "<map>2</map>".toByteArray(), modified)
+        val stats = device.sync.upload(null)
+
+        assertEquals(1, stats.transferredChunks)
+        // 旧内容的分块仍被上一份清单引用
+        assertEquals(setOf(sha256("<map>1</map>".toByteArray()), sha256("<map>2</map>".toByteArray())), webDav.objects())
+    }
+
+    @Test
+    fun downloadRestoresUploadedFiles() = runBlocking {
+        val source = Device("a")
+        val dict = randomBytes(CHUNK_SIZE + 5, 3)
+        source.write("databases/dict.db", dict)
+        source.write("external/theme.json", "{}".toByteArray())
+        source.sync.upload(null)
+
+        val target = Device("b")
+        target.write("external/theme.json", "{}".toByteArray())
+        val stats = target.sync.download(null)
+
+        assertEquals(1, stats.changedFiles)
+        assertEquals(2, stats.transferredChunks)
+        assertArrayEquals(dict, target.file("databases/dict.db").readBytes())
+    }
+
+    @Test
+    fun previousManifestStaysDownloadable() = runBlocking {
+        val source = Device("a")
+        val v1 = randomBytes(CHUNK_SIZE * 2, 4)
+        source.write("databases/dict.db", v1)
+        source.sync.upload(null)
+        val v1Chunks = webDav.objects()
+
+        // 另一台设备已取得v1清单、开始下载分块时，源设备发布了全部分块都变化的v2
+        val v2 = randomBytes(CHUNK_SIZE * 2, 5)
+        var uploadError: Throwable? = null
+        webDav.beforeObjectGet = {
+            source.write("databases/dict.db", v2, OLD_TIME + 1000)
+            uploadError = runCatching { runBlocking { source.sync.upload(null) } }.exceptionOrNull()
+        }
+        val target = Device("b")
+        target.sync.download(null)
+
+        assertEquals(null, uploadError)
+        assertArrayEquals(v1, target.file("databases/dict.db").readBytes())
+        // 第三代发布后，只被v1引用的分块才删除
+        val stats = source.sync.upload(null)
+        assertEquals(2, stats.removedChunks)
+        assertTrue(webDav.objects().none { it in v1Chunks })
+        assertEquals(2, webDav.objects().size)
+    }
+
+    @Test
+    fun pathTraversalManifestIsRejected() = runBlocking {
+        val device = Device("a")
+        val data = "evil".toByteArray()
+        val hash = sha256(data)
+        webDav.dirs.addAll(listOf("$ROOT/$REMOTE_PATH", "$ROOT/$REMOTE_PATH/incremental", OBJECTS))
+        webDav.files["$OBJECTS/$hash"] = data
+        val manifest = IncrementalSync.Manifest(timestamp = 0, files = listOf(
+            IncrementalSync.FileEntry("shared_prefs/ok.xml", data.size.toLong(), 0, listOf(hash)),
+            IncrementalSync.FileEntry("databases/../../evil.txt", data.size.toLong(), 0, listOf(hash)),
+        ))
+        webDav.files["$ROOT/$REMOTE_PATH/incremental/manifest.json"] =
+            Json.encodeToString(IncrementalSync.Manifest.serializer(), manifest).toByteArray()
+
+        try {
+            device.sync.download(null)
+            fail()
+        } catch (e: Exception) {
+            assertTrue(e.message!!.contains("databases/../../evil.txt"))
+        }
+        // 整个快照被拒绝，合法的文件也不写入
+        assertFalse(File(device.dir, "evil.txt").exists())
+        assertFalse(File(device.dir.parentFile, "evil.txt").exists())
+        assertFalse(device.file("shared_prefs/ok.xml").exists())
+    }
+
+    private inner class Device(name: String) {
+        val dir: File = folder.newFolder(name)
+        private val trees = listOf("shared_prefs", "databases", "external").associateWith { File(dir, it).apply { mkdirs() } }
+        val sync = IncrementalSync(client, REMOTE_PATH, trees, File(dir, "manifest.json"))
+
+        fun file(path: String) = File(trees.getValue(path.substringBefore('/')), path.substringAfter('/'))
+
+        fun write(path: String, data: ByteArray, modified: Long = OLD_TIME) {
+            file(path).writeBytes(data)
+            assertTrue(file(path).setLastModified(modified))
+        }
+    }
+
+    companion object {
+        private const val ROOT = "/dav"
+        private const val REMOTE_PATH = "yuyan"
+        private const val OBJECTS = "$ROOT/$REMOTE_PATH/incremental/objects"
+        private const val CHUNK_SIZE = 1024 * 1024
+        private val OLD_TIME = System.currentTimeMillis() / 1000 * 1000 - 60_000
+
+        private fun randomBytes(size: Int, seed: Int) = Random(seed).nextBytes(size)
+
+        private fun sha256(data: ByteArray): String =
+            MessageDigest.getInstance("SHA-256").digest(data).joinToString("") { "%02x".format(it) }
+    }
+}
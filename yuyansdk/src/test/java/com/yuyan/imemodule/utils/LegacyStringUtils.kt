@@ -0,0 +1,37 @@
+package com.yuyan.imemodule.utils
+
+import java.util.regex.Pattern
+
+/**
+ * 改写前基于正则的[StringUtils]实现，供单元测试与基准测试对比
+ */
+internal object LegacyStringUtils {
+    fun isLetter(str: String?): Boolean = Pattern.compile("[a-zA-Z]*").matcher(str.toString()).matches()
+
+    fun isEnglishWord(str: String?): Boolean = Pattern.compile("[a-zA-Z ]*").matcher(str.toString()).matches()
+
+    fun isNumber(str: String?): Boolean {
+        if (str.isNullOrBlank()) return false
+        return Pattern.compile("^[+-]?\\d*(\\.\\d*)?\$").matcher(str).matches()
+    }
+
+    fun isDBCSymbol(src: String?): Boolean {
+        if (src == null || src.length > 1) return false
+        val c = src[0]
+        return c.code in 32..47 || c.code in 58..64 || c.code in 91..96 || c.code in 123..126
+    }
+
+    fun sbc2dbcCase(src: String?): String? {
+        if (src == null) return null
+        val c = src.toCharArray()
+        for (i in c.indices) {
+            c[i] = when {
+                c[i] == StringUtils.SBC_SPACE -> StringUtils.DBC_SPACE
+                c[i] == StringUtils.SBC_PERIOD -> StringUtils.DBC_PERIOD
+                c[i] in StringUtils.UNICODE_START..StringUtils.UNICODE_END -> (c[i].code - StringUtils.DBC_SBC_STEP.code).toChar()
+                else -> c[i]
+            }
+        }
+        return String(c)
+    }
+}
@@ -0,0 +1,91 @@
+package com.yuyan.imemodule.utils
+
+import org.json.JSONObject
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
+import org.junit.Before
+import org.junit.Test
+
+class StartupTimelineTest {
+
+    @Before
+    fun setUp() {
+        StartupTimeline.reset()
+    }
+
+    @Test
+    fun phasesAreSortedByStartTime() {
+        // 外层阶段先开始后结束，记录顺序与开始顺序相反
+        val outer = StartupTimeline.begin("outer")
+        val inner = StartupTimeline.begin("inner")
+        StartupTimeline.end("inner", inner)
+        StartupTimeline.end("outer", outer)
+
+        assertEquals(listOf("outer", "inner"), StartupTimeline.phases().map { it.name })
+    }
+
+    @Test
+    fun startIsOffsetFromFirstPhase() {
+        StartupTimeline.trace("first") { Thread.sleep(2) }
+        StartupTimeline.trace("second") { Thread.sleep(2) }
+
+        val (first, second) = StartupTimeline.phases()
+        assertEquals(0L, first.startNanos)
+        assertTrue(first.durationNanos >= 2_000_000L)
+        assertTrue(second.startNanos >= first.startNanos + first.durationNanos)
+    }
+
+    @Test
+    fun keepsOnlyFirst64Phases() {
+        repeat(70) { i -> StartupTimeline.trace("phase$i") {} }
+
+        val phases = StartupTimeline.phases()
+        assertEquals(64, phases.size)
+        assertEquals("phase0", phases.first().name)
+        assertEquals("phase63", phases.last().name)
+    }
+
+    @Test
+    fun traceRecordsPhaseWhenBlockThrows() {
+        try {
+            StartupTimeline.trace("failing") { throw IllegalStateException() }
+            fail()
+        } catch (e: IllegalStateException) {
+            // 预期异常
+        }
+        assertEquals(listOf("failing"), StartupTimeline.phases().map { it.name })
+        assertEquals(42, StartupTimeline.trace("value") { 42 })
+    }
+
+    @Test
+    fun traceJsonHasCompleteAndThreadNameEvents() {
+        StartupTimeline.trace("main") { Thread.sleep(1) }
+        val worker = Thread({ StartupTimeline.trace("worker") { Thread.sleep(1) } }, "startup-worker")
+        worker.start()
+        worker.join()
+
+        val root = JSONObject(StartupTimeline.toTraceJson())
+        assertEquals("ms", root.getString("displayTimeUnit"))
+        val events = root.getJSONArray("traceEvents")
+        val complete = (0 until events.length()).map { events.getJSONObject(it) }.filter { it.getString("ph") == "X" }
+        val metadata = (0 until events.length()).map { events.getJSONObject(it) }.filter { it.getString("ph") == "M" }
+
+        assertEquals(listOf("main", "worker"), complete.map { it.getString("name") })
+        val phases = StartupTimeline.phases()
+        complete.forEachIndexed { i, event ->
+            // 时间单位为微秒
+            assertEquals(phases[i].startNanos / 1000, event.getLong("ts"))
+            assertEquals(phases[i].durationNanos / 1000, event.getLong("dur"))
+            assertEquals(phases[i].threadId, event.getLong("tid"))
+            assertTrue(event.has("pid"))
+        }
+        assertEquals(2, metadata.size)
+        for (event in metadata) {
+            assertEquals("thread_name", event.getString("name"))
+            val phase = phases.first { it.threadId == event.getLong("tid") }
+            assertEquals(phase.thread, event.getJSONObject("args").getString("name"))
+        }
+        assertTrue(metadata.any { it.getJSONObject("args").getString("name") == "startup-worker" })
+    }
+}
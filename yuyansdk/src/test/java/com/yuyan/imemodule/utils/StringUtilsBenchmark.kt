@@ -0,0 +1,71 @@
+package com.yuyan.imemodule.utils
+
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+/**
+ * 字符判断、全角转半角的新实现与旧实现(字符判断每次调用编译正则)的耗时对比
+ *
+ * 输入取按键时常见的拼写、英文、数字与全角文本。
+ */
+class StringUtilsBenchmark {
+
+    @Test
+    fun isLetter() {
+        compare("isLetter", { blackhole -> for (input in INPUTS) blackhole(LegacyStringUtils.isLetter(input)) },
+            { blackhole -> for (input in INPUTS) blackhole(StringUtils.isLetter(input)) })
+    }
+
+    @Test
+    fun isNumber() {
+        compare("isNumber", { blackhole -> for (input in INPUTS) blackhole(LegacyStringUtils.isNumber(input)) },
+            { blackhole -> for (input in INPUTS) blackhole(StringUtils.isNumber(input)) })
+    }
+
+    @Test
+    fun sbc2dbcCase() {
+        compare("sbc2dbcCase", { blackhole -> for (input in INPUTS) blackhole(LegacyStringUtils.sbc2dbcCase(input)) },
+            { blackhole -> for (input in INPUTS) blackhole(StringUtils.sbc2dbcCase(input)) })
+    }
+
+    // 预热后新旧实现交替执行多轮，分别取中位数，输出每个输入的平均耗时(ns)
+    private fun compare(name: String, legacy: ((Any?) -> Unit) -> Unit, table: ((Any?) -> Unit) -> Unit) {
+        var sink = 0
+        val blackhole: (Any?) -> Unit = { sink += it.hashCode() }
+        repeat(WARMUP) {
+            legacy(blackhole)
+            table(blackhole)
+        }
+        val legacyCosts = LongArray(ROUNDS)
+        val tableCosts = LongArray(ROUNDS)
+        for (round in 0..<ROUNDS) {
+            legacyCosts[round] = time { repeat(OPERATIONS) { legacy(blackhole) } }
+            tableCosts[round] = time { repeat(OPERATIONS) { table(blackhole) } }
+        }
+        assertTrue(sink != 0)
+        val legacyCost = median(legacyCosts)
+        val tableCost = median(tableCosts)
+        println("StringUtils %s legacy=%.0fns/op table=%.0fns/op speedup=%.1fx".format(name, legacyCost, tableCost, legacyCost / tableCost))
+    }
+
+    private inline fun time(block: () -> Unit): Long {
+        val start = System.nanoTime()
+        block()
+        return System.nanoTime() - start
+    }
+
+    private fun median(costs: LongArray): Double {
+        costs.sort()
+        return costs[costs.size / 2].toDouble() / OPERATIONS / INPUTS.size
+    }
+
+    companion object {
+        private val INPUTS = listOf(
+            "nihao", "zhongguoren", "Hello", "hello world", "abc1", "12", "-3.5", "3.14.", "",
+            "ｈｅｌｌｏ　ｗｏｒｌｄ", "中文。", "ＡＢＣ１２３", "你好，世界",
+        )
+        private const val WARMUP = 5000
+        private const val ROUNDS = 21
+        private const val OPERATIONS = 1000
+    }
+}
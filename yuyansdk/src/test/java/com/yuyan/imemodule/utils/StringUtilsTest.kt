@@ -0,0 +1,78 @@
+package com.yuyan.imemodule.utils
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+/**
+ * 与改写前基于正则的实现对比，null与空串的行为变化单独验证
+ */
+class StringUtilsTest {
+
+    @Test
+    fun matchesLegacyForAllShortStrings() {
+        for (str in samples()) {
+            assertEquals(str, LegacyStringUtils.isLetter(str), StringUtils.isLetter(str))
+            assertEquals(str, LegacyStringUtils.isEnglishWord(str), StringUtils.isEnglishWord(str))
+            assertEquals(str, LegacyStringUtils.isNumber(str), StringUtils.isNumber(str))
+            assertEquals(str, LegacyStringUtils.sbc2dbcCase(str), StringUtils.sbc2dbcCase(str))
+            if (str.isNotEmpty()) assertEquals(str, LegacyStringUtils.isDBCSymbol(str), StringUtils.isDBCSymbol(str))
+        }
+    }
+
+    @Test
+    fun dbcSymbolMatchesLegacyForAllChars() {
+        for (code in 0..0xFFFF) {
+            val str = code.toChar().toString()
+            assertEquals(str, LegacyStringUtils.isDBCSymbol(str), StringUtils.isDBCSymbol(str))
+        }
+    }
+
+    @Test
+    fun numbers() {
+        for (str in listOf("0", "12", "-3", "+4.5", ".5", "5.", ".", "+", "-.")) assertTrue(str, StringUtils.isNumber(str))
+        for (str in listOf("", " ", "1 ", "1.2.3", "--1", "1e5", "１２", "1-", "٣")) assertFalse(str, StringUtils.isNumber(str))
+        assertFalse(StringUtils.isNumber(null))
+    }
+
+    @Test
+    fun intentionalChangesForNullAndEmpty() {
+        // 旧实现把null当作"null"匹配
+        assertTrue(LegacyStringUtils.isLetter(null))
+        assertTrue(LegacyStringUtils.isEnglishWord(null))
+        assertFalse(StringUtils.isLetter(null))
+        assertFalse(StringUtils.isEnglishWord(null))
+        // 旧实现对空串抛出越界异常
+        assertTrue(runCatching { LegacyStringUtils.isDBCSymbol("") }.isFailure)
+        assertFalse(StringUtils.isDBCSymbol(""))
+        assertFalse(StringUtils.isDBCSymbol(null))
+        // 空串仍视为字母、英文
+        assertTrue(StringUtils.isLetter(""))
+        assertTrue(StringUtils.isEnglishWord(""))
+        assertNull(StringUtils.sbc2dbcCase(null))
+    }
+
+    @Test
+    fun sbc2dbcCaseConvertsFullWidth() {
+        assertEquals("ABC 123,.", StringUtils.sbc2dbcCase("ＡＢＣ　１２３，．"))
+        assertEquals("中文${StringUtils.DBC_PERIOD}", StringUtils.sbc2dbcCase("中文。"))
+        // 没有全角字符时返回原字符串
+        val plain = "plain text 中文"
+        assertSame(plain, StringUtils.sbc2dbcCase(plain))
+    }
+
+    // 长度0~2的全部组合
+    private fun samples(): List<String> {
+        val alphabet = "aZm09 \t+-.!/:@[`{~\u007f\u0000é中　。ＡＺ０．﻾﻿～｟١"
+        val result = arrayListOf("")
+        for (a in alphabet) {
+            result.add(a.toString())
+            for (b in alphabet) result.add("$a$b")
+        }
+        result.addAll(listOf("hello world", "Hello", "abc1", "+12.5", "-0.", "3.14.", " 1", "ｈｅｌｌｏ　ｗｏｒｌｄ"))
+        return result
+    }
+}
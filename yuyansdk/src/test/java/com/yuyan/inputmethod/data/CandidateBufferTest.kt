@@ -0,0 +1,47 @@
+package com.yuyan.inputmethod.data
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertSame
+import org.junit.Test
+
+class CandidateBufferTest {
+
+    private fun filled(vararg texts: String) = CandidateBuffer.obtain().apply { for (text in texts) add("", text) }
+
+    @Test
+    fun publishedBufferIsNotReusedUntilAllReferencesAreReleased() {
+        val engine = filled("你", "尼")
+        val published = engine.retain()  // 发布给界面
+        engine.release()  // 引擎换用下一个缓冲区
+        val next = filled("你好")
+        assertNotSame(published, next)
+        assertEquals(listOf("你", "尼"), published.map { it.text })
+        published.release()  // 界面换用下一个列表
+        next.release()
+        val reused = CandidateBuffer.obtain()
+        assertSame(next, reused)
+        assertEquals(0, reused.size)
+        assertSame(published, CandidateBuffer.obtain())
+    }
+
+    @Test
+    fun reusedBufferKeepsItemObjects() {
+        val buffer = filled("a", "b")
+        val item = buffer[0]
+        buffer.release()
+        val reused = CandidateBuffer.obtain()
+        assertSame(buffer, reused)
+        reused.add("c", "d")
+        assertSame(item, reused[0])
+        assertEquals("d", reused[0].text)
+        reused.release()
+    }
+
+    @Test(expected = IllegalStateException::class)
+    fun releasingRecycledBufferFails() {
+        val buffer = filled("a")
+        buffer.release()
+        buffer.release()
+    }
+}
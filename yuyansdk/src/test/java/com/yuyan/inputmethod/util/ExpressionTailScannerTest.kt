@@ -0,0 +1,63 @@
+package com.yuyan.inputmethod.util
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+import kotlin.random.Random
+
+class ExpressionTailScannerTest {
+
+    @Test
+    fun findsExpressionAtEnd() {
+        assertEquals("12*3+sin(30)", ExpressionTailScanner.scan("结果是12*3+sin(30)="))
+        assertEquals("1+2", ExpressionTailScanner.scan("abc1+2"))
+        assertEquals("sqrt(2)", ExpressionTailScanner.scan("xsqrt(2)"))
+        assertEquals("toradian(90)", ExpressionTailScanner.scan("这是toradian(90)"))
+        assertEquals("pi*2", ExpressionTailScanner.scan("pi*2"))
+        assertNull(ExpressionTailScanner.scan(""))
+        assertNull(ExpressionTailScanner.scan("="))
+        assertNull(ExpressionTailScanner.scan("你好"))
+        assertNull(ExpressionTailScanner.scan("1+2=="))
+    }
+
+    @Test
+    fun slidingWindowMatchesFullText() {
+        // 光标前100个字符的窗口每次前移，结果只取决于末尾
+        val text = "前面的文字" + "a".repeat(200) + "计算12*3+sin(30)"
+        val expected = ExpressionTailScanner.scan(text)
+        assertEquals("12*3+sin(30)", expected)
+        for (length in 20..100) assertEquals(expected, ExpressionTailScanner.scan(text.takeLast(length)))
+    }
+
+    @Test
+    fun matchesBruteForce() {
+        val alphabet = "0123456789+-*/().eπ=xaiongstcpqrlbfudhmw中"
+        val random = Random(42)
+        repeat(20000) {
+            val input = String(CharArray(random.nextInt(0, 30)) { alphabet[random.nextInt(alphabet.length)] })
+            assertEquals(input, bruteForce(input), ExpressionTailScanner.scan(input))
+        }
+    }
+
+    // 从前往后找第一个能完整切分到末尾的起点
+    private fun bruteForce(input: String): String? {
+        val end = if (input.endsWith("=")) input.length - 1 else input.length
+        val text = input.substring(0, end)
+        return (0 until end).firstOrNull { tokenizable(text, it) }?.let { text.substring(it) }
+    }
+
+    private fun tokenizable(text: String, start: Int): Boolean {
+        if (start == text.length) return true
+        if (text[start] in OPERAND_CHARS && tokenizable(text, start + 1)) return true
+        return WORDS.any { text.startsWith(it, start) && tokenizable(text, start + it.length) }
+    }
+
+    companion object {
+        private const val OPERAND_CHARS = "0123456789+-*/%^.()eEφπ"
+        private val WORDS = listOf(
+            "pi", "sin", "cos", "tan", "cot", "asin", "acos", "atan", "sinh", "cosh", "tanh", "abs", "log", "log1p",
+            "ceil", "floor", "sqrt", "cbrt", "pow", "exp", "expm", "signum", "csc", "sec", "csch", "sech", "coth",
+            "toradian", "todegree",
+        )
+    }
+}
@@ -0,0 +1,115 @@
+package com.yuyan.inputmethod.util
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+/**
+ * 按键序列查询表与旧实现(每次查询拆分、拼接字符串)的结果对比与耗时对比
+ *
+ * 模拟T9/LX17输入时的操作序列：逐键输入后刷新拼音栏，选择拼音时反查按键序列，再逐键退格刷新拼音栏。
+ */
+class KeySequenceTableBenchmark {
+
+    // 旧实现，与重构前T9PinYinUtils、LX17PinYinUtils一致
+    private class LegacyTable(private val pinyinMap: Map<String, String>, private val maxKeyLength: Int) {
+        fun keyToPinyin(sequence: String?): Array<String> {
+            if (sequence.isNullOrEmpty()) return emptyArray()
+            val sequenceString = if (sequence.length > maxKeyLength) sequence.substring(0, maxKeyLength) else sequence
+            val pinyin = ArrayList<String>(5)
+            for (length in sequenceString.length downTo 1) {
+                pinyinMap[sequenceString.substring(0, length)]?.let { pinyin.add(it) }
+            }
+            return pinyin.joinToString(",") { it }.split(",").toTypedArray()
+        }
+
+        fun pinyinToKey(pinyin: String?): String {
+            if (pinyin.isNullOrEmpty()) return ""
+            for ((key, value) in pinyinMap) {
+                if (value.split(",").any { it == pinyin }) return key
+            }
+            return ""
+        }
+    }
+
+    private class Case(val name: String, val pinyinMap: Map<String, String>, val maxKeyLength: Int) {
+        val table = KeySequenceTable(pinyinMap, maxKeyLength)
+        val legacy = LegacyTable(pinyinMap, maxKeyLength)
+        val pinyins = pinyinMap.values.flatMap { it.split(",") }.distinct()
+    }
+
+    private val cases = listOf(
+        Case("t9", T9PinYinUtils.pinyinMap, 6),
+        Case("lx17", LX17PinYinUtils.lx17PinyinMap, 2),
+    )
+
+    @Test
+    fun matchesLegacyImplementation() {
+        for (case in cases) {
+            for (key in case.pinyinMap.keys) {
+                for (length in 1..key.length) {
+                    val sequence = key.substring(0, length) + key
+                    assertEquals(sequence, case.legacy.keyToPinyin(sequence).toList(), case.table.keyToPinyin(sequence).toList())
+                }
+            }
+            for (pinyin in case.pinyins) {
+                assertEquals(pinyin, case.legacy.pinyinToKey(pinyin), case.table.pinyinToKey(pinyin))
+            }
+            assertEquals(case.legacy.pinyinToKey("none"), case.table.pinyinToKey("none"))
+            // 没有匹配的前缀、序列为空
+            for (sequence in listOf("1", "0", "11", "#2", "", null)) {
+                assertEquals("$sequence", case.legacy.keyToPinyin(sequence).toList(), case.table.keyToPinyin(sequence).toList())
+            }
+            assertEquals("", case.table.pinyinToKey(null))
+        }
+    }
+
+    @Test
+    fun selectAndBackspaceSequences() {
+        for (case in cases) {
+            val inputs = case.pinyins.take(SESSIONS).map { case.table.pinyinToKey(it) + case.table.pinyinToKey(case.pinyins.last()) }
+            val legacy = measure { blackhole -> for (input in inputs) blackhole(session(input, case.legacy::keyToPinyin, case.legacy::pinyinToKey)) }
+            val table = measure { blackhole -> for (input in inputs) blackhole(session(input, case.table::keyToPinyin, case.table::pinyinToKey)) }
+            val operations = inputs.sumOf { it.length * 2 + 1 }
+            println("KeySequenceTable %-4s legacy=%.0fns/op table=%.0fns/op speedup=%.1fx".format(
+                case.name, legacy.toDouble() / operations, table.toDouble() / operations, legacy.toDouble() / table))
+        }
+    }
+
+    // 一次输入：逐键输入刷新拼音栏，选择首个拼音并反查按键序列，再逐键退格
+    private fun session(input: String, keyToPinyin: (String) -> Array<String>, pinyinToKey: (String) -> String): Int {
+        var hash = 0
+        var first = ""
+        for (length in 1..input.length) {
+            val pinyins = keyToPinyin(input.substring(0, length))
+            if (length == 1) first = pinyins.firstOrNull() ?: ""
+            hash += pinyins.size
+        }
+        hash += pinyinToKey(first).length
+        for (length in input.length - 1 downTo 0) {
+            hash += keyToPinyin(input.substring(0, length)).size
+        }
+        return hash
+    }
+
+    // 预热后取多轮耗时中位数(纳秒)
+    private fun measure(block: ((Int) -> Unit) -> Unit): Long {
+        var sink = 0
+        val blackhole: (Int) -> Unit = { sink += it }
+        repeat(WARMUP) { block(blackhole) }
+        val costs = LongArray(ROUNDS) {
+            val start = System.nanoTime()
+            block(blackhole)
+            System.nanoTime() - start
+        }
+        assertTrue(sink != 0)
+        costs.sort()
+        return costs[ROUNDS / 2]
+    }
+
+    companion object {
+        private const val SESSIONS = 200
+        private const val WARMUP = 20
+        private const val ROUNDS = 30
+    }
+}